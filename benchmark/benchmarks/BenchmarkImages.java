@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic images for the benchmarks. Every image is a smooth gradient in each channel with a
+ * little noise on top, so that filters, compression and histograms see a realistic spread of
+ * values rather than a flat color. Images are generated from a fixed seed and are the same on
+ * every run.
+ */
+public final class BenchmarkImages {
+
+  private static final long SEED = 0x5EEDL;
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * Parses an image size of the form {@code WIDTHxHEIGHT}, such as {@code 4000x3000}.
+   *
+   * @param size the size.
+   * @return the width and the height.
+   * @throws IllegalArgumentException if the size is not two positive integers.
+   */
+  public static int[] parseSize(String size) {
+    String[] parts = size.split("x");
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Image size must be WIDTHxHEIGHT: " + size);
+    }
+    int width = Integer.parseInt(parts[0]);
+    int height = Integer.parseInt(parts[1]);
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Image size must be positive: " + size);
+    }
+    return new int[]{width, height};
+  }
+
+  /**
+   * Creates a synthetic image.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the image as a 3D array of rows, columns and channels, with values in 0-255.
+   */
+  public static int[][][] create(int width, int height) {
+    SplittableRandom random = new SplittableRandom(SEED);
+    int[][][] image = new int[height][width][];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int red = (int) (255L * j / Math.max(1, width - 1));
+        int green = (int) (255L * i / Math.max(1, height - 1));
+        int blue = (red + green) / 2;
+        image[i][j] = new int[]{
+            clamp(red + random.nextInt(-8, 9)),
+            clamp(green + random.nextInt(-8, 9)),
+            clamp(blue + random.nextInt(-8, 9))};
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Creates a synthetic image of the given size.
+   *
+   * @param size the size, as accepted by {@link #parseSize(String)}.
+   * @return the image.
+   */
+  public static int[][][] create(String size) {
+    int[] dimensions = parseSize(size);
+    return create(dimensions[0], dimensions[1]);
+  }
+
+  /**
+   * Clamps a value to 0-255.
+   *
+   * @param value the value.
+   * @return the clamped value.
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the image benchmarks with the GC profiler, which reports the allocation rate and the bytes
+ * allocated per operation next to the throughput.
+ *
+ * <p>Usage: {@code BenchmarkRunner [pattern] [sizes]}, where the pattern selects benchmarks by a
+ * regular expression over their names, such as {@code ImageModelBenchmark.blur}, and the sizes are
+ * a comma separated list such as {@code 1000x1000,1021x767} that replaces the default sizes.
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the optional pattern and sizes.
+   * @throws RunnerException if a benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .include(args.length > 0 ? args[0] : "benchmarks\\..*Benchmark")
+        .addProfiler(GCProfiler.class);
+    if (args.length > 1) {
+      options.param("size", args[1].split(","));
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import imagemodel.ArraySource;
+import imagemodel.ExtendedImageModel;
+import imagemodel.ExtendedImageModelImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks every operation added by {@link ExtendedImageModel}.
+ *
+ * <p>The model caches histograms per image, so the histogram and color correction benchmarks use a
+ * new model on every call and measure the full work. {@link #generateHistogramCached} measures a
+ * repeated request for the same image instead, as the GUI makes on every refresh.
+ */
+public class ExtendedImageModelBenchmark extends ImageBenchmark {
+
+  private static final int SPLIT = 50;
+  private static final int[][] KERNEL = {{1, 2, 1}, {2, 4, 2}, {1, 2, 1}};
+  private static final int DIVISOR = 16;
+
+  private final ExtendedImageModel model = new ExtendedImageModelImpl();
+
+  @Benchmark
+  public int[][][] compress(Pixels pixels) {
+    return processed(pixels, model.compress(image, 50));
+  }
+
+  @Benchmark
+  public int[][][] adjustLevel(Pixels pixels) {
+    return processed(pixels, model.adjustLevel(image, 20, 100, 230));
+  }
+
+  @Benchmark
+  public int[][] generateHistogram(Pixels pixels) {
+    return processed(pixels, new ExtendedImageModelImpl().generateHistogram(image));
+  }
+
+  @Benchmark
+  public int[][] generateHistogramCached(Pixels pixels) {
+    return processed(pixels, model.generateHistogram(image));
+  }
+
+  @Benchmark
+  public int[][] generateHistogramFromSource(Pixels pixels) {
+    return processed(pixels, model.generateHistogram(new ArraySource(image)));
+  }
+
+  @Benchmark
+  public int[][][] colorCorrect(Pixels pixels) {
+    return processed(pixels, new ExtendedImageModelImpl().colorCorrect(image));
+  }
+
+  @Benchmark
+  public int[][][] splitBlurImage(Pixels pixels) {
+    return processed(pixels, model.splitBlurImage(image, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] splitSharpenImage(Pixels pixels) {
+    return processed(pixels, model.splitSharpenImage(image, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] splitSepiaImage(Pixels pixels) {
+    return processed(pixels, model.splitSepiaImage(image, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] splitColorCorrectionImage(Pixels pixels) {
+    return processed(pixels,
+        new ExtendedImageModelImpl().splitColorCorrectionImage(image, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] splitLevelAdjustImage(Pixels pixels) {
+    return processed(pixels, model.splitLevelAdjustImage(image, 20, 100, 230, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] splitGrayscaleImage(Pixels pixels) {
+    return processed(pixels, model.splitGrayscaleImage(image, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] convolve(Pixels pixels) {
+    return processed(pixels, model.convolve(image, KERNEL, DIVISOR));
+  }
+
+  @Benchmark
+  public int[][][] splitConvolveImage(Pixels pixels) {
+    return processed(pixels, model.splitConvolveImage(image, KERNEL, DIVISOR, SPLIT));
+  }
+
+  @Benchmark
+  public int[][][] crop(Pixels pixels) {
+    return processed(pixels,
+        model.crop(image, width / 4, height / 4, Math.max(1, width / 2), Math.max(1, height / 2)));
+  }
+
+  @Benchmark
+  public int[][][] rotate(Pixels pixels) {
+    return processed(pixels, model.rotate(image, 90));
+  }
+}
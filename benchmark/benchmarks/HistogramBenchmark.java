@@ -0,0 +1,54 @@
+package benchmarks;
+
+import imagecontroller.LazyImageMap;
+import imagecontroller.handlefilters.HandleHistogram;
+import imagemodel.ExtendedImageModelImpl;
+import imagemodel.HistogramRenderer;
+import imagemodel.PackedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks the {@code histogram} command from the stored image to the stored graph, and the
+ * drawing of the graph alone. The command uses a new model on every call so that the histograms
+ * are counted each time; {@link #histogramCommandCached} repeats the command on one model, as the
+ * GUI does when it refreshes the same image.
+ */
+public class HistogramBenchmark extends ImageBenchmark {
+
+  private static final String[] COMMAND = {"histogram", "image", "image-histogram"};
+
+  private final LazyImageMap imageMap = new LazyImageMap();
+  private HandleHistogram cachedHandler;
+  private final HistogramRenderer renderer = new HistogramRenderer(256, 256, false);
+  private int[][] histograms;
+
+  /**
+   * Stores the input image and counts its histograms once.
+   */
+  @Setup(Level.Trial)
+  public void storeImage() {
+    imageMap.put("image", image);
+    ExtendedImageModelImpl model = new ExtendedImageModelImpl();
+    cachedHandler = new HandleHistogram(model, imageMap);
+    histograms = model.generateHistogram(image);
+  }
+
+  @Benchmark
+  public Object histogramCommand(Pixels pixels) {
+    new HandleHistogram(new ExtendedImageModelImpl(), imageMap).apply(COMMAND);
+    return processed(pixels, imageMap.getSource("image-histogram"));
+  }
+
+  @Benchmark
+  public Object histogramCommandCached(Pixels pixels) {
+    cachedHandler.apply(COMMAND);
+    return processed(pixels, imageMap.getSource("image-histogram"));
+  }
+
+  @Benchmark
+  public PackedImage render() {
+    return renderer.render(histograms);
+  }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common settings of the image benchmarks. Every benchmark runs over the same sizes: 1, 12 and 48
+ * megapixels, an odd size that is not a multiple of any tile or band, and a long thin strip.
+ *
+ * <p>Besides operations per second, every benchmark counts the megapixels it processed in a
+ * {@link Pixels} counter, which JMH reports as megapixels per second. Allocation rates come from
+ * the GC profiler, which {@link BenchmarkRunner} adds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public abstract class ImageBenchmark {
+
+  @Param({"1000x1000", "4000x3000", "8000x6000", "1021x767", "3001x7"})
+  public String size;
+
+  protected int width;
+  protected int height;
+  protected double megapixels;
+  protected int[][][] image;
+
+  /**
+   * Counts the megapixels processed during an iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Pixels {
+
+    public double megapixels;
+
+    /**
+     * Resets the count at the start of an iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      megapixels = 0;
+    }
+  }
+
+  /**
+   * Creates the input image.
+   */
+  @Setup(Level.Trial)
+  public void createImage() {
+    int[] dimensions = BenchmarkImages.parseSize(size);
+    width = dimensions[0];
+    height = dimensions[1];
+    megapixels = width * (double) height / 1e6;
+    image = BenchmarkImages.create(width, height);
+  }
+
+  /**
+   * Counts one processed image and passes the result through, so that it is returned from the
+   * benchmark and cannot be optimized away.
+   *
+   * @param pixels the counter.
+   * @param result the result of the benchmarked operation.
+   * @param <T>    the type of the result.
+   * @return the result.
+   */
+  protected <T> T processed(Pixels pixels, T result) {
+    pixels.megapixels += megapixels;
+    return result;
+  }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import imagemodel.ArraySource;
+import imagemodel.ImageConvert;
+import imagemodel.PackedImage;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks the conversions of {@link ImageConvert} between buffered images, arrays and packed
+ * images. Buffered images are read in each type that has its own fast path, and in a gray type that
+ * goes through the color model.
+ */
+public class ImageConvertBenchmark extends ImageBenchmark {
+
+  @Param({"INT_RGB", "3BYTE_BGR", "4BYTE_ABGR", "BYTE_GRAY"})
+  public String imageType;
+
+  private final ImageConvert convert = new ImageConvert();
+  private BufferedImage bufferedImage;
+  private PackedImage packedImage;
+  private ArraySource source;
+
+  /**
+   * Creates the buffered, packed and source forms of the input image.
+   */
+  @Setup(Level.Trial)
+  public void createForms() {
+    BufferedImage rgb = convert.convertToBufferedImage(image);
+    bufferedImage = new BufferedImage(width, height, typeOf(imageType));
+    Graphics2D graphics = bufferedImage.createGraphics();
+    graphics.drawImage(rgb, 0, 0, null);
+    graphics.dispose();
+    packedImage = PackedImage.fromArray(image);
+    source = new ArraySource(image);
+  }
+
+  @Benchmark
+  public int[][][] convertToArray(Pixels pixels) {
+    return processed(pixels, convert.convertToArray(bufferedImage));
+  }
+
+  @Benchmark
+  public PackedImage convertToPackedImage(Pixels pixels) {
+    return processed(pixels, convert.convertToPackedImage(bufferedImage));
+  }
+
+  @Benchmark
+  public BufferedImage convertArrayToBufferedImage(Pixels pixels) {
+    return processed(pixels, convert.convertToBufferedImage(image));
+  }
+
+  @Benchmark
+  public BufferedImage convertPackedImageToBufferedImage(Pixels pixels) {
+    return processed(pixels, convert.convertToBufferedImage(packedImage));
+  }
+
+  @Benchmark
+  public BufferedImage convertSourceToBufferedImage(Pixels pixels) {
+    return processed(pixels, convert.convertToBufferedImage(source));
+  }
+
+  /**
+   * Maps the name of a buffered image type to its constant.
+   *
+   * @param name the type name without its {@code TYPE_} prefix.
+   * @return the type constant.
+   */
+  private static int typeOf(String name) {
+    switch (name) {
+      case "INT_RGB":
+        return BufferedImage.TYPE_INT_RGB;
+      case "3BYTE_BGR":
+        return BufferedImage.TYPE_3BYTE_BGR;
+      case "4BYTE_ABGR":
+        return BufferedImage.TYPE_4BYTE_ABGR;
+      case "BYTE_GRAY":
+        return BufferedImage.TYPE_BYTE_GRAY;
+      default:
+        throw new IllegalArgumentException("Unknown image type: " + name);
+    }
+  }
+}
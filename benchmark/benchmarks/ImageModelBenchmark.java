@@ -0,0 +1,78 @@
+package benchmarks;
+
+import imagemodel.ImageModel;
+import imagemodel.ImageModelImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks every operation of {@link ImageModel}.
+ */
+public class ImageModelBenchmark extends ImageBenchmark {
+
+  private final ImageModel model = new ImageModelImpl();
+
+  @Benchmark
+  public int[][][] extractRedComponent(Pixels pixels) {
+    return processed(pixels, model.extractRedComponent(image));
+  }
+
+  @Benchmark
+  public int[][][] extractGreenComponent(Pixels pixels) {
+    return processed(pixels, model.extractGreenComponent(image));
+  }
+
+  @Benchmark
+  public int[][][] extractBlueComponent(Pixels pixels) {
+    return processed(pixels, model.extractBlueComponent(image));
+  }
+
+  @Benchmark
+  public int[][][] flipHorizontally(Pixels pixels) {
+    return processed(pixels, model.flipHorizontally(image));
+  }
+
+  @Benchmark
+  public int[][][] flipVertically(Pixels pixels) {
+    return processed(pixels, model.flipVertically(image));
+  }
+
+  @Benchmark
+  public int[][][] convertToSepia(Pixels pixels) {
+    return processed(pixels, model.convertToSepia(image));
+  }
+
+  @Benchmark
+  public int[][][] combineRGBImage(Pixels pixels) {
+    return processed(pixels, model.combineRGBImage(image, image, image));
+  }
+
+  @Benchmark
+  public int[][][] brightenImage(Pixels pixels) {
+    return processed(pixels, model.brightenImage(image, 40));
+  }
+
+  @Benchmark
+  public int[][][] blurImage(Pixels pixels) {
+    return processed(pixels, model.blurImage(image));
+  }
+
+  @Benchmark
+  public int[][][] sharpenImage(Pixels pixels) {
+    return processed(pixels, model.sharpenImage(image));
+  }
+
+  @Benchmark
+  public int[][][] calculateValue(Pixels pixels) {
+    return processed(pixels, model.calculateValue(image));
+  }
+
+  @Benchmark
+  public int[][][] calculateIntensity(Pixels pixels) {
+    return processed(pixels, model.calculateIntensity(image));
+  }
+
+  @Benchmark
+  public int[][][] calculateLuma(Pixels pixels) {
+    return processed(pixels, model.calculateLuma(image));
+  }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import imagecontroller.fileio.MappedPpmImage;
+import imagecontroller.fileio.PpmReader;
+import imagecontroller.fileio.PpmWriter;
+import imagemodel.ArraySource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks loading and saving PPM files, both plain P3 and binary P6, through
+ * {@link PpmReader}, {@link PpmWriter} and {@link MappedPpmImage}. The files live in a temporary
+ * directory that is removed after the benchmark, so the timings include the file system but, after
+ * the first iteration, usually not the disk.
+ */
+public class PpmBenchmark extends ImageBenchmark {
+
+  @Param({"P3", "P6"})
+  public String format;
+
+  private Path directory;
+  private String input;
+  private String output;
+  private boolean binary;
+
+  /**
+   * Writes the input file.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void writeInput() throws IOException {
+    binary = format.equals("P6");
+    directory = Files.createTempDirectory("ppm-benchmark");
+    input = directory.resolve("input.ppm").toString();
+    output = directory.resolve("output.ppm").toString();
+    new PpmWriter().write(image, input, binary);
+  }
+
+  /**
+   * Removes the files.
+   *
+   * @throws IOException if a file cannot be removed.
+   */
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    Files.deleteIfExists(Path.of(input));
+    Files.deleteIfExists(Path.of(output));
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public int[][][] read(Pixels pixels) throws IOException {
+    return processed(pixels, new PpmReader().read(input));
+  }
+
+  @Benchmark
+  public int[][][] readMapped(Pixels pixels) throws IOException {
+    return processed(pixels, new MappedPpmImage(input).toArray());
+  }
+
+  @Benchmark
+  public void writeArray(Pixels pixels) throws IOException {
+    new PpmWriter().write(image, output, binary);
+    processed(pixels, output);
+  }
+
+  @Benchmark
+  public void writeSource(Pixels pixels) throws IOException {
+    new PpmWriter().write(new ArraySource(image), output, binary);
+    processed(pixels, output);
+  }
+}
@@ -0,0 +1,164 @@
+package imagecontroller;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the edits requested from the GUI, one after the other, on a worker thread, so that the
+ * event dispatch thread stays free while an image is processed.
+ *
+ * <p>Every edit supersedes the edits submitted before it. A superseded edit that has not started
+ * yet is dropped, and one that is running stops at its next progress report, so that only the
+ * result of the last edit requested is shown. Work already inside a filter cannot be interrupted
+ * and runs to the end of that filter before it stops. Loads and saves are queued instead, so they
+ * are never dropped.
+ *
+ * <p>Progress reports and the final update of the view of an edit run on the UI executor, and only
+ * while the edit has not been superseded.
+ */
+public class EditExecutor {
+
+  /**
+   * An edit run on the worker thread.
+   */
+  public interface Edit {
+
+    /**
+     * Runs the edit.
+     *
+     * @param progress receives progress reports; reporting progress throws a
+     *                 {@link CancellationException} once the edit has been superseded.
+     * @return the update of the view run on the UI executor when the edit is done.
+     */
+    Runnable run(Consumer<String> progress);
+  }
+
+  private final Executor worker;
+  private final Executor ui;
+  private final Consumer<String> progressMessages;
+  private final Consumer<String> errorMessages;
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Constructs an executor.
+   *
+   * @param worker   the executor running the edits; it must run them one at a time, in order.
+   * @param ui       the executor updating the view.
+   * @param messages shows progress reports and errors, on the UI executor.
+   */
+  public EditExecutor(Executor worker, Executor ui, Consumer<String> messages) {
+    this(worker, ui, messages, messages);
+  }
+
+  /**
+   * Constructs an executor showing progress reports and errors separately.
+   *
+   * @param worker           the executor running the edits.
+   * @param ui               the executor updating the view.
+   * @param progressMessages shows progress reports.
+   * @param errorMessages    shows errors.
+   */
+  private EditExecutor(Executor worker, Executor ui, Consumer<String> progressMessages,
+      Consumer<String> errorMessages) {
+    this.worker = worker;
+    this.ui = ui;
+    this.progressMessages = progressMessages;
+    this.errorMessages = errorMessages;
+  }
+
+  /**
+   * Returns an executor running every edit to completion on the calling thread. Progress reports
+   * are dropped, since the view cannot be repainted before the edit returns anyway.
+   *
+   * @param errors shows errors.
+   * @return the executor.
+   */
+  public static EditExecutor direct(Consumer<String> errors) {
+    return new EditExecutor(Runnable::run, Runnable::run, message -> {
+    }, errors);
+  }
+
+  /**
+   * Returns an executor running the edits on a single daemon thread.
+   *
+   * @param ui       the executor updating the view, such as the event dispatch thread.
+   * @param messages shows progress reports and errors, on the UI executor.
+   * @return the executor.
+   */
+  public static EditExecutor inBackground(Executor ui, Consumer<String> messages) {
+    ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "image-edits");
+      thread.setDaemon(true);
+      return thread;
+    });
+    return new EditExecutor(worker, ui, messages);
+  }
+
+  /**
+   * Submits an edit, superseding the edits submitted before it.
+   *
+   * @param edit the edit.
+   */
+  public void submit(Edit edit) {
+    long id = generation.incrementAndGet();
+    worker.execute(() -> {
+      if (generation.get() == id) {
+        run(edit, id, true);
+      }
+    });
+  }
+
+  /**
+   * Queues an edit that must not be dropped, such as a load or a save, after the edits submitted
+   * before it. It supersedes nothing and is never stopped, but its update of the view is skipped if
+   * a later edit has been submitted by the time it is done.
+   *
+   * @param edit the edit.
+   */
+  public void enqueue(Edit edit) {
+    long id = generation.get();
+    worker.execute(() -> run(edit, id, false));
+  }
+
+  /**
+   * Runs an edit on the worker thread and hands its update of the view to the UI executor.
+   *
+   * @param edit        the edit.
+   * @param id          the generation of the edit.
+   * @param cancellable whether progress reports stop the edit once it has been superseded.
+   */
+  private void run(Edit edit, long id, boolean cancellable) {
+    Consumer<String> progress = message -> {
+      if (cancellable && generation.get() != id) {
+        throw new CancellationException();
+      }
+      onUi(id, () -> progressMessages.accept(message));
+    };
+    try {
+      onUi(id, edit.run(progress));
+    } catch (CancellationException e) {
+      // Superseded by a later edit, whose result is shown instead.
+    } catch (RuntimeException e) {
+      onUi(id, () -> errorMessages.accept("Error: " + e.getMessage()));
+    }
+  }
+
+  /**
+   * Runs an update of the view on the UI executor, unless the edit it belongs to has been
+   * superseded by then.
+   *
+   * @param id     the generation of the edit.
+   * @param update the update.
+   */
+  private void onUi(long id, Runnable update) {
+    ui.execute(() -> {
+      if (generation.get() == id) {
+        update.run();
+      }
+    });
+  }
+}
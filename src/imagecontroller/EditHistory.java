@@ -0,0 +1,347 @@
+package imagecontroller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The undo and redo history of the image edited in the GUI, kept within a memory budget.
+ *
+ * <p>An edit is recorded as the command that produced the new image together with a delta that
+ * turns the new image back into the old one. The images are compared in tiles of
+ * {@value #TILE_SIZE} by {@value #TILE_SIZE} pixels, and only the old contents of the tiles that
+ * changed are kept, compressed with {@link Deflater}; if the size of the image changed, the whole
+ * old image is kept compressed instead. Undoing an edit patches the tiles back into a copy of the
+ * current image, and redoing it runs the recorded command again, since every command is
+ * deterministic.
+ *
+ * <p>When the compressed deltas exceed the budget, the oldest edits are forgotten, except that the
+ * most recent edit can always be undone.
+ */
+public class EditHistory {
+
+  static final int TILE_SIZE = 64;
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private final Deque<Edit> undoStack = new ArrayDeque<>();
+  private final Deque<Edit> redoStack = new ArrayDeque<>();
+  private long budget;
+  private long size;
+
+  /**
+   * A recorded edit.
+   */
+  private static final class Edit {
+
+    private final String command;
+    private final byte[] delta;
+    private final int width;
+    private final int height;
+    private final boolean wholeImage;
+    private final int bytesPerSample;
+
+    /**
+     * Constructs an edit.
+     *
+     * @param command        the command that produced the new image.
+     * @param delta          the compressed old contents.
+     * @param width          the width of the old image.
+     * @param height         the height of the old image.
+     * @param wholeImage     true if the delta holds the whole old image rather than tiles.
+     * @param bytesPerSample 1 if every sample fits in a byte, 4 otherwise.
+     */
+    private Edit(String command, byte[] delta, int width, int height, boolean wholeImage,
+        int bytesPerSample) {
+      this.command = command;
+      this.delta = delta;
+      this.width = width;
+      this.height = height;
+      this.wholeImage = wholeImage;
+      this.bytesPerSample = bytesPerSample;
+    }
+
+    /**
+     * Returns the number of bytes this edit is counted for.
+     *
+     * @return the size of the edit.
+     */
+    private long size() {
+      return delta.length + 2L * command.length() + ENTRY_OVERHEAD;
+    }
+  }
+
+  /**
+   * Constructs a history with the given memory budget.
+   *
+   * @param budget the number of bytes the recorded edits may use.
+   */
+  public EditHistory(long budget) {
+    setBudget(budget);
+  }
+
+  /**
+   * Sets the memory budget, forgetting the oldest edits at once if they exceed it.
+   *
+   * @param budget the number of bytes the recorded edits may use.
+   * @throws IllegalArgumentException if the budget is not positive.
+   */
+  public void setBudget(long budget) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("The history budget must be positive.");
+    }
+    this.budget = budget;
+    trim();
+  }
+
+  /**
+   * Records an edit. Any edits that were undone can no longer be redone.
+   *
+   * @param command the command that turned the old image into the new one.
+   * @param before  the old image.
+   * @param after   the new image.
+   */
+  public void record(String command, int[][][] before, int[][][] after) {
+    if (before == null || after == null || before == after) {
+      return;
+    }
+    Edit edit = encode(command, before, after);
+    for (Edit undone : redoStack) {
+      size -= undone.size();
+    }
+    redoStack.clear();
+    undoStack.push(edit);
+    size += edit.size();
+    trim();
+  }
+
+  /**
+   * Checks whether there is an edit to undo.
+   *
+   * @return true if an edit can be undone.
+   */
+  public boolean canUndo() {
+    return !undoStack.isEmpty();
+  }
+
+  /**
+   * Checks whether there is an edit to redo.
+   *
+   * @return true if an edit can be redone.
+   */
+  public boolean canRedo() {
+    return !redoStack.isEmpty();
+  }
+
+  /**
+   * Undoes the most recent edit.
+   *
+   * @param current the current image, i.e. the result of the most recent edit. It is not
+   *                modified.
+   * @return the image before the edit, or null if there is nothing to undo.
+   */
+  public int[][][] undo(int[][][] current) {
+    Edit edit = undoStack.poll();
+    if (edit == null) {
+      return null;
+    }
+    redoStack.push(edit);
+    return decode(edit, current);
+  }
+
+  /**
+   * Moves the most recently undone edit back to the undo history. The caller runs the returned
+   * command on the current image to redo the edit.
+   *
+   * @return the command of the edit, or null if there is nothing to redo.
+   */
+  public String redo() {
+    Edit edit = redoStack.poll();
+    if (edit == null) {
+      return null;
+    }
+    undoStack.push(edit);
+    return edit.command;
+  }
+
+  /**
+   * Forgets every edit.
+   */
+  public void clear() {
+    undoStack.clear();
+    redoStack.clear();
+    size = 0;
+  }
+
+  /**
+   * Returns the number of bytes used by the recorded edits.
+   *
+   * @return the size of the history.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Forgets the oldest edits until the budget is met, redoable edits first, keeping the most
+   * recent undoable edit.
+   */
+  private void trim() {
+    while (size > budget && !redoStack.isEmpty()) {
+      size -= redoStack.removeLast().size();
+    }
+    while (size > budget && undoStack.size() > 1) {
+      size -= undoStack.removeLast().size();
+    }
+  }
+
+  /**
+   * Compresses the delta turning the new image of an edit back into the old one.
+   *
+   * @param command the command of the edit.
+   * @param before  the old image.
+   * @param after   the new image.
+   * @return the edit.
+   */
+  private static Edit encode(String command, int[][][] before, int[][][] after) {
+    int height = before.length;
+    int width = before[0].length;
+    boolean wholeImage = after.length != height || after[0].length != width;
+    int bytesPerSample = fitsInBytes(before) ? 1 : 4;
+
+    List<int[]> tiles = new ArrayList<>();
+    for (int top = 0; top < height; top += TILE_SIZE) {
+      for (int left = 0; left < width; left += TILE_SIZE) {
+        int[] tile = {left, top, Math.min(TILE_SIZE, width - left),
+            Math.min(TILE_SIZE, height - top)};
+        if (wholeImage || tileChanged(before, after, tile)) {
+          tiles.add(tile);
+        }
+      }
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new DeflaterOutputStream(bytes, deflater)))) {
+      out.writeInt(tiles.size());
+      ByteBuffer row = ByteBuffer.allocate(TILE_SIZE * 3 * bytesPerSample);
+      for (int[] tile : tiles) {
+        out.writeInt(tile[0]);
+        out.writeInt(tile[1]);
+        for (int i = tile[1]; i < tile[1] + tile[3]; i++) {
+          row.clear();
+          for (int j = tile[0]; j < tile[0] + tile[2]; j++) {
+            for (int c = 0; c < 3; c++) {
+              if (bytesPerSample == 1) {
+                row.put((byte) before[i][j][c]);
+              } else {
+                row.putInt(before[i][j][c]);
+              }
+            }
+          }
+          out.write(row.array(), 0, row.position());
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not compress the edit.", e);
+    } finally {
+      deflater.end();
+    }
+    return new Edit(command, bytes.toByteArray(), width, height, wholeImage, bytesPerSample);
+  }
+
+  /**
+   * Rebuilds the old image of an edit.
+   *
+   * @param edit    the edit.
+   * @param current the new image of the edit.
+   * @return the old image.
+   */
+  private static int[][][] decode(Edit edit, int[][][] current) {
+    int[][][] colorArray = new int[edit.height][edit.width][];
+    if (!edit.wholeImage) {
+      for (int i = 0; i < edit.height; i++) {
+        for (int j = 0; j < edit.width; j++) {
+          colorArray[i][j] = current[i][j].clone();
+        }
+      }
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new InflaterInputStream(new ByteArrayInputStream(edit.delta))))) {
+      int tiles = in.readInt();
+      ByteBuffer row = ByteBuffer.allocate(TILE_SIZE * 3 * edit.bytesPerSample);
+      for (int t = 0; t < tiles; t++) {
+        int left = in.readInt();
+        int top = in.readInt();
+        int bottom = Math.min(top + TILE_SIZE, edit.height);
+        int right = Math.min(left + TILE_SIZE, edit.width);
+        for (int i = top; i < bottom; i++) {
+          row.clear();
+          in.readFully(row.array(), 0, (right - left) * 3 * edit.bytesPerSample);
+          for (int j = left; j < right; j++) {
+            int[] pixel = new int[3];
+            for (int c = 0; c < 3; c++) {
+              pixel[c] = edit.bytesPerSample == 1 ? row.get() & 0xFF : row.getInt();
+            }
+            colorArray[i][j] = pixel;
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not decompress the edit.", e);
+    }
+    return colorArray;
+  }
+
+  /**
+   * Checks whether any pixel of a tile differs between two images of the same size.
+   *
+   * @param before the old image.
+   * @param after  the new image.
+   * @param tile   the left, top, width and height of the tile.
+   * @return true if the tile changed.
+   */
+  private static boolean tileChanged(int[][][] before, int[][][] after, int[] tile) {
+    for (int i = tile[1]; i < tile[1] + tile[3]; i++) {
+      for (int j = tile[0]; j < tile[0] + tile[2]; j++) {
+        int[] oldPixel = before[i][j];
+        int[] newPixel = after[i][j];
+        if (oldPixel[0] != newPixel[0] || oldPixel[1] != newPixel[1]
+            || oldPixel[2] != newPixel[2]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether every sample of an image fits in an unsigned byte.
+   *
+   * @param colorArray the image.
+   * @return true if all samples lie in 0-255.
+   */
+  private static boolean fitsInBytes(int[][][] colorArray) {
+    for (int[][] row : colorArray) {
+      for (int[] pixel : row) {
+        if ((pixel[0] | pixel[1] | pixel[2]) >>> 8 != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
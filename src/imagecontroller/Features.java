@@ -45,7 +45,18 @@ public interface Features {
   void handleLevelsAdjustButton(String s);
 
   /**
-   * Handles the split button with a specified command.
+   * Handles the undo button, restoring the image before the most recent edit.
+   */
+  void handleUndoButton();
+
+  /**
+   * Handles the redo button, applying the most recently undone edit again.
+   */
+  void handleRedoButton();
+
+  /**
+   * Handles the split button with a specified command. It is also called whenever the split
+   * slider moves, so it must be cheap to call many times in a row.
    *
    * @param currentCommand      The command for splitting the image.
    * @param splitPercentageView The Split percentage for splitting image.
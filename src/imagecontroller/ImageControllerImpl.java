@@ -4,7 +4,11 @@ import imagecontroller.handlefilters.HandleBlueComponent;
 import imagecontroller.handlefilters.HandleBlur;
 import imagecontroller.handlefilters.HandleBrighten;
 import imagecontroller.handlefilters.HandleColorCorrection;
+import imagecontroller.handlefilters.HandleColorMatrix;
 import imagecontroller.handlefilters.HandleCompress;
+import imagecontroller.handlefilters.HandleConvolve;
+import imagecontroller.handlefilters.HandleCrop;
+import imagecontroller.handlefilters.HandleCurves;
 import imagecontroller.handlefilters.HandleGreenComponent;
 import imagecontroller.handlefilters.HandleHistogram;
 import imagecontroller.handlefilters.HandleHorizontalFlip;
@@ -15,18 +19,33 @@ import imagecontroller.handlefilters.HandleLumaComponent;
 import imagecontroller.handlefilters.HandleRGBCombine;
 import imagecontroller.handlefilters.HandleRGBSplit;
 import imagecontroller.handlefilters.HandleRedComponent;
+import imagecontroller.handlefilters.HandleRotate;
 import imagecontroller.handlefilters.HandleSave;
 import imagecontroller.handlefilters.HandleSepia;
 import imagecontroller.handlefilters.HandleSharpen;
 import imagecontroller.handlefilters.HandleValueComponent;
 import imagecontroller.handlefilters.HandleVerticalFlip;
 import imagemodel.ExtendedImageModel;
+import imagemodel.PackedImage;
+import imagemodel.SplitSource;
 import imageview.ImageView;
+import java.awt.Image;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Class for Controlling the I/Os and assigning tasks to model and view. It implements the
@@ -37,9 +56,22 @@ public class ImageControllerImpl implements ImageController, Features {
   private final ExtendedImageModel imageFilter;
   private final ImageView imageView;
   private final Map<String, CommandHandler> commandHandlers;
-  private final Map<String, int[][][]> imageMap;
+  private final SpillingImageStore imageMap;
+  private final EditHistory history = new EditHistory(Runtime.getRuntime().maxMemory() / 8);
 
   private String[] currBMWValues;
+  private int scriptThreads = 1;
+  private EditExecutor edits;
+  private int previewWidth;
+  private int previewHeight;
+  private String displayed = "image1";
+  private final List<String> pendingEdits = new ArrayList<>();
+  private String splitOperation;
+  private int[][][] splitBefore;
+  private int[][][] splitAfter;
+  private PackedImage splitOriginal;
+  private PackedImage splitProcessed;
+  private final AtomicReference<SplitRequest> pendingSplit = new AtomicReference<>();
 
   /**
    * Constructor for our Controller class.
@@ -52,7 +84,8 @@ public class ImageControllerImpl implements ImageController, Features {
     imageView = view;
     imageView.addFeatures(this);
     commandHandlers = new HashMap<>();
-    imageMap = new HashMap<>();
+    imageMap = new SpillingImageStore();
+    edits = EditExecutor.direct(imageView::displayMessage);
     initializeCommandHandlers();
   }
 
@@ -74,6 +107,9 @@ public class ImageControllerImpl implements ImageController, Features {
     commandHandlers.put("blur", new HandleBlur(imageFilter, imageMap)::apply);
     commandHandlers.put("sharpen", new HandleSharpen(imageFilter, imageMap)::apply);
     commandHandlers.put("sepia", new HandleSepia(imageFilter, imageMap)::apply);
+    commandHandlers.put("convolve", new HandleConvolve(imageFilter, imageMap)::apply);
+    commandHandlers.put("crop", new HandleCrop(imageFilter, imageMap)::apply);
+    commandHandlers.put("rotate", new HandleRotate(imageFilter, imageMap)::apply);
     commandHandlers.put("run", this::handleRunScriptFromFile);
     commandHandlers.put("luma-component", new HandleLumaComponent(imageFilter, imageMap)::apply);
     commandHandlers.put("greyscale", new HandleLumaComponent(imageFilter, imageMap)::apply);
@@ -82,10 +118,90 @@ public class ImageControllerImpl implements ImageController, Features {
     commandHandlers.put("histogram", new HandleHistogram(imageFilter, imageMap)::apply);
     commandHandlers.put("color-correct", new HandleColorCorrection(imageFilter, imageMap)::apply);
     commandHandlers.put("levels-adjust", new HandleLevelAdjust(imageFilter, imageMap)::apply);
+    commandHandlers.put("curves", new HandleCurves(imageFilter, imageMap)::apply);
+    commandHandlers.put("color-matrix", new HandleColorMatrix(imageFilter, imageMap)::apply);
     commandHandlers.put("intensity-component",
         new HandleIntensityComponent(imageFilter, imageMap)::apply);
   }
 
+  /**
+   * Sets whether commands are evaluated lazily. Chains of point operations, such as brighten, the
+   * component commands, sepia, levels-adjust, curves and color-matrix, are then fused into a
+   * single pass, and crops, flips and rotations are recorded as views, all of which run only when
+   * another command needs the pixels. This is off by default.
+   *
+   * @param lazy true to evaluate commands lazily.
+   */
+  public void setLazyEvaluation(boolean lazy) {
+    imageMap.setLazy(lazy);
+  }
+
+  /**
+   * Sets the memory budget of the undo history of the GUI. The oldest edits beyond the budget can
+   * no longer be undone. The default is an eighth of the maximum heap size.
+   *
+   * @param bytes the number of bytes the recorded edits may use.
+   * @throws IllegalArgumentException if the budget is not positive.
+   */
+  public void setHistoryBudget(long bytes) {
+    history.setBudget(bytes);
+  }
+
+  /**
+   * Sets the memory budget of the images held by this controller. Least recently used images
+   * beyond the budget are moved to a spill file on disk and read back when they are used again.
+   * The default is half of the maximum heap size.
+   *
+   * @param bytes the number of bytes the images held in memory may use.
+   */
+  public void setMemoryBudget(long bytes) {
+    imageMap.setBudget(bytes);
+  }
+
+  /**
+   * Sets the number of threads running script files. With more than one thread, a script is
+   * compiled into a dependency graph first and commands that do not depend on each other run at
+   * the same time, while saves still happen in script order. The default is one thread, which
+   * runs every command in turn.
+   *
+   * @param threads the number of threads.
+   */
+  public void setScriptThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed to run scripts.");
+    }
+    scriptThreads = threads;
+  }
+
+  /**
+   * Sets the executor running the loads, saves and edits requested from the GUI. By default they
+   * run to completion on the thread handling the click; the GUI runs them on a worker thread
+   * instead, so that the window stays responsive and the last operation clicked wins.
+   *
+   * @param executor the executor.
+   */
+  public void setEditExecutor(EditExecutor executor) {
+    edits = executor;
+  }
+
+  /**
+   * Sets the size of the preview of the GUI. A loaded image larger than this size is edited through
+   * a copy scaled down to fit it, which is what the GUI shows, so that every edit is displayed
+   * after processing only the pixels that can be seen. The edits are applied to the full image in
+   * the background, and always before it is saved or an edit is undone or redone. The preview is
+   * off by default.
+   *
+   * @param width  the largest width of the preview, or 0 to turn the preview off.
+   * @param height the largest height of the preview, or 0 to turn the preview off.
+   */
+  public void setPreviewSize(int width, int height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The preview size cannot be negative.");
+    }
+    previewWidth = width;
+    previewHeight = height;
+  }
+
   /**
    * This is a private interface to handle Commands by user.
    */
@@ -139,32 +255,210 @@ public class ImageControllerImpl implements ImageController, Features {
    * @param scriptFile the file provided as a script file.
    */
   protected void executeScriptFromFile(String scriptFile) {
+    executeScriptFromFile(scriptFile, false);
+  }
+
+  /**
+   * Executes a script file as a batch job: every image is dropped from memory after the last
+   * command using it, and the peak heap usage of the run is displayed at the end. Since images are
+   * not kept for later commands, this is meant for scripts run from the command line.
+   *
+   * @param scriptFile the file provided as a script file.
+   */
+  protected void executeBatchScript(String scriptFile) {
+    resetPeakHeapUsage();
+    executeScriptFromFile(scriptFile, true);
+    imageView.displayMessage("Peak heap usage: " + (peakHeapUsage() >> 20) + " MB");
+  }
+
+  /**
+   * A helper method to execute the commands of script file, one at a time or following its
+   * dependency graph if scripts run on several threads.
+   *
+   * @param scriptFile    the file provided as a script file.
+   * @param releaseImages true to drop every image after the last command using it.
+   */
+  private void executeScriptFromFile(String scriptFile, boolean releaseImages) {
+    boolean compile = scriptThreads > 1 || releaseImages;
+    List<String> lines = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new FileReader(scriptFile))) {
       String line;
       while ((line = reader.readLine()) != null) {
         line = line.trim();
-        executeCommand(line);
+        if (compile) {
+          lines.add(line);
+        } else {
+          executeCommand(line);
+        }
       }
     } catch (IOException e) {
       imageView.displayMessage("Error reading the script file:");
       String error = e.getMessage();
       imageView.displayMessage(error);
+      return;
+    }
+    if (!compile) {
+      return;
+    }
+
+    List<ScriptCompiler.Step> steps = ScriptCompiler.compile(lines);
+    if (scriptThreads > 1) {
+      executeStepsInParallel(steps, releaseImages);
+    } else {
+      for (ScriptCompiler.Step step : steps) {
+        executeCommand(step.getCommand());
+        if (releaseImages) {
+          releaseImages(step);
+        }
+      }
+    }
+  }
+
+  /**
+   * A helper method to execute the steps of a compiled script on a pool of threads. A command
+   * that fails cancels the commands depending on it; once everything else has finished, the
+   * failure of the first failing command is rethrown.
+   *
+   * @param steps         the steps of the script.
+   * @param releaseImages true to drop every image after the last command using it.
+   */
+  private void executeStepsInParallel(List<ScriptCompiler.Step> steps, boolean releaseImages) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(steps.size());
+    List<CompletableFuture<Void>> releases = new ArrayList<>();
+    ExecutorService pool = Executors.newFixedThreadPool(scriptThreads);
+    try {
+      for (ScriptCompiler.Step step : steps) {
+        CompletableFuture<Void> future = CompletableFuture.allOf(futuresOf(step.getDependencies(),
+            futures)).thenRunAsync(() -> executeCommand(step.getCommand()), pool);
+        futures.add(future);
+        if (releaseImages && !step.getReleasedImages().isEmpty()) {
+          releases.add(CompletableFuture.allOf(futuresOf(step.getReleaseAfter(), futures))
+              .runAfterBoth(future, () -> releaseImages(step)));
+        }
+      }
+
+      RuntimeException failure = null;
+      for (CompletableFuture<Void> future : futures) {
+        try {
+          future.join();
+        } catch (CompletionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                : e;
+          }
+        }
+      }
+      for (CompletableFuture<Void> release : releases) {
+        release.exceptionally(e -> null).join();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      pool.shutdown();
     }
   }
 
+  /**
+   * A helper method to look up the futures of some steps.
+   *
+   * @param indices the indices of the steps.
+   * @param futures the futures of the steps created so far.
+   * @return the futures of the given steps.
+   */
+  private static CompletableFuture<?>[] futuresOf(int[] indices,
+      List<CompletableFuture<Void>> futures) {
+    CompletableFuture<?>[] selected = new CompletableFuture<?>[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      selected[i] = futures.get(indices[i]);
+    }
+    return selected;
+  }
+
+  /**
+   * A helper method to drop the images that no command after a step uses.
+   *
+   * @param step the step that has finished.
+   */
+  private void releaseImages(ScriptCompiler.Step step) {
+    for (String imageName : step.getReleasedImages()) {
+      imageMap.remove(imageName);
+    }
+  }
+
+  /**
+   * A helper method to reset the peak usage of the heap memory pools.
+   */
+  private static void resetPeakHeapUsage() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /**
+   * A helper method to read the peak usage of the heap since it was last reset, as the sum of the
+   * peaks of the heap memory pools.
+   *
+   * @return the peak usage in bytes.
+   */
+  private static long peakHeapUsage() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
   @Override
   public void handleLoadButton() {
     String filepath = imageView.handleLoadButton();
+    if (filepath == null) {
+      return;
+    }
     String input = "load " + filepath + " image1";
-    executeCommand(input);
-    generateHistogram("image1", imageMap);
+    edits.enqueue(progress -> {
+      executeCommand(input);
+      history.clear();
+      pendingEdits.clear();
+      imageMap.remove("prevImage");
+      cacheSplit(null, null, null);
+      displayed = "image1";
+      imageMap.remove("preview1");
+      Image preview = null;
+      int[][][] image = imageMap.get("image1");
+      if (previewWidth > 0 && previewHeight > 0 && image != null) {
+        int[][][] scaled = imageFilter.downscale(image, previewWidth, previewHeight);
+        if (scaled != image) {
+          displayed = "preview1";
+          imageMap.put("preview1", scaled);
+          preview = imageView.getProcessedImage("preview1", imageMap);
+        }
+      }
+      executeCommand("histogram " + displayed + " hist1");
+      Image photo = preview;
+      return () -> {
+        if (photo != null) {
+          imageView.setPhoto(photo);
+        }
+        imageView.generateHistogramView("hist1", imageMap);
+      };
+    });
   }
 
   @Override
   public void handleSaveButton() {
     String saveFilePath = imageView.handleSaveButton();
     String input = "save " + saveFilePath + " image1";
-    executeCommand(input);
+    edits.enqueue(progress -> {
+      applyPendingEdits(progress);
+      executeCommand(input);
+      return () -> {
+      };
+    });
   }
 
   /**
@@ -173,7 +467,7 @@ public class ImageControllerImpl implements ImageController, Features {
    * @return returns True is loaded, False if not.
    */
   private Boolean checkImageLoaded() {
-    if (imageMap.get("image1") == null) {
+    if (!imageMap.containsKey("image1")) {
       imageView.throwError("Please load the image first");
       return false;
     }
@@ -184,12 +478,7 @@ public class ImageControllerImpl implements ImageController, Features {
   public void handleImageProcessingButton(String command, Boolean supportSplit) {
     if ((checkImageLoaded())) {
       imageView.handleImageProcessingButtonView(command, supportSplit);
-      String input = command + " image1 image1";
-      imageMap.put("prevImage", imageMap.get("image1"));
-      executeCommand(input);
-      imageView.setPhoto(imageView.getProcessedImage("image1", imageMap));
-      generateHistogram("image1", imageMap);
-      imageView.displayMessage("Displaying " + command);
+      submitEdit(command, command, "Displaying " + command);
     }
   }
 
@@ -207,8 +496,8 @@ public class ImageControllerImpl implements ImageController, Features {
           imageView.throwError("Brightness level should be between 1 and 100.");
           return;
         }
-        abstractCompressBrighten(brighten, brightnessLevel);
-        imageView.displayMessage("Displaying Brighten (Level: " + brightnessLevel + ")");
+        submitEdit(brighten + " " + brightnessLevel, brighten,
+            "Displaying Brighten (Level: " + brightnessLevel + ")");
       } catch (NumberFormatException ex) {
         imageView.throwError(
             "Invalid brightness level. Please enter a number between 1 and 100.");
@@ -231,8 +520,8 @@ public class ImageControllerImpl implements ImageController, Features {
           imageView.throwError("Compression percentage must be between 0 and 100.");
           return;
         }
-        abstractCompressBrighten(compress, compressLevel);
-        imageView.displayMessage("Displaying Compress (Level: " + compressLevel + ")");
+        submitEdit(compress + " " + compressLevel, compress,
+            "Displaying Compress (Level: " + compressLevel + ")");
       } catch (NumberFormatException ex) {
         imageView.throwError(
             "Invalid Compression percentage. Please enter a number between 1 and 100.");
@@ -240,22 +529,6 @@ public class ImageControllerImpl implements ImageController, Features {
     }
   }
 
-  /**
-   * Private method for common code in handleBrightenButton and handleCompressButton Method.
-   *
-   * @param operationName either compress or brighten.
-   * @param level         the compress or brighten value.
-   */
-  private void abstractCompressBrighten(String operationName, int level) {
-    imageMap.put("prevImage", imageMap.get("image1"));
-    String input = operationName + " " + level + " image1 image1";
-    executeCommand(input);
-
-    String image1 = "image1";
-    imageView.setPhoto(imageView.getProcessedImage(image1, imageMap));
-    generateHistogram(image1, imageMap);
-  }
-
   @Override
   public void handleLevelsAdjustButton(String levelAdjust) {
     if ((checkImageLoaded())) {
@@ -279,13 +552,7 @@ public class ImageControllerImpl implements ImageController, Features {
               "Values b, m, and w must be in ascending order and within the range of 0 to 255.");
           return;
         }
-        imageMap.put("prevImage", imageMap.get("image1"));
-        String input = levelAdjust + " " + b + " " + m + " " + w + " image1 image1";
-        executeCommand(input);
-        String image1 = "image1";
-        imageView.setPhoto(imageView.getProcessedImage(image1, imageMap));
-        generateHistogram(image1, imageMap);
-        imageView.displayMessage(
+        submitEdit(levelAdjust + " " + b + " " + m + " " + w, levelAdjust,
             "Displaying Levels Adjust (b: " + b + ", m: " + m + ", w: " + w + ")");
       } catch (NumberFormatException ex) {
         imageView.throwError("Invalid input. Please enter valid integer values.");
@@ -293,21 +560,227 @@ public class ImageControllerImpl implements ImageController, Features {
     }
   }
 
+  /**
+   * Submits an edit of the displayed image, superseding the edits still running. The edit runs the
+   * operation, the histogram and the conversion of both images for display, reporting progress in
+   * between, and only then replaces the displayed image, keeping the image before the edit for the
+   * split preview. An edit superseded before that point leaves the image as it was.
+   *
+   * <p>Without a preview, the displayed image is image1 and the edit is recorded in the undo
+   * history. With one, the edit is applied to the preview and queued for the full image, which is
+   * brought up to date once the preview is shown. The update is queued rather than submitted, so
+   * that it does not supersede loads and other work queued meanwhile, whose results are then still
+   * shown.
+   *
+   * @param operation   the operation and its arguments, without the image names.
+   * @param description the name of the operation shown while it runs.
+   * @param done        the message shown once the edited image is displayed.
+   */
+  private void submitEdit(String operation, String description, String done) {
+    edits.submit(progress -> {
+      progress.accept("Processing " + description + ": applying...");
+      String target = displayed;
+      int[][][] before = imageMap.get(target);
+      int[][][] after;
+      Image photo;
+      Image histogram;
+      try {
+        executeCommand(operation + " " + target + " edit1");
+        after = imageMap.get("edit1");
+        if (after == null) {
+          after = before;
+          imageMap.put("edit1", after);
+        }
+        progress.accept("Processing " + description + ": histogram...");
+        executeCommand("histogram edit1 hist1");
+        progress.accept("Processing " + description + ": drawing...");
+        photo = imageView.getProcessedImage("edit1", imageMap);
+        histogram = imageView.getProcessedImage("hist1", imageMap);
+        progress.accept("Processing " + description + ": done.");
+      } finally {
+        imageMap.remove("edit1");
+      }
+
+      imageMap.put("prevImage", before);
+      imageMap.put(target, after);
+      cacheSplit(operation, before, after);
+      if (target.equals("image1")) {
+        history.record(operation + " image1 image1", before, after);
+        return () -> {
+          imageView.setPhoto(photo);
+          imageView.setHistogram(histogram);
+          imageView.displayMessage(done);
+        };
+      }
+      pendingEdits.add(operation);
+      return () -> {
+        imageView.setPhoto(photo);
+        imageView.setHistogram(histogram);
+        imageView.displayMessage(done);
+        edits.enqueue(fullImageProgress -> {
+          applyPendingEdits(fullImageProgress);
+          return () -> imageView.displayMessage(done);
+        });
+      };
+    });
+  }
+
+  /**
+   * Applies the edits made to the preview to the full image, in order, recording each of them in
+   * the undo history. It only runs as queued work, which progress reports never stop, so the full
+   * image is never left half edited.
+   *
+   * @param progress receives a report before each edit.
+   */
+  private void applyPendingEdits(Consumer<String> progress) {
+    while (!pendingEdits.isEmpty()) {
+      String operation = pendingEdits.get(0);
+      progress.accept("Updating full image: " + operation.split(" ")[0] + "...");
+      String input = operation + " image1 image1";
+      int[][][] before = imageMap.get("image1");
+      executeCommand(input);
+      history.record(input, before, imageMap.get("image1"));
+      pendingEdits.remove(0);
+    }
+  }
+
+  @Override
+  public void handleUndoButton() {
+    if ((checkImageLoaded())) {
+      edits.enqueue(progress -> {
+        applyPendingEdits(progress);
+        if (!history.canUndo()) {
+          return () -> imageView.displayMessage("Nothing to undo.");
+        }
+        imageMap.put("image1", history.undo(imageMap.get("image1")));
+        return displayEdited("Undo");
+      });
+    }
+  }
+
+  @Override
+  public void handleRedoButton() {
+    if ((checkImageLoaded())) {
+      edits.enqueue(progress -> {
+        applyPendingEdits(progress);
+        String input = history.redo();
+        if (input == null) {
+          return () -> imageView.displayMessage("Nothing to redo.");
+        }
+        executeCommand(input);
+        return displayEdited("Redo " + input.split(" ")[0]);
+      });
+    }
+  }
+
+  /**
+   * Draws image1, or its preview scaled down again, and its histogram for display, on the thread
+   * running the edit, and returns the update of the view showing them.
+   *
+   * @param message the message shown with them.
+   * @return the update of the view.
+   */
+  private Runnable displayEdited(String message) {
+    if (displayed.equals("preview1")) {
+      imageMap.put("preview1",
+          imageFilter.downscale(imageMap.get("image1"), previewWidth, previewHeight));
+    }
+    executeCommand("histogram " + displayed + " hist1");
+    Image photo = imageView.getProcessedImage(displayed, imageMap);
+    Image histogram = imageView.getProcessedImage("hist1", imageMap);
+    return () -> {
+      imageView.setPhoto(photo);
+      imageView.setHistogram(histogram);
+      imageView.displayMessage(message);
+    };
+  }
+
+  /**
+   * A request to show the split preview, of which only the latest is shown.
+   */
+  private static final class SplitRequest {
+
+    private final String operation;
+    private final int percentage;
+
+    /**
+     * Constructs a request.
+     *
+     * @param operation  the operation and its arguments, without the image names.
+     * @param percentage the percentage of the width showing the result of the operation.
+     */
+    private SplitRequest(String operation, int percentage) {
+      this.operation = operation;
+      this.percentage = percentage;
+    }
+  }
+
   @Override
   public void handleSplitButton(String currentCommand, int splitPercentageView) {
-    String command;
+    String operation = currentCommand;
     if ("levels-adjust".equals(currentCommand)) {
-      command =
-          currentCommand + " " + currBMWValues[0] + " " + currBMWValues[1] + " " + currBMWValues[2]
-              + " prevImage split1 split " + splitPercentageView;
+      operation += " " + currBMWValues[0] + " " + currBMWValues[1] + " " + currBMWValues[2];
+    }
+    // A request made while another is waiting replaces it, so only the latest split is drawn.
+    if (pendingSplit.getAndSet(new SplitRequest(operation, splitPercentageView)) == null) {
+      edits.enqueue(progress -> showSplit(pendingSplit.getAndSet(null), progress));
+    }
+  }
+
+  /**
+   * Places the result of an operation on prevImage left of the split and prevImage itself right of
+   * it, as split1, and draws it and its histogram for display. The result is cached, so the
+   * operation runs only the first time the preview is shown after an edit.
+   *
+   * @param request  the operation and the split.
+   * @param progress receives a report before the operation is applied.
+   * @return the update of the view.
+   */
+  private Runnable showSplit(SplitRequest request, Consumer<String> progress) {
+    int[][][] before = imageMap.get("prevImage");
+    if (before == null) {
+      imageMap.remove("split1");
     } else {
-      command = currentCommand + " prevImage split1 split " + splitPercentageView;
+      if (!request.operation.equals(splitOperation)) {
+        progress.accept("Processing split preview: applying...");
+        executeCommand(request.operation + " prevImage split1");
+        cacheSplit(request.operation, before, imageMap.get("split1"));
+      }
+      if (splitAfter == null) {
+        imageMap.remove("split1");
+        return () -> imageView.displayMessage("Split preview is not available.");
+      }
+      if (splitProcessed == null) {
+        splitOriginal = PackedImage.fromArray(splitBefore);
+        splitProcessed = PackedImage.fromArray(splitAfter);
+      }
+      int column = (int) (splitOriginal.getWidth() * (request.percentage / 100.0));
+      imageMap.putSource("split1", new SplitSource(splitProcessed, splitOriginal, column));
     }
-    executeCommand(command);
-    String splitImage = "split1";
-    imageView.setPhoto(imageView.getProcessedImage(splitImage, imageMap));
-    generateHistogram(splitImage, imageMap);
-    imageView.displayMessage("Split preview is ON, (Slide to 0 - OFF)");
+    executeCommand("histogram split1 hist1");
+    Image photo = imageView.getProcessedImage("split1", imageMap);
+    return () -> {
+      imageView.setPhoto(photo);
+      imageView.generateHistogramView("hist1", imageMap);
+      imageView.displayMessage("Split preview is ON, (Slide to 0 - OFF)");
+    };
+  }
+
+  /**
+   * Keeps the image before an operation and its result for the split preview, which then only
+   * places them side by side at the split instead of applying the operation again. Both images are
+   * packed the first time the preview is shown.
+   *
+   * @param operation the operation and its arguments, without the image names, or null to clear.
+   * @param before    the image before the operation.
+   * @param after     the result of the operation, or null if it failed.
+   */
+  private void cacheSplit(String operation, int[][][] before, int[][][] after) {
+    splitOperation = operation;
+    splitBefore = before;
+    splitAfter = after;
+    splitOriginal = null;
+    splitProcessed = null;
   }
 
   @Override
@@ -322,16 +795,4 @@ public class ImageControllerImpl implements ImageController, Features {
       handleBrightenButton(currentCommand);
     }
   }
-
-  /**
-   * Method to generate Histogram of the image displayed to the user.
-   *
-   * @param hist     Image Name to be used for histogram.
-   * @param imageMap Map where the image is stored.
-   */
-  private void generateHistogram(String hist, Map<String, int[][][]> imageMap) {
-    String histInput = "histogram " + hist + " hist1";
-    executeCommand(histInput);
-    imageView.generateHistogramView("hist1", imageMap);
-  }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package imagecontroller;
+
+import imagemodel.PixelSource;
+import java.util.Map;
+
+/**
+ * The images shared by the commands, by name. Besides the images held as arrays, a store can hold
+ * images as {@link PixelSource}s, which are decoded only when a command needs them as an array.
+ * Every image of the store, however it is held, is part of the map: it is listed by
+ * {@link #keySet}, counted by {@link #size} and returned by {@link #get}.
+ *
+ * <p>Commands accept any map of images; they read and store sources only when the map is a store.
+ */
+public interface ImageStore extends Map<String, int[][][]> {
+
+  /**
+   * Stores an image as a source under the given name, replacing any image with that name.
+   *
+   * @param name   the name of the image.
+   * @param source the source of the image.
+   */
+  void putSource(String name, PixelSource source);
+
+  /**
+   * Returns the source stored under the given name.
+   *
+   * @param name the name of the image.
+   * @return the source, or null if the image is not stored as a source.
+   */
+  PixelSource getSource(String name);
+
+  /**
+   * Checks whether point operations and geometric transforms of images held in memory are
+   * recorded as sources instead of being applied at once.
+   *
+   * @return true if commands are evaluated lazily.
+   */
+  boolean isLazy();
+}
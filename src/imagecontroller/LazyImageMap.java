@@ -0,0 +1,224 @@
+package imagecontroller;
+
+import imagemodel.PixelSource;
+import imagemodel.PointPipeline;
+import imagemodel.SourceView;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An {@link ImageStore} held in memory, whose sources are images such as memory-mapped files,
+ * which are decoded only when needed. Commands that understand sources read them through
+ * {@link #getSource}; every other command gets a freshly decoded array from {@link #get}, and the
+ * source stays in the map so that the decoded copy can be collected after the command.
+ *
+ * <p>When evaluation is lazy, point operations such as brighten, the component commands, sepia,
+ * levels-adjust, curves and color-matrix store a {@link PointPipeline}, and flips, rotations and
+ * crops store a {@link SourceView}, instead of computing their result; the geometric commands do
+ * so for sources even when evaluation is not lazy. The result is computed when a command needs the
+ * pixels as an array; if it is derived from an image held in memory it then replaces the source,
+ * so it is computed only once.
+ *
+ * <p>Sources are images of the map like any other: they are counted by {@link #size}, listed by
+ * {@link #keySet} and returned by iteration, which decodes a source only when the value of its
+ * entry is read. Iteration runs over the names stored when it started.
+ *
+ * <p>The methods used by the commands are synchronized, so that commands of a script can run in
+ * parallel. Sources are decoded outside the lock.
+ */
+public class LazyImageMap extends AbstractMap<String, int[][][]> implements ImageStore {
+
+  private final Map<String, int[][][]> arrays = new HashMap<>();
+  private final Map<String, PixelSource> sources = new HashMap<>();
+  private final Set<Entry<String, int[][][]>> entrySet = new EntrySet();
+  private boolean lazy;
+
+  /**
+   * The entries of the map, read through the methods of the map so that subclasses storing images
+   * elsewhere list them too.
+   */
+  private final class EntrySet extends AbstractSet<Entry<String, int[][][]>> {
+
+    @Override
+    public Iterator<Entry<String, int[][][]>> iterator() {
+      Iterator<String> names = names().iterator();
+      return new Iterator<Entry<String, int[][][]>>() {
+        private String current;
+
+        @Override
+        public boolean hasNext() {
+          return names.hasNext();
+        }
+
+        @Override
+        public Entry<String, int[][][]> next() {
+          current = names.next();
+          return new LazyEntry(current);
+        }
+
+        @Override
+        public void remove() {
+          if (current == null) {
+            throw new IllegalStateException();
+          }
+          LazyImageMap.this.remove(current);
+          current = null;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return LazyImageMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      LazyImageMap.this.clear();
+    }
+  }
+
+  /**
+   * An entry of the map whose value is read from the map, and so decoded, only when asked for.
+   */
+  private final class LazyEntry implements Entry<String, int[][][]> {
+
+    private final String name;
+
+    /**
+     * Constructs the entry of an image.
+     *
+     * @param name the name of the image.
+     */
+    private LazyEntry(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getKey() {
+      return name;
+    }
+
+    @Override
+    public int[][][] getValue() {
+      return get(name);
+    }
+
+    @Override
+    public int[][][] setValue(int[][][] value) {
+      return put(name, value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) other;
+      return name.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode() ^ Objects.hashCode(getValue());
+    }
+  }
+
+  /**
+   * Sets whether point operations and geometric transforms of images held in memory are recorded
+   * as sources instead of being applied at once.
+   *
+   * @param lazy true to evaluate commands lazily.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  @Override
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  @Override
+  public synchronized void putSource(String name, PixelSource source) {
+    arrays.remove(name);
+    sources.put(name, source);
+  }
+
+  @Override
+  public synchronized PixelSource getSource(String name) {
+    return sources.get(name);
+  }
+
+  /**
+   * Returns the names of all images in the map, at the time of the call. Iteration of the map runs
+   * over these names.
+   *
+   * @return a copy of the names.
+   */
+  protected synchronized List<String> names() {
+    List<String> names = new ArrayList<>(arrays.keySet());
+    names.addAll(sources.keySet());
+    return names;
+  }
+
+  @Override
+  public int[][][] get(Object key) {
+    PixelSource source;
+    synchronized (this) {
+      source = sources.get(key);
+      if (source == null) {
+        return arrays.get(key);
+      }
+    }
+    int[][][] colorArray = source.toArray();
+    if (source.isInMemory()) {
+      synchronized (this) {
+        if (sources.get(key) == source) {
+          put((String) key, colorArray);
+        }
+      }
+    }
+    return colorArray;
+  }
+
+  @Override
+  public synchronized int[][][] put(String key, int[][][] value) {
+    sources.remove(key);
+    return arrays.put(key, value);
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    return sources.containsKey(key) || arrays.containsKey(key);
+  }
+
+  @Override
+  public synchronized int[][][] remove(Object key) {
+    sources.remove(key);
+    return arrays.remove(key);
+  }
+
+  @Override
+  public synchronized void clear() {
+    sources.clear();
+    arrays.clear();
+  }
+
+  @Override
+  public int size() {
+    return names().size();
+  }
+
+  @Override
+  public Set<Entry<String, int[][][]>> entrySet() {
+    return entrySet;
+  }
+}
@@ -2,8 +2,14 @@ package imagecontroller;
 
 import imagemodel.ExtendedImageModel;
 import imagemodel.ExtendedImageModelImpl;
+import imageview.HeadlessImageView;
+import imageview.ImageView;
 import imageview.ImageViewImpl;
+import java.awt.Dimension;
+import java.awt.Toolkit;
+import java.util.Arrays;
 import java.util.Scanner;
+import javax.swing.SwingUtilities;
 
 /**
  * This class represents the main class, from where the program execution begins.
@@ -11,44 +17,104 @@ import java.util.Scanner;
 public class MainController {
 
   /**
-   * The main method of the controller, the execution begins from here.
+   * The main method of the controller, the execution begins from here. The script and text modes
+   * run without a window, so they never initialize Swing and also run on machines without a
+   * display.
    *
    * @param args arguments of type string[].
    */
   public static void main(String[] args) {
+    if (args.length > 0 && (args[0].equals("-file") || args[0].equals("-text"))) {
+      System.setProperty("java.awt.headless", "true");
+      ImageControllerImpl controller = createController(new HeadlessImageView(), args);
+      if (args[0].equals("-file")) {
+        runScript(controller, args);
+      } else {
+        runText(controller);
+      }
+    } else {
+      // Default case: GUI mode
+      ImageViewImpl view = new ImageViewImpl();
+      ImageControllerImpl controller = createController(view, args);
+      controller.setEditExecutor(
+          EditExecutor.inBackground(SwingUtilities::invokeLater, view::displayMessage));
+      if (!Arrays.asList(args).contains("-full")) {
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        controller.setPreviewSize(screen.width, screen.height);
+      }
+      view.setVisible(true);
+    }
+  }
 
+  /**
+   * Creates the controller and applies the options shared by every mode.
+   *
+   * @param view the view of the mode.
+   * @param args arguments of type string[].
+   * @return the controller.
+   */
+  private static ImageControllerImpl createController(ImageView view, String[] args) {
     ExtendedImageModel model = new ExtendedImageModelImpl();
-    ImageViewImpl view = new ImageViewImpl();
     ImageControllerImpl controller = new ImageControllerImpl(model, view);
-
-    if (args.length > 0 && args[0].equals("-file")) {
-      if (args.length > 1) {
-        view.setVisible(false);
-        String scriptFilePath = args[1];
-        controller.executeScriptFromFile(scriptFilePath);
-        System.exit(0);
-      } else {
-        System.out.println("Missing script file path. Usage: -file name-of-script.txt");
+    controller.setLazyEvaluation(Arrays.asList(args).contains("-lazy"));
+    if (Arrays.asList(args).contains("-parallel")) {
+      controller.setScriptThreads(Runtime.getRuntime().availableProcessors());
+    }
+    int memoryOption = Arrays.asList(args).indexOf("-memory");
+    if (memoryOption >= 0) {
+      try {
+        controller.setMemoryBudget(Long.parseLong(args[memoryOption + 1]) << 20);
+      } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+        System.out.println("Invalid memory budget. Usage: -memory megabytes");
         System.exit(0);
       }
-    } else if (args.length > 0 && args[0].equals("-text")) {
-      // Interactive mode
-      view.setVisible(false);
-      Scanner scanner = new Scanner(System.in);
-      while (true) {
-        System.out.println("Enter a command or 'exit' to quit");
-        String input = scanner.nextLine().trim();
-        if (input.equalsIgnoreCase("exit")) {
-          System.exit(0);
-          break;
-        }
-        controller.executeCommand(input);
+    }
+    int historyOption = Arrays.asList(args).indexOf("-history");
+    if (historyOption >= 0) {
+      try {
+        controller.setHistoryBudget(Long.parseLong(args[historyOption + 1]) << 20);
+      } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+        System.out.println("Invalid history budget. Usage: -history megabytes");
+        System.exit(0);
       }
-      scanner.close();
+    }
+    return controller;
+  }
+
+  /**
+   * Runs the script file given after -file.
+   *
+   * @param controller the controller.
+   * @param args       arguments of type string[].
+   */
+  private static void runScript(ImageControllerImpl controller, String[] args) {
+    if (args.length > 1) {
+      String scriptFilePath = args[1];
+      controller.executeBatchScript(scriptFilePath);
+      System.exit(0);
     } else {
-      // Default case: GUI mode
-      view.setVisible(true);
+      System.out.println("Missing script file path. Usage: -file name-of-script.txt");
+      System.exit(0);
     }
   }
-}
 
+  /**
+   * Runs the commands typed on the standard input until exit is entered.
+   *
+   * @param controller the controller.
+   */
+  private static void runText(ImageControllerImpl controller) {
+    // Interactive mode
+    Scanner scanner = new Scanner(System.in);
+    while (true) {
+      System.out.println("Enter a command or 'exit' to quit");
+      String input = scanner.nextLine().trim();
+      if (input.equalsIgnoreCase("exit")) {
+        System.exit(0);
+        break;
+      }
+      controller.executeCommand(input);
+    }
+    scanner.close();
+  }
+}
@@ -0,0 +1,292 @@
+package imagecontroller;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiles the lines of a script into a dependency graph, so that commands which do not depend on
+ * each other can run at the same time.
+ *
+ * <p>Every command reads and writes named images and files. A command depends on the last command
+ * writing anything it reads or writes, and on every command that read something it overwrites
+ * since it was last written. In addition:
+ * <ul>
+ *   <li>saves, and blank lines, which only print an error, run in script order,</li>
+ *   <li>{@code run}, unknown and malformed commands are barriers: they wait for every command
+ *   before them, and every command after them waits for them.</li>
+ * </ul>
+ * Comment lines are dropped.
+ *
+ * <p>The compiler also finds the last use of every image, so that a batch run can drop images from
+ * memory as soon as no later command needs them. A barrier counts as a use of every image named
+ * before it, since the script it runs may refer to any of them.
+ */
+public final class ScriptCompiler {
+
+  private static final String IMAGE = "image:";
+
+  private ScriptCompiler() {
+  }
+
+  /**
+   * A command of a compiled script together with the commands it has to wait for.
+   */
+  public static final class Step {
+
+    private final String command;
+    private final int[] dependencies;
+    private final List<String> releasedImages = new ArrayList<>();
+    private final Set<Integer> releaseAfter = new TreeSet<>();
+
+    /**
+     * Constructs a step.
+     *
+     * @param command      the command line.
+     * @param dependencies the indices of the steps that must finish first.
+     */
+    private Step(String command, int[] dependencies) {
+      this.command = command;
+      this.dependencies = dependencies;
+    }
+
+    /**
+     * Returns the command line of this step.
+     *
+     * @return the command line.
+     */
+    public String getCommand() {
+      return command;
+    }
+
+    /**
+     * Returns the indices of the steps that must finish before this step starts, in ascending
+     * order.
+     *
+     * @return the dependencies.
+     */
+    public int[] getDependencies() {
+      return dependencies.clone();
+    }
+
+    /**
+     * Returns the names of the images that no command after this step uses.
+     *
+     * @return the names of the images that can be dropped after this step.
+     */
+    public List<String> getReleasedImages() {
+      return Collections.unmodifiableList(releasedImages);
+    }
+
+    /**
+     * Returns the indices of the other steps that also use the released images and must finish
+     * before they are dropped. They all come before this step, but may still be running when it
+     * finishes if the script runs in parallel.
+     *
+     * @return the steps to wait for before dropping the released images.
+     */
+    public int[] getReleaseAfter() {
+      return releaseAfter.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * Compiles the lines of a script.
+   *
+   * @param lines the lines of the script.
+   * @return the steps of the script, in script order.
+   */
+  public static List<Step> compile(List<String> lines) {
+    List<Step> steps = new ArrayList<>();
+    Map<String, Integer> lastWriter = new HashMap<>();
+    Map<String, List<Integer>> readersSinceWrite = new HashMap<>();
+    List<Integer> sinceBarrier = new ArrayList<>();
+    Map<String, Set<Integer>> lastUsers = new TreeMap<>();
+    int lastBarrier = -1;
+    int lastOrdered = -1;
+
+    for (String rawLine : lines) {
+      String line = rawLine.trim();
+      String[] tokens = line.split(" ");
+      if (tokens[0].startsWith("#")) {
+        continue;
+      }
+      int index = steps.size();
+      Set<Integer> dependencies = new TreeSet<>();
+      if (lastBarrier >= 0) {
+        dependencies.add(lastBarrier);
+      }
+
+      Set<String> reads = new LinkedHashSet<>();
+      Set<String> writes = new LinkedHashSet<>();
+      boolean ordered = tokens.length < 2 || tokens[0].equals("save");
+      boolean barrier = tokens.length >= 2 && !collectResources(tokens, reads, writes);
+
+      if (barrier) {
+        for (Set<Integer> users : lastUsers.values()) {
+          users.clear();
+          users.add(index);
+        }
+        dependencies.addAll(sinceBarrier);
+        lastWriter.clear();
+        readersSinceWrite.clear();
+        sinceBarrier.clear();
+        lastBarrier = index;
+        lastOrdered = -1;
+      } else {
+        if (ordered && lastOrdered >= 0) {
+          dependencies.add(lastOrdered);
+        }
+        for (String resource : reads) {
+          addIfPresent(dependencies, lastWriter.get(resource));
+        }
+        for (String resource : writes) {
+          addIfPresent(dependencies, lastWriter.get(resource));
+          dependencies.addAll(readersSinceWrite.getOrDefault(resource, Collections.emptyList()));
+        }
+        for (String resource : reads) {
+          readersSinceWrite.computeIfAbsent(resource, r -> new ArrayList<>()).add(index);
+          lastUsers.computeIfAbsent(resource, r -> new TreeSet<>()).add(index);
+        }
+        for (String resource : writes) {
+          lastWriter.put(resource, index);
+          readersSinceWrite.remove(resource);
+          Set<Integer> users = lastUsers.computeIfAbsent(resource, r -> new TreeSet<>());
+          users.clear();
+          users.add(index);
+        }
+        if (ordered) {
+          lastOrdered = index;
+        }
+        sinceBarrier.add(index);
+      }
+      dependencies.remove(index);
+      steps.add(new Step(line, dependencies.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    for (Map.Entry<String, Set<Integer>> entry : lastUsers.entrySet()) {
+      if (entry.getKey().startsWith(IMAGE) && !entry.getValue().isEmpty()) {
+        TreeSet<Integer> users = new TreeSet<>(entry.getValue());
+        Step last = steps.get(users.pollLast());
+        last.releasedImages.add(entry.getKey().substring(IMAGE.length()));
+        last.releaseAfter.addAll(users);
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * Collects the images and files a command reads and writes.
+   *
+   * @param tokens the tokens of the command.
+   * @param reads  the set receiving what the command reads.
+   * @param writes the set receiving what the command writes.
+   * @return false if the command is unknown or malformed, so its effects are not known.
+   */
+  private static boolean collectResources(String[] tokens, Set<String> reads,
+      Set<String> writes) {
+    switch (tokens[0]) {
+      case "load":
+        return (tokens.length == 3 || tokens.length == 4)
+            && addFile(reads, tokens[1]) && addImage(writes, tokens[2]);
+      case "save":
+        return (tokens.length == 3 || tokens.length == 4)
+            && addImage(reads, tokens[2]) && addFile(writes, tokens[1]);
+      case "red-component":
+      case "green-component":
+      case "blue-component":
+      case "value-component":
+      case "intensity-component":
+      case "luma-component":
+      case "greyscale":
+      case "horizontal-flip":
+      case "vertical-flip":
+      case "blur":
+      case "sharpen":
+      case "sepia":
+      case "color-correct":
+        return (tokens.length == 3 || tokens.length == 5)
+            && addImage(reads, tokens[1]) && addImage(writes, tokens[2]);
+      case "histogram":
+        return tokens.length >= 3 && tokens.length <= 6
+            && addImage(reads, tokens[1]) && addImage(writes, tokens[2]);
+      case "brighten":
+      case "compress":
+      case "rotate":
+        return tokens.length == 4 && addImage(reads, tokens[2]) && addImage(writes, tokens[3]);
+      case "levels-adjust":
+        return (tokens.length == 6 || tokens.length == 8)
+            && addImage(reads, tokens[4]) && addImage(writes, tokens[5]);
+      case "curves":
+      case "color-matrix":
+        return (tokens.length == 4 || tokens.length == 6)
+            && addImage(reads, tokens[2]) && addImage(writes, tokens[3]);
+      case "crop":
+        return tokens.length == 7 && addImage(reads, tokens[5]) && addImage(writes, tokens[6]);
+      case "convolve":
+        return (tokens.length == 5 || tokens.length == 7) && addFile(reads, tokens[1])
+            && addImage(reads, tokens[3]) && addImage(writes, tokens[4]);
+      case "rgb-split":
+        return tokens.length == 5 && addImage(reads, tokens[1])
+            && addImage(writes, tokens[2]) && addImage(writes, tokens[3])
+            && addImage(writes, tokens[4]);
+      case "rgb-combine":
+        return tokens.length == 5 && addImage(reads, tokens[2])
+            && addImage(reads, tokens[3]) && addImage(reads, tokens[4])
+            && addImage(writes, tokens[1]);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Adds the resource key of an image to a set.
+   *
+   * @param resources the set.
+   * @param imageName the name of the image.
+   * @return true, so that calls can be chained.
+   */
+  private static boolean addImage(Set<String> resources, String imageName) {
+    resources.add(IMAGE + imageName);
+    return true;
+  }
+
+  /**
+   * Adds the resource key of a file to a set. Paths are normalized so that different spellings
+   * of the same file are recognized.
+   *
+   * @param resources the set.
+   * @param path      the path of the file.
+   * @return true, so that calls can be chained.
+   */
+  private static boolean addFile(Set<String> resources, String path) {
+    String key;
+    try {
+      key = Paths.get(path).toAbsolutePath().normalize().toString();
+    } catch (InvalidPathException e) {
+      key = path;
+    }
+    resources.add("file:" + key);
+    return true;
+  }
+
+  /**
+   * Adds a step index to a set of dependencies if it is present.
+   *
+   * @param dependencies the set of dependencies.
+   * @param step         the step index, or null.
+   */
+  private static void addIfPresent(Set<Integer> dependencies, Integer step) {
+    if (step != null) {
+      dependencies.add(step);
+    }
+  }
+}
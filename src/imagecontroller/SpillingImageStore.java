@@ -0,0 +1,463 @@
+package imagecontroller;
+
+import imagemodel.PixelSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An image store with a memory budget. When the images held in memory exceed the budget, the least
+ * recently used ones are written to a spill file and dropped from memory; they are read back
+ * transparently the next time they are accessed.
+ *
+ * <p>The memory used by an image is estimated from its size, at {@value #BYTES_PER_PIXEL} bytes
+ * per pixel for the {@code int[height][width][3]} form. Images stored as sources, which are
+ * decoded on demand anyway, are not counted. The image most recently stored or accessed always
+ * stays in memory, even if it alone exceeds the budget. Like {@link #get}, {@link #put} and
+ * {@link #remove} only return images that are in memory, without reading the spill file. Spilled
+ * images are still part of the map: they are listed by {@link #keySet}, counted by {@link #size}
+ * and read back when iteration reads their value.
+ *
+ * <p>Reading an image back from the spill file happens outside the lock of the store, so other
+ * commands keep using the store meanwhile. Writing an evicted image still holds the lock.
+ *
+ * <p>Images are never modified once stored, so an image that was read back from the spill file
+ * keeps its copy there and is simply dropped again if it is evicted a second time. The space of an
+ * image that is replaced or removed is reused by the next images spilled, and the file shrinks when
+ * its end is freed, so it never holds much more than the images currently spilled. The spill file
+ * is a temporary file that is deleted when the program exits; samples take one byte each, or four
+ * if an image holds values outside 0-255.
+ */
+public class SpillingImageStore extends LazyImageMap {
+
+  static final long BYTES_PER_PIXEL = 36;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final LinkedHashMap<String, Long> resident = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Spill> spilled = new HashMap<>();
+  private final TreeMap<Long, Long> freeRanges = new TreeMap<>();
+  private long budget;
+  private long residentBytes;
+  private FileChannel spillFile;
+  private long spillEnd;
+
+  /**
+   * The location of a spilled image in the spill file.
+   */
+  private static final class Spill {
+
+    private final long offset;
+    private final int width;
+    private final int height;
+    private final int bytesPerSample;
+
+    /**
+     * Constructs a spill record.
+     *
+     * @param offset         the position of the first sample in the spill file.
+     * @param width          the width of the image.
+     * @param height         the height of the image.
+     * @param bytesPerSample 1 if every sample fits in a byte, 4 otherwise.
+     */
+    private Spill(long offset, int width, int height, int bytesPerSample) {
+      this.offset = offset;
+      this.width = width;
+      this.height = height;
+      this.bytesPerSample = bytesPerSample;
+    }
+
+    /**
+     * Returns the number of bytes the image takes in the spill file.
+     *
+     * @return the length of the image in bytes.
+     */
+    private long length() {
+      return (long) width * height * 3 * bytesPerSample;
+    }
+  }
+
+  /**
+   * Constructs a store whose budget is half of the maximum heap size.
+   */
+  public SpillingImageStore() {
+    this(Runtime.getRuntime().maxMemory() / 2);
+  }
+
+  /**
+   * Constructs a store with the given memory budget.
+   *
+   * @param budget the number of bytes the images held in memory may use.
+   */
+  public SpillingImageStore(long budget) {
+    setBudget(budget);
+  }
+
+  /**
+   * Sets the memory budget, evicting images at once if they exceed it.
+   *
+   * @param budget the number of bytes the images held in memory may use.
+   * @throws IllegalArgumentException if the budget is not positive.
+   */
+  public synchronized void setBudget(long budget) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("The memory budget must be positive.");
+    }
+    this.budget = budget;
+    evict();
+  }
+
+  /**
+   * Checks whether an image is held in memory rather than only in the spill file.
+   *
+   * @param name the name of the image.
+   * @return true if the image is stored and in memory.
+   */
+  public synchronized boolean isInMemory(String name) {
+    return resident.containsKey(name) || getSource(name) != null;
+  }
+
+  /**
+   * Returns the size of the spill file, including the space freed by images that were replaced or
+   * removed and not yet reused.
+   *
+   * @return the size of the spill file in bytes.
+   */
+  public synchronized long getSpillSize() {
+    return spillEnd;
+  }
+
+  @Override
+  public int[][][] get(Object key) {
+    if (!(key instanceof String)) {
+      return super.get(key);
+    }
+    String name = (String) key;
+    while (true) {
+      Spill spill;
+      synchronized (this) {
+        // Looking the image up in resident also marks it as the most recently used.
+        spill = resident.get(name) != null ? null : spilled.get(name);
+      }
+      if (spill == null) {
+        int[][][] colorArray = super.get(key);
+        if (colorArray != null || !containsSpill(name)) {
+          return colorArray;
+        }
+        // The image was evicted meanwhile.
+        continue;
+      }
+      int[][][] colorArray = null;
+      IOException error = null;
+      try {
+        colorArray = readSpill(spill);
+      } catch (IOException e) {
+        error = e;
+      }
+      synchronized (this) {
+        if (resident.containsKey(name)) {
+          // Another command read the image back meanwhile.
+          return super.get(key);
+        }
+        if (spilled.get(name) != spill) {
+          // The image was replaced or removed meanwhile, so what was read may be stale.
+          continue;
+        }
+        if (error != null) {
+          System.out.println("Error: could not read the image " + name + " back from disk: "
+              + error.getMessage());
+          return null;
+        }
+        super.put(name, colorArray);
+        admit(name, colorArray);
+        return colorArray;
+      }
+    }
+  }
+
+  /**
+   * Checks whether an image has a copy in the spill file.
+   *
+   * @param name the name of the image.
+   * @return true if the image was spilled.
+   */
+  private synchronized boolean containsSpill(String name) {
+    return spilled.containsKey(name);
+  }
+
+  @Override
+  protected synchronized List<String> names() {
+    List<String> names = super.names();
+    for (String name : spilled.keySet()) {
+      if (!resident.containsKey(name)) {
+        names.add(name);
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public synchronized int[][][] put(String key, int[][][] value) {
+    discard(key);
+    int[][][] previous = super.put(key, value);
+    if (value != null && value.length > 0 && value[0].length > 0) {
+      admit(key, value);
+    }
+    return previous;
+  }
+
+  @Override
+  public synchronized void putSource(String name, PixelSource source) {
+    discard(name);
+    super.putSource(name, source);
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    return spilled.containsKey(key) || super.containsKey(key);
+  }
+
+  @Override
+  public synchronized int[][][] remove(Object key) {
+    if (key instanceof String) {
+      discard((String) key);
+    }
+    return super.remove(key);
+  }
+
+  @Override
+  public synchronized void clear() {
+    for (String name : new ArrayList<>(spilled.keySet())) {
+      discard(name);
+    }
+    resident.clear();
+    residentBytes = 0;
+    super.clear();
+  }
+
+  /**
+   * Records an image as held in memory and evicts other images if the budget is exceeded.
+   *
+   * @param name       the name of the image.
+   * @param colorArray the image.
+   */
+  private void admit(String name, int[][][] colorArray) {
+    long size = BYTES_PER_PIXEL * colorArray.length * colorArray[0].length;
+    resident.put(name, size);
+    residentBytes += size;
+    evict();
+  }
+
+  /**
+   * Evicts the least recently used images until the budget is met, keeping at least one.
+   */
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> eldest = resident.entrySet().iterator();
+    while (residentBytes > budget && resident.size() > 1) {
+      Map.Entry<String, Long> entry = eldest.next();
+      String name = entry.getKey();
+      if (!spilled.containsKey(name)) {
+        try {
+          spilled.put(name, writeSpill(super.get(name)));
+        } catch (IOException e) {
+          System.out.println("Error: could not write the image " + name + " to disk: "
+              + e.getMessage());
+          return;
+        }
+      }
+      residentBytes -= entry.getValue();
+      eldest.remove();
+      super.remove(name);
+    }
+  }
+
+  /**
+   * Forgets everything known about an image, in memory and in the spill file.
+   *
+   * @param name the name of the image.
+   */
+  private void discard(String name) {
+    Long size = resident.remove(name);
+    if (size != null) {
+      residentBytes -= size;
+    }
+    Spill spill = spilled.remove(name);
+    if (spill != null) {
+      release(spill.offset, spill.length());
+    }
+  }
+
+  /**
+   * Finds room for an image in the spill file, in the first freed range large enough or else at
+   * the end of the file.
+   *
+   * @param length the number of bytes needed.
+   * @return the position of the room in the file.
+   */
+  private long allocate(long length) {
+    for (Map.Entry<Long, Long> range : freeRanges.entrySet()) {
+      long offset = range.getKey();
+      long free = range.getValue();
+      if (free >= length) {
+        freeRanges.remove(offset);
+        if (free > length) {
+          freeRanges.put(offset + length, free - length);
+        }
+        return offset;
+      }
+    }
+    long offset = spillEnd;
+    spillEnd += length;
+    return offset;
+  }
+
+  /**
+   * Marks a range of the spill file as free, merging it with the free ranges next to it and
+   * shrinking the file if the range reaches its end.
+   *
+   * @param offset the position of the range.
+   * @param length the length of the range.
+   */
+  private void release(long offset, long length) {
+    Map.Entry<Long, Long> before = freeRanges.floorEntry(offset);
+    if (before != null && before.getKey() + before.getValue() == offset) {
+      freeRanges.remove(before.getKey());
+      offset = before.getKey();
+      length += before.getValue();
+    }
+    Long after = freeRanges.remove(offset + length);
+    if (after != null) {
+      length += after;
+    }
+    if (offset + length == spillEnd) {
+      spillEnd = offset;
+      try {
+        spillFile.truncate(spillEnd);
+      } catch (IOException e) {
+        // The space is reused from the new end of the file either way.
+      }
+    } else {
+      freeRanges.put(offset, length);
+    }
+  }
+
+  /**
+   * Appends an image to the spill file.
+   *
+   * @param colorArray the image.
+   * @return the record locating the image in the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private Spill writeSpill(int[][][] colorArray) throws IOException {
+    if (spillFile == null) {
+      Path path = Files.createTempFile("pixelate", ".spill");
+      path.toFile().deleteOnExit();
+      spillFile = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE);
+    }
+    int height = colorArray.length;
+    int width = colorArray[0].length;
+    int bytesPerSample = fitsInBytes(colorArray) ? 1 : 4;
+    long length = (long) width * height * 3 * bytesPerSample;
+    Spill spill = new Spill(allocate(length), width, height, bytesPerSample);
+
+    ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, width * 3 * bytesPerSample));
+    long position = spill.offset;
+    try {
+      for (int[][] row : colorArray) {
+        for (int[] pixel : row) {
+          for (int c = 0; c < 3; c++) {
+            if (bytesPerSample == 1) {
+              buffer.put((byte) pixel[c]);
+            } else {
+              buffer.putInt(pixel[c]);
+            }
+          }
+        }
+        if (buffer.remaining() < width * 3 * bytesPerSample) {
+          position += flush(buffer, position);
+        }
+      }
+      flush(buffer, position);
+    } catch (IOException e) {
+      release(spill.offset, length);
+      throw e;
+    }
+    return spill;
+  }
+
+  /**
+   * Writes the contents of a buffer to the spill file and clears it.
+   *
+   * @param buffer   the buffer.
+   * @param position the position in the file to write to.
+   * @return the number of bytes written.
+   * @throws IOException if the file cannot be written.
+   */
+  private int flush(ByteBuffer buffer, long position) throws IOException {
+    buffer.flip();
+    int count = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      spillFile.write(buffer, position + count - buffer.remaining());
+    }
+    buffer.clear();
+    return count;
+  }
+
+  /**
+   * Reads an image back from the spill file.
+   *
+   * @param spill the record locating the image in the file.
+   * @return the image.
+   * @throws IOException if the file cannot be read.
+   */
+  private int[][][] readSpill(Spill spill) throws IOException {
+    int rowBytes = spill.width * 3 * spill.bytesPerSample;
+    ByteBuffer buffer = ByteBuffer.allocate(rowBytes);
+    int[][][] colorArray = new int[spill.height][spill.width][3];
+    long position = spill.offset;
+
+    for (int[][] row : colorArray) {
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        if (spillFile.read(buffer, position + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of the spill file.");
+        }
+      }
+      buffer.flip();
+      for (int[] pixel : row) {
+        for (int c = 0; c < 3; c++) {
+          pixel[c] = spill.bytesPerSample == 1 ? buffer.get() & 0xFF : buffer.getInt();
+        }
+      }
+      position += rowBytes;
+    }
+    return colorArray;
+  }
+
+  /**
+   * Checks whether every sample of an image fits in an unsigned byte.
+   *
+   * @param colorArray the image.
+   * @return true if all samples lie in 0-255.
+   */
+  private static boolean fitsInBytes(int[][][] colorArray) {
+    for (int[][] row : colorArray) {
+      for (int[] pixel : row) {
+        if ((pixel[0] | pixel[1] | pixel[2]) >>> 8 != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
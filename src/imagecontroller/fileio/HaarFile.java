@@ -0,0 +1,220 @@
+package imagecontroller.fileio;
+
+import imagemodel.HaarCompressor;
+import imagemodel.RowBandExecutor;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes the {@code .haar} compressed image format, which stores the Haar wavelet
+ * coefficients of an image instead of its pixels. Coefficients are rounded to a multiple of the
+ * quantization step, and only the non-zero ones are written, each preceded by the number of zeros
+ * before it. The default step of one keeps every pixel within rounding of the transformed image;
+ * larger steps give smaller files at the cost of a coarser image.
+ *
+ * <p>The file starts with the magic bytes {@code HAAR} and a version byte, followed by the width
+ * and height as varints, the base-2 logarithms of the padded width and height as bytes, and the
+ * quantization step as a double. Each of the three channels then holds the number of non-zero
+ * coefficients as a varint, followed by a varint zero run and a zig-zag varint value for every
+ * non-zero coefficient in row order.
+ */
+public class HaarFile {
+
+  private static final byte[] MAGIC = {'H', 'A', 'A', 'R'};
+  private static final int VERSION = 1;
+
+  /**
+   * The quantization step used when writing unless another one is given.
+   */
+  public static final double DEFAULT_QUANTIZATION_STEP = 1.0;
+
+  private final HaarCompressor compressor;
+
+  /**
+   * Constructs a reader and writer that transforms images on the shared executor.
+   */
+  public HaarFile() {
+    this.compressor = new HaarCompressor(HaarCompressor.Padding.RECTANGULAR,
+        RowBandExecutor.getDefault());
+  }
+
+  /**
+   * Compresses an image and writes its coefficients to a file.
+   *
+   * @param image      A 3D integer array representing the color image.
+   * @param percentage the compression percentage, between 0 and 100.
+   * @param path       the path of the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(int[][][] image, int percentage, String path) throws IOException {
+    write(image, percentage, DEFAULT_QUANTIZATION_STEP, path);
+  }
+
+  /**
+   * Compresses an image and writes its coefficients to a file, rounded to multiples of the given
+   * quantization step.
+   *
+   * @param image      A 3D integer array representing the color image.
+   * @param percentage the compression percentage, between 0 and 100.
+   * @param step       the quantization step, a positive number.
+   * @param path       the path of the file to write.
+   * @throws IOException              if the file cannot be written.
+   * @throws IllegalArgumentException if the step is not a positive number, or so small that a
+   *                                  coefficient divided by it does not fit in an int.
+   */
+  public void write(int[][][] image, int percentage, double step, String path)
+      throws IOException {
+    if (!(step > 0) || Double.isInfinite(step)) {
+      throw new IllegalArgumentException("Quantization step must be a positive number.");
+    }
+    HaarCompressor.Coefficients coefficients = compressor.transform(image);
+    if (percentage > 0) {
+      HaarCompressor.discardBelow(coefficients,
+          compressor.threshold(coefficients, percentage));
+    }
+    double largest = 0;
+    for (double[] channel : coefficients.getChannels()) {
+      for (double coefficient : channel) {
+        largest = Math.max(largest, Math.abs(coefficient));
+      }
+    }
+    if (Math.round(largest / step) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Quantization step is too small for this image.");
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(path)))) {
+      out.write(MAGIC);
+      out.writeByte(VERSION);
+      writeVarint(out, coefficients.getWidth());
+      writeVarint(out, coefficients.getHeight());
+      out.writeByte(Integer.numberOfTrailingZeros(coefficients.getPaddedWidth()));
+      out.writeByte(Integer.numberOfTrailingZeros(coefficients.getPaddedHeight()));
+      out.writeDouble(step);
+
+      for (double[] channel : coefficients.getChannels()) {
+        int[] quantized = new int[channel.length];
+        int nonZero = 0;
+        for (int i = 0; i < channel.length; i++) {
+          quantized[i] = (int) Math.round(channel[i] / step);
+          if (quantized[i] != 0) {
+            nonZero++;
+          }
+        }
+        writeVarint(out, nonZero);
+        int run = 0;
+        for (int value : quantized) {
+          if (value == 0) {
+            run++;
+          } else {
+            writeVarint(out, run);
+            writeVarint(out, (value << 1) ^ (value >> 31));
+            run = 0;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a file and reconstructs the image from its coefficients.
+   *
+   * @param path the path of the file to read.
+   * @return A 3D integer array representing the color image.
+   * @throws IOException if the file cannot be read or is not a valid {@code .haar} file.
+   */
+  public int[][][] read(String path) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(path)))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (magic[i] != MAGIC[i]) {
+          throw new IOException("Not a haar file: " + path);
+        }
+      }
+      if (in.readUnsignedByte() != VERSION) {
+        throw new IOException("Unsupported haar file version: " + path);
+      }
+      int width = readVarint(in);
+      int height = readVarint(in);
+      int levelsX = in.readUnsignedByte();
+      int levelsY = in.readUnsignedByte();
+      double step = in.readDouble();
+      if (width <= 0 || height <= 0 || levelsX > 30 || levelsY > 30
+          || levelsX + levelsY > 30 || !(step > 0) || Double.isInfinite(step)) {
+        throw new IOException("Invalid haar file header: " + path);
+      }
+
+      int paddedWidth = 1 << levelsX;
+      int paddedHeight = 1 << levelsY;
+      double[][] channels = new double[3][paddedWidth * paddedHeight];
+      for (double[] channel : channels) {
+        int nonZero = readVarint(in);
+        int index = -1;
+        for (int n = 0; n < nonZero; n++) {
+          index += readVarint(in) + 1;
+          if (index < 0 || index >= channel.length) {
+            throw new IOException("Corrupt haar file: " + path);
+          }
+          int zigZag = readVarint(in);
+          channel[index] = ((zigZag >>> 1) ^ -(zigZag & 1)) * step;
+        }
+      }
+
+      HaarCompressor.Coefficients coefficients;
+      try {
+        coefficients = new HaarCompressor.Coefficients(width, height, paddedWidth, paddedHeight,
+            channels);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid haar file header: " + path);
+      }
+      return compressor.reconstruct(coefficients);
+    }
+  }
+
+  /**
+   * Writes a non-negative integer seven bits at a time, lowest bits first.
+   *
+   * @param out   the stream to write to.
+   * @param value the value to write.
+   * @throws IOException if the stream cannot be written.
+   */
+  private static void writeVarint(OutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * Reads an integer written by {@link #writeVarint}.
+   *
+   * @param in the stream to read from.
+   * @return the value.
+   * @throws IOException if the stream ends or the value is too long.
+   */
+  private static int readVarint(InputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException("Unexpected end of haar file.");
+      }
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint in haar file.");
+  }
+}
@@ -0,0 +1,321 @@
+package imagecontroller.fileio;
+
+import imagemodel.PackedImage;
+import imagemodel.PixelSource;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A P3 or P6 PPM file mapped into memory with {@link FileChannel#map} and decoded row by row on
+ * demand, so images larger than the Java heap can be cropped, flipped or summarized without
+ * loading them. Files of any size are mapped in segments of at most 1 GB.
+ *
+ * <p>Rows of a P6 file are found by arithmetic. A P3 file is scanned once when it is opened to
+ * record where each row starts; the samples themselves are parsed only when a row is read. As with
+ * {@link PpmReader}, a P3 file without a maximum value is accepted.
+ */
+public class MappedPpmImage implements PixelSource {
+
+  private static final int SEGMENT_BITS = 30;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  private final MappedByteBuffer[] segments;
+  private final long size;
+  private final boolean binary;
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private final int bytesPerSample;
+  private final long dataStart;
+  private final long[] rowStarts;
+  private long position;
+
+  /**
+   * Maps a PPM file and parses its header.
+   *
+   * @param path the path of the file.
+   * @throws IOException if the file cannot be mapped or is not a valid PPM file.
+   */
+  public MappedPpmImage(String path) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      size = channel.size();
+      segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+      for (int s = 0; s < segments.length; s++) {
+        long start = (long) s << SEGMENT_BITS;
+        segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(SEGMENT_SIZE, size - start));
+      }
+    }
+
+    if (nextByte() != 'P') {
+      throw new IOException("Invalid PPM file: should begin with P3 or P6");
+    }
+    int format = nextByte();
+    if (format != '3' && format != '6') {
+      throw new IOException("Invalid PPM file: should begin with P3 or P6");
+    }
+    binary = format == '6';
+    width = nextInt();
+    height = nextInt();
+    if (width <= 0 || height <= 0) {
+      throw new IOException("Invalid PPM image size: " + width + "x" + height);
+    }
+
+    if (binary) {
+      maxValue = nextInt();
+      bytesPerSample = maxValue < 256 ? 1 : 2;
+      dataStart = position;
+      rowStarts = null;
+      if (dataStart + (long) width * height * 3 * bytesPerSample > size) {
+        throw new IOException("Unexpected end of PPM file.");
+      }
+    } else {
+      bytesPerSample = 1;
+      dataStart = position;
+      rowStarts = new long[height];
+      maxValue = indexRows();
+    }
+    if (maxValue <= 0 || maxValue > 65535) {
+      throw new IOException("Invalid PPM maximum value: " + maxValue);
+    }
+  }
+
+  /**
+   * Scans the samples of a P3 file once and records where every row starts.
+   *
+   * @return the maximum value of the file, or 255 if it has none.
+   * @throws IOException if the number of samples does not match the image size.
+   */
+  private int indexRows() throws IOException {
+    long rowSamples = (long) width * 3;
+    long sampleCount = rowSamples * height;
+    // Row starts assuming the first number is the maximum value, and assuming it is a sample.
+    long[] startsAfterMax = new long[height];
+    long first = -1;
+    long tokens = 0;
+
+    while (true) {
+      long start = skipSeparators();
+      if (start < 0) {
+        break;
+      }
+      int value = nextInt();
+      if (tokens == 0) {
+        first = value;
+      }
+      if (tokens % rowSamples == 0 && tokens / rowSamples < height) {
+        rowStarts[(int) (tokens / rowSamples)] = start;
+      }
+      if (tokens > 0 && (tokens - 1) % rowSamples == 0 && (tokens - 1) / rowSamples < height) {
+        startsAfterMax[(int) ((tokens - 1) / rowSamples)] = start;
+      }
+      tokens++;
+    }
+
+    if (tokens == sampleCount + 1) {
+      System.arraycopy(startsAfterMax, 0, rowStarts, 0, height);
+      return (int) Math.min(first, Integer.MAX_VALUE);
+    } else if (tokens == sampleCount) {
+      return 255;
+    }
+    throw new IOException("PPM file does not contain " + sampleCount + " samples.");
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public void readRow(int y, int x, int length, int[] dest) {
+    if (binary) {
+      readBinaryRow(y, x, length, dest);
+    } else {
+      readPlainRow(y, x, length, dest);
+    }
+  }
+
+  /**
+   * Decodes a segment of a P6 row straight from the mapped bytes.
+   *
+   * @param y      the row to read.
+   * @param x      the first column to read.
+   * @param length the number of pixels to read.
+   * @param dest   the array receiving the pixels.
+   */
+  private void readBinaryRow(int y, int x, int length, int[] dest) {
+    int pixelBytes = 3 * bytesPerSample;
+    byte[] bytes = new byte[length * pixelBytes];
+    long offset = dataStart + ((long) y * width + x) * pixelBytes;
+    int copied = 0;
+    while (copied < bytes.length) {
+      MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+      int index = (int) (offset & (SEGMENT_SIZE - 1));
+      int count = Math.min(bytes.length - copied, segment.limit() - index);
+      segment.get(index, bytes, copied, count);
+      copied += count;
+      offset += count;
+    }
+
+    int index = 0;
+    int[] rgb = new int[3];
+    for (int j = 0; j < length; j++) {
+      for (int c = 0; c < 3; c++) {
+        int sample = bytes[index++] & 0xFF;
+        if (bytesPerSample == 2) {
+          sample = (sample << 8) | (bytes[index++] & 0xFF);
+        }
+        rgb[c] = scale(sample);
+      }
+      dest[j] = PackedImage.pack(rgb[0], rgb[1], rgb[2]);
+    }
+  }
+
+  /**
+   * Parses a segment of a P3 row, starting from the recorded start of the row.
+   *
+   * @param y      the row to read.
+   * @param x      the first column to read.
+   * @param length the number of pixels to read.
+   * @param dest   the array receiving the pixels.
+   */
+  private void readPlainRow(int y, int x, int length, int[] dest) {
+    long cursor = rowStarts[y];
+    int[] rgb = new int[3];
+    for (int j = 0; j < x + length; j++) {
+      for (int c = 0; c < 3; c++) {
+        while (isSeparator(byteAt(cursor))) {
+          cursor = byteAt(cursor) == '#' ? skipComment(cursor) : cursor + 1;
+        }
+        int value = 0;
+        int b = byteAt(cursor);
+        while (b >= '0' && b <= '9') {
+          value = value * 10 + (b - '0');
+          b = byteAt(++cursor);
+        }
+        rgb[c] = value;
+      }
+      if (j >= x) {
+        dest[j - x] = PackedImage.pack(scale(rgb[0]), scale(rgb[1]), scale(rgb[2]));
+      }
+    }
+  }
+
+  /**
+   * Scales a sample from 0-maxValue to 0-255.
+   *
+   * @param sample the sample.
+   * @return the scaled sample.
+   */
+  private int scale(int sample) {
+    if (maxValue == 255) {
+      return Math.min(sample, 255);
+    }
+    return Math.min(255, (int) (((long) sample * 255 + maxValue / 2) / maxValue));
+  }
+
+  /**
+   * Returns the byte at a position of the file.
+   *
+   * @param offset the position in the file.
+   * @return the byte, or -1 past the end of the file.
+   */
+  private int byteAt(long offset) {
+    if (offset >= size) {
+      return -1;
+    }
+    return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & (SEGMENT_SIZE - 1)))
+        & 0xFF;
+  }
+
+  /**
+   * Returns the position after the comment starting at the given position.
+   *
+   * @param offset the position of the {@code #}.
+   * @return the position of the line break ending the comment, or the end of the file.
+   */
+  private long skipComment(long offset) {
+    int b = byteAt(offset);
+    while (b >= 0 && b != '\n' && b != '\r') {
+      b = byteAt(++offset);
+    }
+    return offset;
+  }
+
+  /**
+   * Checks whether a byte is whitespace or the start of a comment.
+   *
+   * @param b the byte.
+   * @return true if the byte separates numbers.
+   */
+  private static boolean isSeparator(int b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B || b == '#';
+  }
+
+  /**
+   * Reads the next byte of the header.
+   *
+   * @return the byte, or -1 at the end of the file.
+   */
+  private int nextByte() {
+    int b = byteAt(position);
+    if (b >= 0) {
+      position++;
+    }
+    return b;
+  }
+
+  /**
+   * Skips whitespace and comments in the header.
+   *
+   * @return the position of the next number, or -1 at the end of the file.
+   */
+  private long skipSeparators() {
+    int b = byteAt(position);
+    while (isSeparator(b)) {
+      position = b == '#' ? skipComment(position) : position + 1;
+      b = byteAt(position);
+    }
+    return b < 0 ? -1 : position;
+  }
+
+  /**
+   * Reads the next non-negative decimal integer of the header, consuming the single byte that
+   * ends it.
+   *
+   * @return the integer.
+   * @throws IOException if the file ends or the next token is not an integer.
+   */
+  private int nextInt() throws IOException {
+    if (skipSeparators() < 0) {
+      throw new IOException("Unexpected end of PPM file.");
+    }
+    int b = nextByte();
+    if (b < '0' || b > '9') {
+      throw new IOException("Invalid PPM file: expected a number but found '" + (char) b + "'");
+    }
+    long value = 0;
+    while (b >= '0' && b <= '9') {
+      value = value * 10 + (b - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw new IOException("Invalid PPM file: number too large");
+      }
+      b = nextByte();
+    }
+    if (b >= 0 && !isSeparator(b)) {
+      throw new IOException("Invalid PPM file: unexpected character '" + (char) b + "'");
+    }
+    if (b == '#') {
+      position--;
+    }
+    return (int) value;
+  }
+}
@@ -0,0 +1,279 @@
+package imagecontroller.fileio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads plain (P3) and binary (P6) PPM files through a file channel. The header and the P3
+ * samples are parsed directly from the bytes of a buffer instead of through strings,
+ * and the P6 samples are bulk-read a row at a time.
+ *
+ * <p>Comments start with {@code #} and run to the end of the line. Samples are scaled to 0-255
+ * when the maximum value of the file is not 255. For compatibility with files written without it,
+ * a P3 file whose sample count matches the image size exactly is read as if its maximum value
+ * were 255.
+ *
+ * <p>A reader holds no state between calls, so one reader can read several files at once.
+ */
+public class PpmReader {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The file being read and the buffer of bytes read from it but not parsed yet.
+   */
+  private static final class Input {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Constructs the input of a file, with an empty buffer.
+     *
+     * @param channel the channel of the file.
+     */
+    private Input(FileChannel channel) {
+      this.channel = channel;
+      buffer.flip();
+    }
+  }
+
+  /**
+   * Reads a PPM file.
+   *
+   * @param path the path of the file.
+   * @return A 3D integer array representing the pixels of the image.
+   * @throws IOException if the file cannot be read or is not a valid PPM file.
+   */
+  public int[][][] read(String path) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      Input in = new Input(channel);
+
+      if (nextByte(in) != 'P') {
+        throw new IOException("Invalid PPM file: should begin with P3 or P6");
+      }
+      int format = nextByte(in);
+      if (format != '3' && format != '6') {
+        throw new IOException("Invalid PPM file: should begin with P3 or P6");
+      }
+      int width = nextInt(in);
+      int height = nextInt(in);
+      if (width <= 0 || height <= 0 || (long) width * height * 3 > Integer.MAX_VALUE) {
+        throw new IOException("Invalid PPM image size: " + width + "x" + height);
+      }
+      return format == '3' ? readPlain(in, width, height) : readBinary(in, width, height);
+    }
+  }
+
+  /**
+   * Reads the samples of a P3 file.
+   *
+   * @param in     the input of the file.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the pixels of the image.
+   * @throws IOException if the samples cannot be read.
+   */
+  private static int[][][] readPlain(Input in, int width, int height) throws IOException {
+    int[][][] pixelArray = new int[height][width][3];
+    int maxValue = nextInt(in);
+    int remaining = width * height * 3;
+
+    for (int[][] row : pixelArray) {
+      for (int[] pixel : row) {
+        for (int c = 0; c < 3; c++) {
+          int sample = nextIntOrEnd(in);
+          remaining--;
+          if (sample < 0) {
+            if (remaining != 0) {
+              throw new EOFException("Unexpected end of PPM file.");
+            }
+            // No maximum value in the file: the value read as the maximum was the first sample.
+            shiftSamples(pixelArray, width, maxValue);
+            return pixelArray;
+          }
+          pixel[c] = sample;
+        }
+      }
+    }
+    if (maxValue <= 0 || maxValue > 65535) {
+      throw new IOException("Invalid PPM maximum value: " + maxValue);
+    }
+    scaleSamples(pixelArray, maxValue);
+    return pixelArray;
+  }
+
+  /**
+   * Reads the samples of a P6 file, one or two bytes per sample depending on the maximum value.
+   *
+   * @param in     the input of the file.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the pixels of the image.
+   * @throws IOException if the samples cannot be read.
+   */
+  private static int[][][] readBinary(Input in, int width, int height) throws IOException {
+    int maxValue = nextInt(in);
+    if (maxValue <= 0 || maxValue > 65535) {
+      throw new IOException("Invalid PPM maximum value: " + maxValue);
+    }
+    // nextInt consumed the single whitespace byte that separates the header from the samples.
+    int bytesPerSample = maxValue < 256 ? 1 : 2;
+    int rowBytes = width * 3 * bytesPerSample;
+    ByteBuffer row = ByteBuffer.allocate(rowBytes);
+    int[][][] pixelArray = new int[height][width][3];
+
+    for (int i = 0; i < height; i++) {
+      row.clear();
+      while (row.hasRemaining() && in.buffer.hasRemaining()) {
+        row.put(in.buffer.get());
+      }
+      while (row.hasRemaining()) {
+        if (in.channel.read(row) < 0) {
+          throw new EOFException("Unexpected end of PPM file.");
+        }
+      }
+      byte[] bytes = row.array();
+      int[][] pixels = pixelArray[i];
+      int index = 0;
+      for (int j = 0; j < width; j++) {
+        for (int c = 0; c < 3; c++) {
+          int sample = bytes[index++] & 0xFF;
+          if (bytesPerSample == 2) {
+            sample = (sample << 8) | (bytes[index++] & 0xFF);
+          }
+          pixels[j][c] = sample;
+        }
+      }
+    }
+    scaleSamples(pixelArray, maxValue);
+    return pixelArray;
+  }
+
+  /**
+   * Moves every sample one position later and stores the value that was read as the maximum
+   * value as the first sample.
+   *
+   * @param pixelArray the pixels, holding all samples but the first one, one position early.
+   * @param width      the width of the image.
+   * @param first      the first sample.
+   */
+  private static void shiftSamples(int[][][] pixelArray, int width, int first) {
+    int sampleCount = pixelArray.length * width * 3;
+    for (int k = sampleCount - 1; k > 0; k--) {
+      pixelArray[k / 3 / width][k / 3 % width][k % 3] =
+          pixelArray[(k - 1) / 3 / width][(k - 1) / 3 % width][(k - 1) % 3];
+    }
+    pixelArray[0][0][0] = first;
+  }
+
+  /**
+   * Scales samples from 0-maxValue to 0-255, rounding to the nearest value.
+   *
+   * @param pixelArray the pixels to scale in place.
+   * @param maxValue   the maximum value of the file.
+   */
+  private static void scaleSamples(int[][][] pixelArray, int maxValue) {
+    if (maxValue == 255) {
+      return;
+    }
+    for (int[][] row : pixelArray) {
+      for (int[] pixel : row) {
+        for (int c = 0; c < 3; c++) {
+          pixel[c] = Math.min(255, (pixel[c] * 255 + maxValue / 2) / maxValue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the next non-negative decimal integer, skipping whitespace and comments.
+   *
+   * @param in the input of the file.
+   * @return the integer.
+   * @throws IOException if the file ends or the next token is not an integer.
+   */
+  private static int nextInt(Input in) throws IOException {
+    int value = nextIntOrEnd(in);
+    if (value < 0) {
+      throw new EOFException("Unexpected end of PPM file.");
+    }
+    return value;
+  }
+
+  /**
+   * Reads the next non-negative decimal integer, skipping whitespace and comments. The single
+   * byte that ends the integer is consumed.
+   *
+   * @param in the input of the file.
+   * @return the integer, or -1 at the end of the file.
+   * @throws IOException if the next token is not an integer.
+   */
+  private static int nextIntOrEnd(Input in) throws IOException {
+    int b = nextByte(in);
+    while (b == '#' || isWhitespace(b)) {
+      if (b == '#') {
+        while (b != '\n' && b != '\r' && b >= 0) {
+          b = nextByte(in);
+        }
+      } else {
+        b = nextByte(in);
+      }
+    }
+    if (b < 0) {
+      return -1;
+    }
+    if (b < '0' || b > '9') {
+      throw new IOException("Invalid PPM file: expected a number but found '" + (char) b + "'");
+    }
+    int value = 0;
+    while (b >= '0' && b <= '9') {
+      value = value * 10 + (b - '0');
+      if (value > 1 << 24) {
+        throw new IOException("Invalid PPM file: number too large");
+      }
+      b = nextByte(in);
+    }
+    if (b >= 0 && !isWhitespace(b) && b != '#') {
+      throw new IOException("Invalid PPM file: unexpected character '" + (char) b + "'");
+    }
+    if (b == '#') {
+      in.buffer.position(in.buffer.position() - 1);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the next byte of the file, refilling the buffer from the channel when needed.
+   *
+   * @param in the input of the file.
+   * @return the byte, or -1 at the end of the file.
+   * @throws IOException if the file cannot be read.
+   */
+  private static int nextByte(Input in) throws IOException {
+    ByteBuffer buffer = in.buffer;
+    if (!buffer.hasRemaining()) {
+      buffer.clear();
+      int read = in.channel.read(buffer);
+      buffer.flip();
+      if (read <= 0) {
+        return -1;
+      }
+    }
+    return buffer.get() & 0xFF;
+  }
+
+  /**
+   * Checks whether a byte is PPM whitespace.
+   *
+   * @param b the byte.
+   * @return true if it is a space, tab, or line break.
+   */
+  private static boolean isWhitespace(int b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+  }
+}
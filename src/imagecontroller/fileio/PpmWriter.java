@@ -0,0 +1,134 @@
+package imagecontroller.fileio;
+
+import imagemodel.PackedImage;
+import imagemodel.PixelSource;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes images as plain (P3) or binary (P6) PPM files with a maximum value of 255. Each row is
+ * formatted into a reusable byte buffer and written in one call, so no strings are created per
+ * pixel. Channel values are clamped to 0-255.
+ */
+public class PpmWriter {
+
+  /**
+   * Fills a buffer with the channel values of one row, three per pixel.
+   */
+  @FunctionalInterface
+  private interface RowReader {
+
+    /**
+     * Reads the channel values of a row.
+     *
+     * @param y       the row to read.
+     * @param samples the buffer receiving the values.
+     */
+    void read(int y, int[] samples);
+  }
+
+  /**
+   * Writes an image as a PPM file.
+   *
+   * @param pixelArray A 3D integer array representing the color image.
+   * @param path       the path of the file to write.
+   * @param binary     true to write a binary P6 file, false for a plain P3 file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(int[][][] pixelArray, String path, boolean binary) throws IOException {
+    int width = pixelArray[0].length;
+    write(width, pixelArray.length, path, binary, (y, samples) -> {
+      int[][] pixels = pixelArray[y];
+      for (int j = 0; j < width; j++) {
+        samples[3 * j] = pixels[j][0];
+        samples[3 * j + 1] = pixels[j][1];
+        samples[3 * j + 2] = pixels[j][2];
+      }
+    });
+  }
+
+  /**
+   * Writes an image source as a PPM file, decoding one row at a time.
+   *
+   * @param source the source of the image.
+   * @param path   the path of the file to write.
+   * @param binary true to write a binary P6 file, false for a plain P3 file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(PixelSource source, String path, boolean binary) throws IOException {
+    int width = source.getWidth();
+    int[] row = new int[width];
+    write(width, source.getHeight(), path, binary, (y, samples) -> {
+      source.readRow(y, 0, width, row);
+      for (int j = 0; j < width; j++) {
+        samples[3 * j] = PackedImage.red(row[j]);
+        samples[3 * j + 1] = PackedImage.green(row[j]);
+        samples[3 * j + 2] = PackedImage.blue(row[j]);
+      }
+    });
+  }
+
+  /**
+   * Writes the header and then every row of an image.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param path   the path of the file to write.
+   * @param binary true to write a binary P6 file, false for a plain P3 file.
+   * @param reader the reader of the rows.
+   * @throws IOException if the file cannot be written.
+   */
+  private void write(int width, int height, String path, boolean binary, RowReader reader)
+      throws IOException {
+    String lineSeparator = System.lineSeparator();
+    String header = (binary ? "P6" : "P3") + lineSeparator + width + " " + height + lineSeparator
+        + "255" + lineSeparator;
+    byte[] newline = lineSeparator.getBytes(StandardCharsets.US_ASCII);
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path), 1 << 16)) {
+      out.write(header.getBytes(StandardCharsets.US_ASCII));
+      int[] samples = new int[width * 3];
+      byte[] row = new byte[binary ? width * 3 : width * 12];
+
+      for (int i = 0; i < height; i++) {
+        reader.read(i, samples);
+        int length = 0;
+        for (int sample : samples) {
+          int value = Math.max(0, Math.min(255, sample));
+          if (binary) {
+            row[length++] = (byte) value;
+          } else {
+            length = appendSample(row, length, value);
+          }
+        }
+        out.write(row, 0, length);
+        if (!binary) {
+          out.write(newline);
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends a sample in decimal followed by a space.
+   *
+   * @param row    the row buffer.
+   * @param length the number of bytes already in the buffer.
+   * @param value  the sample, between 0 and 255.
+   * @return the new number of bytes in the buffer.
+   */
+  private static int appendSample(byte[] row, int length, int value) {
+    if (value >= 100) {
+      row[length++] = (byte) ('0' + value / 100);
+    }
+    if (value >= 10) {
+      row[length++] = (byte) ('0' + value / 10 % 10);
+    }
+    row[length++] = (byte) ('0' + value % 10);
+    row[length++] = ' ';
+    return length;
+  }
+}
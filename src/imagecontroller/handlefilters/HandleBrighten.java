@@ -1,6 +1,7 @@
 package imagecontroller.handlefilters;
 
 import imagemodel.ExtendedImageModel;
+import imagemodel.PointOperations;
 import java.util.Map;
 
 /**
@@ -28,6 +29,10 @@ public class HandleBrighten extends HandleConstruct implements HandleInterfaceCo
     String outputImageName = tokens[3];
     String imageName = tokens[2];
 
+    if (fusePointOperation(imageName, outputImageName, PointOperations.brighten(brightness))) {
+      return;
+    }
+
     int[][][] imageFromHashMap = imageMap.get(imageName);
     if (imageFromHashMap == null) {
       System.out.println("No image present in storage for this image Name.");
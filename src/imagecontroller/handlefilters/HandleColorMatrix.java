@@ -0,0 +1,96 @@
+package imagecontroller.handlefilters;
+
+import imagemodel.ColorMatrix;
+import imagemodel.ExtendedImageModel;
+import java.util.Map;
+
+/**
+ * Class for color-matrix method application call to model. The matrix is given as three rows
+ * separated by ';', each holding three weights separated by ',' (for example
+ * {@code 0.393,0.769,0.189;0.349,0.686,0.168;0.272,0.534,0.131} for sepia). Row 0 gives the new
+ * red component, row 1 the new green and row 2 the new blue.
+ */
+public class HandleColorMatrix extends HandleConstruct implements HandleInterfaceCommand {
+
+  /**
+   * Constructs a HandleColorMatrix object with the specified ImageModel and image map.
+   *
+   * @param imageFilter The ImageModel to be used for processing.
+   * @param imageMap    The image map containing image data.
+   */
+  public HandleColorMatrix(ExtendedImageModel imageFilter, Map<String, int[][][]> imageMap) {
+    super(imageFilter, imageMap);
+  }
+
+  @Override
+  public void apply(String[] tokens) {
+    if (tokens.length != 4 && tokens.length != 6) {
+      System.out.println("Invalid color-matrix command.");
+      return;
+    }
+    String imageName = tokens[2];
+    String outputImageName = tokens[3];
+
+    ColorMatrix matrix;
+    try {
+      matrix = parseMatrix(tokens[1]);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Invalid color matrix: " + e.getMessage());
+      return;
+    }
+
+    if (tokens.length == 4 && fusePointOperation(imageName, outputImageName, matrix)) {
+      return;
+    }
+
+    int[][][] imageFromHashMap = imageMap.get(imageName);
+    if (imageFromHashMap == null) {
+      System.out.println("No image present in storage for this image Name.");
+    } else {
+
+      if (tokens.length == 6 && tokens[4].equals("split")) {
+        int splitPercentage;
+        try {
+          splitPercentage = Integer.parseInt(tokens[5]);
+          if (splitPercentage < 0 || splitPercentage > 100) {
+            throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+          }
+        } catch (IllegalArgumentException e) {
+          System.out.println("Error: " + e.getMessage());
+          return;
+        }
+        int[][][] splitTransformedArray = imageFilter.splitColorMatrixImage(imageFromHashMap,
+            matrix, splitPercentage);
+        imageMap.put(outputImageName, splitTransformedArray);
+      } else if (tokens.length == 4) {
+        int[][][] transformedArray = imageFilter.applyColorMatrix(imageFromHashMap, matrix);
+        imageMap.put(outputImageName, transformedArray);
+      } else {
+        System.out.println("Invalid color-matrix command.");
+      }
+    }
+  }
+
+  /**
+   * Parses the rows of a color matrix.
+   *
+   * @param matrixSpec the rows of the matrix.
+   * @return the matrix.
+   */
+  private static ColorMatrix parseMatrix(String matrixSpec) {
+    String[] rows = matrixSpec.split(";");
+    double[][] weights = new double[rows.length][];
+    for (int i = 0; i < rows.length; i++) {
+      String[] values = rows[i].trim().split(",");
+      weights[i] = new double[values.length];
+      for (int j = 0; j < values.length; j++) {
+        try {
+          weights[i][j] = Double.parseDouble(values[j].trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Color matrix weights must be numbers.");
+        }
+      }
+    }
+    return ColorMatrix.of(weights);
+  }
+}
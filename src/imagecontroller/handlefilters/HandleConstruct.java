@@ -1,7 +1,13 @@
 package imagecontroller.handlefilters;
 
+import imagecontroller.ImageStore;
+import imagemodel.ArraySource;
 import imagemodel.ExtendedImageModel;
+import imagemodel.PixelSource;
+import imagemodel.PointPipeline;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
 
 /**
  * A class the constructs object for all handle classes.
@@ -21,4 +27,96 @@ public class HandleConstruct {
     this.imageFilter = imageFilter;
     this.imageMap = imageMap;
   }
+
+  /**
+   * Returns the image stored under the given name as a source, if the image map holds it as one.
+   *
+   * @param imageName The name of the image.
+   * @return The source of the image, or null if it is stored as an array or not at all.
+   */
+  protected PixelSource getSource(String imageName) {
+    if (imageMap instanceof ImageStore) {
+      return ((ImageStore) imageMap).getSource(imageName);
+    }
+    return null;
+  }
+
+  /**
+   * Stores an image as a source if the image map supports sources, or decodes it into an array
+   * otherwise.
+   *
+   * @param imageName The name of the image.
+   * @param source    The source of the image.
+   */
+  protected void putSource(String imageName, PixelSource source) {
+    if (imageMap instanceof ImageStore) {
+      ((ImageStore) imageMap).putSource(imageName, source);
+    } else {
+      imageMap.put(imageName, source.toArray());
+    }
+  }
+
+  /**
+   * Records a point operation on an image as a pipeline instead of applying it, if the image map
+   * evaluates commands lazily.
+   *
+   * @param imageName       The name of the image.
+   * @param outputImageName The name under which to store the result.
+   * @param operation       The point operation.
+   * @return true if the operation was recorded, false if it must be applied as usual.
+   */
+  protected boolean fusePointOperation(String imageName, String outputImageName,
+      IntUnaryOperator operation) {
+    PixelSource source = deferredSource(imageName, false);
+    if (source == null) {
+      return false;
+    }
+    putSource(outputImageName, PointPipeline.append(source, operation));
+    return true;
+  }
+
+  /**
+   * Stores a view of an image, such as a flip or a crop, instead of copying its pixels, if the
+   * image is stored as a source or the image map evaluates commands lazily.
+   *
+   * @param imageName       The name of the image.
+   * @param outputImageName The name under which to store the result.
+   * @param view            The function building the view of the image.
+   * @return true if the view was stored, false if the command must be applied as usual.
+   * @throws IllegalArgumentException if the view cannot be built for this image.
+   */
+  protected boolean storeView(String imageName, String outputImageName,
+      UnaryOperator<PixelSource> view) {
+    PixelSource source = deferredSource(imageName, true);
+    if (source == null) {
+      return false;
+    }
+    putSource(outputImageName, view.apply(source));
+    return true;
+  }
+
+  /**
+   * Returns an image as a source if a command on it should be recorded rather than applied.
+   *
+   * @param imageName     The name of the image.
+   * @param acceptSources true to accept images stored as sources even if evaluation is not lazy.
+   * @return The source of the image, or null if the command must be applied as usual.
+   */
+  private PixelSource deferredSource(String imageName, boolean acceptSources) {
+    if (!(imageMap instanceof ImageStore) || !imageMap.containsKey(imageName)) {
+      return null;
+    }
+    PixelSource source = getSource(imageName);
+    if (!((ImageStore) imageMap).isLazy()) {
+      return acceptSources ? source : null;
+    }
+    if (source == null) {
+      int[][][] colorArray = imageMap.get(imageName);
+      if (colorArray == null) {
+        return null;
+      }
+      source = new ArraySource(colorArray);
+    }
+    return source;
+  }
 }
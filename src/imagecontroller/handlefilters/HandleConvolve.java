@@ -0,0 +1,154 @@
+package imagecontroller.handlefilters;
+
+import imagemodel.Convolver;
+import imagemodel.ExtendedImageModel;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for convolve method application call to model. The kernel is given either inline, with
+ * rows separated by ';' and values by ',' (for example {@code 0,-1,0;-1,4,-1;0,-1,0}), or as the
+ * path of a text file holding one kernel row per line.
+ */
+public class HandleConvolve extends HandleConstruct implements HandleInterfaceCommand {
+
+  /**
+   * Constructs a HandleConvolve object with the specified ImageModel and image map.
+   *
+   * @param imageFilter The ImageModel to be used for processing.
+   * @param imageMap    The image map containing image data.
+   */
+  public HandleConvolve(ExtendedImageModel imageFilter, Map<String, int[][][]> imageMap) {
+    super(imageFilter, imageMap);
+  }
+
+  @Override
+  public void apply(String[] tokens) {
+    if (tokens.length != 5 && tokens.length != 7) {
+      System.out.println("Invalid convolve command.");
+      return;
+    }
+    String imageName = tokens[3];
+    String outputImageName = tokens[4];
+
+    int[][] kernel;
+    int divisor;
+    try {
+      kernel = readKernel(tokens[1]);
+      divisor = parseNormalization(tokens[2], kernel);
+    } catch (IllegalArgumentException | IOException e) {
+      System.out.println("Invalid kernel: " + e.getMessage());
+      return;
+    }
+
+    int[][][] imageFromHashMap = imageMap.get(imageName);
+    if (imageFromHashMap == null) {
+      System.out.println("No image present in storage for this image Name.");
+    } else {
+
+      if (tokens.length == 7 && tokens[5].equals("split")) {
+        int splitPercentage;
+        try {
+          splitPercentage = Integer.parseInt(tokens[6]);
+          if (splitPercentage < 0 || splitPercentage > 100) {
+            throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+          }
+        } catch (IllegalArgumentException e) {
+          System.out.println("Error: " + e.getMessage());
+          return;
+        }
+        int[][][] splitConvolvedArray = imageFilter.splitConvolveImage(imageFromHashMap, kernel,
+            divisor, splitPercentage);
+        imageMap.put(outputImageName, splitConvolvedArray);
+      } else if (tokens.length == 5) {
+        int[][][] convolvedArray = imageFilter.convolve(imageFromHashMap, kernel, divisor);
+        imageMap.put(outputImageName, convolvedArray);
+      } else {
+        System.out.println("Invalid convolve command.");
+      }
+    }
+  }
+
+  /**
+   * Reads a kernel from a file if one exists at the given path, or parses it inline otherwise.
+   *
+   * @param kernelSpec the kernel file path or the inline kernel.
+   * @return the kernel.
+   * @throws IOException if the kernel file cannot be read.
+   */
+  private static int[][] readKernel(String kernelSpec) throws IOException {
+    File file = new File(kernelSpec);
+    if (!file.isFile()) {
+      return parseKernel(kernelSpec.split(";"));
+    }
+    List<String> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          rows.add(line);
+        }
+      }
+    }
+    return parseKernel(rows.toArray(new String[0]));
+  }
+
+  /**
+   * Parses kernel rows whose values are separated by commas or whitespace.
+   *
+   * @param rows the text of each kernel row.
+   * @return the kernel.
+   */
+  private static int[][] parseKernel(String[] rows) {
+    int[][] kernel = new int[rows.length][];
+    for (int i = 0; i < rows.length; i++) {
+      String[] values = rows[i].trim().split("[,\\s]+");
+      kernel[i] = new int[values.length];
+      for (int j = 0; j < values.length; j++) {
+        try {
+          kernel[i][j] = Integer.parseInt(values[j]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Kernel values must be integers.");
+        }
+      }
+    }
+    // Validates the shape, so a malformed kernel is reported before the image is touched.
+    Convolver.kernelSum(kernel);
+    return kernel;
+  }
+
+  /**
+   * Converts a normalization mode into the divisor of the kernel. The mode {@code sum} divides by
+   * the sum of the kernel (or 1 if it is zero), {@code none} leaves the sums unscaled, and an
+   * integer is used as the divisor directly.
+   *
+   * @param mode   the normalization mode.
+   * @param kernel the kernel being normalized.
+   * @return the divisor.
+   */
+  private static int parseNormalization(String mode, int[][] kernel) {
+    switch (mode) {
+      case "sum":
+        return Convolver.kernelSum(kernel);
+      case "none":
+        return 1;
+      default:
+        int divisor;
+        try {
+          divisor = Integer.parseInt(mode);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Normalization must be sum, none or an integer.");
+        }
+        if (divisor == 0) {
+          throw new IllegalArgumentException("Kernel divisor must not be zero.");
+        }
+        return divisor;
+    }
+  }
+}
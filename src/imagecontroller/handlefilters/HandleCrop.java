@@ -0,0 +1,63 @@
+package imagecontroller.handlefilters;
+
+import imagemodel.ExtendedImageModel;
+import imagemodel.SourceView;
+import java.util.Map;
+
+/**
+ * Class for crop method application call to model. Images stored as sources, such as mapped PPM
+ * files, and every image when evaluation is lazy, are cropped as views without copying them.
+ */
+public class HandleCrop extends HandleConstruct implements HandleInterfaceCommand {
+
+  /**
+   * Constructs a HandleCrop object with the specified ImageModel and image map.
+   *
+   * @param imageFilter The ImageModel to be used for processing.
+   * @param imageMap    The image map containing image data.
+   */
+  public HandleCrop(ExtendedImageModel imageFilter, Map<String, int[][][]> imageMap) {
+    super(imageFilter, imageMap);
+  }
+
+  @Override
+  public void apply(String[] tokens) {
+    if (tokens.length != 7) {
+      System.out.println("Invalid crop command.");
+      return;
+    }
+    int x;
+    int y;
+    int width;
+    int height;
+    try {
+      x = Integer.parseInt(tokens[1]);
+      y = Integer.parseInt(tokens[2]);
+      width = Integer.parseInt(tokens[3]);
+      height = Integer.parseInt(tokens[4]);
+    } catch (NumberFormatException e) {
+      System.out.println("Error: Crop region must be given as integers.");
+      return;
+    }
+    String imageName = tokens[5];
+    String outputImageName = tokens[6];
+
+    try {
+      if (storeView(imageName, outputImageName,
+          source -> SourceView.crop(source, x, y, width, height))) {
+        return;
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return;
+    }
+
+    int[][][] imageFromHashMap = imageMap.get(imageName);
+    if (imageFromHashMap == null) {
+      System.out.println("No image present in storage for this image Name.");
+    } else {
+      int[][][] croppedArray = imageFilter.crop(imageFromHashMap, x, y, width, height);
+      imageMap.put(outputImageName, croppedArray);
+    }
+  }
+}
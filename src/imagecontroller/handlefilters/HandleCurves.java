@@ -0,0 +1,118 @@
+package imagecontroller.handlefilters;
+
+import imagemodel.ExtendedImageModel;
+import imagemodel.ToneCurve;
+import java.util.Map;
+
+/**
+ * Class for curves method application call to model. The curve is given by control points
+ * separated by ';', each an x,y pair of values in 0-255 (for example {@code 0,0;64,40;255,255}),
+ * and applies to every channel unless the points are prefixed by {@code red:}, {@code green:} or
+ * {@code blue:}.
+ */
+public class HandleCurves extends HandleConstruct implements HandleInterfaceCommand {
+
+  /**
+   * Constructs a HandleCurves object with the specified ImageModel and image map.
+   *
+   * @param imageFilter The ImageModel to be used for processing.
+   * @param imageMap    The image map containing image data.
+   */
+  public HandleCurves(ExtendedImageModel imageFilter, Map<String, int[][][]> imageMap) {
+    super(imageFilter, imageMap);
+  }
+
+  @Override
+  public void apply(String[] tokens) {
+    if (tokens.length != 4 && tokens.length != 6) {
+      System.out.println("Invalid curves command.");
+      return;
+    }
+    String imageName = tokens[2];
+    String outputImageName = tokens[3];
+
+    ToneCurve curve;
+    try {
+      curve = parseCurve(tokens[1]);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Invalid curve: " + e.getMessage());
+      return;
+    }
+
+    if (tokens.length == 4 && fusePointOperation(imageName, outputImageName, curve)) {
+      return;
+    }
+
+    int[][][] imageFromHashMap = imageMap.get(imageName);
+    if (imageFromHashMap == null) {
+      System.out.println("No image present in storage for this image Name.");
+    } else {
+
+      if (tokens.length == 6 && tokens[4].equals("split")) {
+        int splitPercentage;
+        try {
+          splitPercentage = Integer.parseInt(tokens[5]);
+          if (splitPercentage < 0 || splitPercentage > 100) {
+            throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+          }
+        } catch (IllegalArgumentException e) {
+          System.out.println("Error: " + e.getMessage());
+          return;
+        }
+        int[][][] splitCurvedArray = imageFilter.splitToneCurveImage(imageFromHashMap, curve,
+            splitPercentage);
+        imageMap.put(outputImageName, splitCurvedArray);
+      } else if (tokens.length == 4) {
+        int[][][] curvedArray = imageFilter.applyToneCurve(imageFromHashMap, curve);
+        imageMap.put(outputImageName, curvedArray);
+      } else {
+        System.out.println("Invalid curves command.");
+      }
+    }
+  }
+
+  /**
+   * Parses control points, optionally prefixed by the channel they apply to, into a curve.
+   *
+   * @param curveSpec the control points.
+   * @return the curve.
+   */
+  private static ToneCurve parseCurve(String curveSpec) {
+    int channel = -1;
+    String pointList = curveSpec;
+    int colon = curveSpec.indexOf(':');
+    if (colon >= 0) {
+      switch (curveSpec.substring(0, colon)) {
+        case "red":
+          channel = 0;
+          break;
+        case "green":
+          channel = 1;
+          break;
+        case "blue":
+          channel = 2;
+          break;
+        default:
+          throw new IllegalArgumentException("Channel must be red, green or blue.");
+      }
+      pointList = curveSpec.substring(colon + 1);
+    }
+
+    String[] pairs = pointList.split(";");
+    int[][] points = new int[pairs.length][];
+    for (int k = 0; k < pairs.length; k++) {
+      String[] values = pairs[k].trim().split(",");
+      if (values.length != 2) {
+        throw new IllegalArgumentException("Control points must be x,y pairs.");
+      }
+      try {
+        points[k] = new int[]{Integer.parseInt(values[0].trim()),
+            Integer.parseInt(values[1].trim())};
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Control point values must be integers.");
+      }
+    }
+    ToneCurve curve = ToneCurve.fromControlPoints(points);
+    return channel < 0 ? curve : curve.onChannel(channel);
+  }
+}
@@ -1,19 +1,18 @@
 package imagecontroller.handlefilters;
 
 import imagemodel.ExtendedImageModel;
-import imagemodel.ImageConvert;
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import imagemodel.HistogramRenderer;
+import imagemodel.PixelSource;
 import java.util.Map;
 
 /**
- * Class for histogram method application call to model.
+ * Class for histogram method application call to model. The histogram is drawn by a
+ * {@link HistogramRenderer} and stored as a packed image, 256 by 256 pixels with a linear scale
+ * unless a size or {@code log} is given.
  */
 public class HandleHistogram extends HandleConstruct implements HandleInterfaceCommand {
 
-  private final ImageConvert imageConvertor = new ImageConvert();
+  private final HistogramRenderer defaultRenderer = new HistogramRenderer(256, 256, false);
 
   /**
    * Constructs a HandleHistogram object with the specified ImageModel and image map.
@@ -27,97 +26,44 @@ public class HandleHistogram extends HandleConstruct implements HandleInterfaceC
 
   @Override
   public void apply(String[] tokens) {
-    if (tokens.length != 3) {
+    if (tokens.length < 3 || tokens.length > 6) {
       System.out.println("Invalid histogram command.");
       return;
     }
-
-    String outputImageName = tokens[2];
-    String imageName = tokens[1];
-
-    int[][][] imageFromHashMap = imageMap.get(imageName);
-    if (imageFromHashMap == null) {
-      System.out.println("No image present in storage for this image Name.");
+    boolean logScale = tokens[tokens.length - 1].equals("log");
+    int options = tokens.length - 3 - (logScale ? 1 : 0);
+    HistogramRenderer renderer = defaultRenderer;
+    if (options == 2) {
+      try {
+        renderer = new HistogramRenderer(Integer.parseInt(tokens[3]),
+            Integer.parseInt(tokens[4]), logScale);
+      } catch (IllegalArgumentException e) {
+        System.out.println("Error: Histogram size must be two integers from 2 to "
+            + HistogramRenderer.MAX_SIZE + ".");
+        return;
+      }
+    } else if (options != 0) {
+      System.out.println("Invalid histogram command.");
       return;
+    } else if (logScale) {
+      renderer = new HistogramRenderer(256, 256, true);
     }
 
-    int[][] histograms = imageFilter.generateHistogram(imageFromHashMap);
-    int width = 256;
-    int height = 256;
-    BufferedImage histogramImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-    Graphics2D graphicHistogram = histogramImage.createGraphics();
-
-    graphicHistogram.setBackground(Color.WHITE);
-    graphicHistogram.clearRect(0, 0, width, height);
-
-    drawGridLines(graphicHistogram, width, height, 10);
-
-    scaleHistogram(histograms, graphicHistogram);
-    int[][][] histogramArrayImage = imageConvertor.convertToArray(histogramImage);
-    imageMap.put(outputImageName, histogramArrayImage);
-  }
-
-  /**
-   * A helper method to scale and plot the histogram values.
-   *
-   * @param histograms the array that stores the frequencies of all the values.
-   * @param graphics   an object of Graphics2D.
-   */
-  private void scaleHistogram(int[][] histograms, Graphics2D graphics) {
-    int maxFrequency = findMaxFrequency(histograms);
-
-    int[] channelColors = {0xFF0000, 0x00FF00, 0x0000FF};
-
-    for (int channelIndex = 0; channelIndex < 3; channelIndex++) {
-      int[] frequencies = histograms[channelIndex];
-      Color color = new Color(channelColors[channelIndex]);
-      graphics.setColor(color);
-
-      for (int i = 0; i < 255; i++) {
-        int scaledFrequency = (int) (frequencies[i] * (255.0 / maxFrequency));
-        int scaledNextFrequency = (int) (frequencies[i + 1] * (255.0 / maxFrequency));
-
-        graphics.drawLine(i, 255 - scaledFrequency, i + 1, 255 - scaledNextFrequency);
-      }
-    }
-  }
+    String outputImageName = tokens[2];
+    String imageName = tokens[1];
 
-  /**
-   * A private helper method to find the maximum frequency of a particular histogram.
-   *
-   * @param histograms the array that stores the frequencies of all the values.
-   * @return the maximum frequency.
-   */
-  private int findMaxFrequency(int[][] histograms) {
-    int maxFrequency = histograms[0][0];
-    for (int[] frequencies : histograms) {
-      for (int frequency : frequencies) {
-        if (frequency > maxFrequency) {
-          maxFrequency = frequency;
-        }
+    int[][] histograms;
+    PixelSource source = getSource(imageName);
+    if (source != null) {
+      histograms = imageFilter.generateHistogram(source);
+    } else {
+      int[][][] imageFromHashMap = imageMap.get(imageName);
+      if (imageFromHashMap == null) {
+        System.out.println("No image present in storage for this image Name.");
+        return;
       }
+      histograms = imageFilter.generateHistogram(imageFromHashMap);
     }
-    return maxFrequency;
-  }
-
-  /**
-   * A private helper method to draw grid lines.
-   *
-   * @param graphics an object of Graphics2D.
-   * @param width    the width of the histogram.
-   * @param height   the height of the histogram.
-   * @param gridSize the required grid size in the histogram.
-   */
-  private void drawGridLines(Graphics2D graphics, int width, int height, int gridSize) {
-    graphics.setColor(new Color(230, 230, 230));
-    graphics.setStroke(new BasicStroke(0.5f));
-
-    for (int i = 0; i < width; i += gridSize) {
-      graphics.drawLine(i, 0, i, height);
-    }
-
-    for (int i = 0; i < height; i += gridSize) {
-      graphics.drawLine(0, i, width, i);
-    }
+    putSource(outputImageName, renderer.render(histograms));
   }
-}
\ No newline at end of file
+}
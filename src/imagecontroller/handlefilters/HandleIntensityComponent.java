@@ -1,6 +1,7 @@
 package imagecontroller.handlefilters;
 
 import imagemodel.ExtendedImageModel;
+import imagemodel.PointOperations;
 import java.util.Map;
 
 /**
@@ -27,6 +28,10 @@ public class HandleIntensityComponent extends HandleConstruct implements HandleI
     String outputImageName = tokens[2];
     String imageName = tokens[1];
 
+    if (fusePointOperation(imageName, outputImageName, PointOperations.intensity())) {
+      return;
+    }
+
     int[][][] imageFromHashMap = imageMap.get(imageName);
     if (imageFromHashMap == null) {
       System.out.println("No image present in storage for this image Name.");
@@ -1,6 +1,7 @@
 package imagecontroller.handlefilters;
 
 import imagemodel.ExtendedImageModel;
+import imagemodel.PointOperations;
 import java.util.Map;
 
 /**
@@ -31,6 +32,11 @@ public class HandleLevelAdjust extends HandleConstruct implements HandleInterfac
     String imageName = tokens[4];
     String outputImageName = tokens[5];
 
+    if (tokens.length == 6 && b >= 0 && b <= m && m <= w && w <= 255
+        && fusePointOperation(imageName, outputImageName, PointOperations.adjustLevel(b, m, w))) {
+      return;
+    }
+
     int[][][] imageFromHashMap = imageMap.get(imageName);
     if (imageFromHashMap == null) {
       System.out.println("No image present in storage for this image Name.");
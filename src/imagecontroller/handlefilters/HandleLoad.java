@@ -1,14 +1,14 @@
 package imagecontroller.handlefilters;
 
+import imagecontroller.fileio.HaarFile;
+import imagecontroller.fileio.MappedPpmImage;
+import imagecontroller.fileio.PpmReader;
 import imagemodel.ExtendedImageModel;
 import imagemodel.ImageConvert;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Map;
-import java.util.Scanner;
 import javax.imageio.ImageIO;
 
 /**
@@ -18,6 +18,8 @@ public class HandleLoad extends HandleConstruct implements HandleInterfaceComman
   
 
   private final ImageConvert imageConvertor = new ImageConvert();
+  private final HaarFile haarFile = new HaarFile();
+  private final PpmReader ppmReader = new PpmReader();
 
   /**
    * Constructs a HandleLoad object with the specified ImageModel and image map.
@@ -31,19 +33,46 @@ public class HandleLoad extends HandleConstruct implements HandleInterfaceComman
 
   @Override
   public void apply(String[] tokens) {
-    if (tokens.length != 3) {
+    if (tokens.length != 3 && !(tokens.length == 4 && tokens[3].equals("mapped"))) {
       System.out.println("Invalid load command.");
       return;
     }
     String imagePath = tokens[1];
     String imageName = tokens[2];
+    if (tokens.length == 4) {
+      loadMapped(imagePath, imageName);
+      return;
+    }
     int[][][] image = loadImage(imagePath);
+    if (image != null) {
+      imageMap.put(imageName, image);
+    }
+  }
 
-    imageMap.put(imageName, image);
+  /**
+   * Maps a PPM file into memory and stores it as a source that is decoded on demand.
+   *
+   * @param filePath  The path to the PPM file.
+   * @param imageName The name to store the image under.
+   */
+  private void loadMapped(String filePath, String imageName) {
+    if (!filePath.endsWith("ppm")) {
+      System.out.println("Only PPM images can be loaded as mapped.");
+      return;
+    }
+    if (!isValidPPMPath(filePath)) {
+      return;
+    }
+    try {
+      putSource(imageName, new MappedPpmImage(filePath));
+    } catch (IOException e) {
+      System.out.println("Error reading the ppm image " + filePath + ": " + e.getMessage());
+    }
   }
 
   /**
-   * Loads an image from the specified file path, supporting JPG, PNG, and PPM formats.
+   * Loads an image from the specified file path, supporting JPG, PNG, PPM and haar
+   * formats.
    *
    * @param filePath The path to the image file.
    * @return A 3D array representing the loaded image, or null if an error occurs.
@@ -57,6 +86,8 @@ public class HandleLoad extends HandleConstruct implements HandleInterfaceComman
           return null;
         }
         imagearray = readPPM(filePath);
+      } else if (filePath.endsWith("haar")) {
+        imagearray = haarFile.read(filePath);
       } else {
         BufferedImage image = ImageIO.read(new File(filePath));
         imagearray = imageConvertor.convertToArray(image);
@@ -85,51 +116,17 @@ public class HandleLoad extends HandleConstruct implements HandleInterfaceComman
   }
 
   /**
-   * Reads a PPM file from the specified file path.
+   * Reads a P3 or P6 PPM file from the specified file path.
    *
    * @param filepath The path to the PPM file.
    * @return A 3D array representing the pixels of the PPM image, or null if an error occurs.
    */
-  private static int[][][] readPPM(String filepath) {
-    Scanner sc;
-    int[][][] pixelArray;
-
+  private int[][][] readPPM(String filepath) {
     try {
-      sc = new Scanner(new FileInputStream(filepath));
-    } catch (FileNotFoundException e) {
-      System.out.println("File " + filepath + " not found!");
+      return ppmReader.read(filepath);
+    } catch (IOException e) {
+      System.out.println("Error reading the ppm image " + filepath + ": " + e.getMessage());
       return null;
     }
-    StringBuilder builder = new StringBuilder();
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s).append(System.lineSeparator());
-      }
-    }
-
-    sc = new Scanner(builder.toString());
-
-    String token;
-
-    token = sc.next();
-    if (!token.equals("P3")) {
-      System.out.println("Invalid PPM file: plain RAW file should begin with P3");
-    }
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-
-    pixelArray = new int[height][width][3];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        pixelArray[i][j][0] = r;
-        pixelArray[i][j][1] = g;
-        pixelArray[i][j][2] = b;
-      }
-    }
-    return pixelArray;
   }
 }
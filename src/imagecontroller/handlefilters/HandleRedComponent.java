@@ -1,6 +1,7 @@
 package imagecontroller.handlefilters;
 
 import imagemodel.ExtendedImageModel;
+import imagemodel.SourceView;
 import java.util.Map;
 
 /**
@@ -27,6 +28,11 @@ public class HandleRedComponent extends HandleConstruct implements HandleInterfa
     String outputImageName = tokens[2];
     String imageName = tokens[1];
 
+    if (storeView(imageName, outputImageName,
+        source -> SourceView.keepChannels(source, 0xFF0000))) {
+      return;
+    }
+
     int[][][] imageFromHashMap = imageMap.get(imageName);
     if (imageFromHashMap == null) {
       System.out.println("No image present in storage for this image Name.");
@@ -0,0 +1,55 @@
+package imagecontroller.handlefilters;
+
+import imagemodel.ExtendedImageModel;
+import imagemodel.SourceView;
+import java.util.Map;
+
+/**
+ * Class for rotate method application call to model. Images stored as sources, and every image
+ * when evaluation is lazy, are rotated as views without copying them.
+ */
+public class HandleRotate extends HandleConstruct implements HandleInterfaceCommand {
+
+  /**
+   * Constructs a HandleRotate object with the specified ImageModel and image map.
+   *
+   * @param imageFilter The ImageModel to be used for processing.
+   * @param imageMap    The image map containing image data.
+   */
+  public HandleRotate(ExtendedImageModel imageFilter, Map<String, int[][][]> imageMap) {
+    super(imageFilter, imageMap);
+  }
+
+  @Override
+  public void apply(String[] tokens) {
+    if (tokens.length != 4) {
+      System.out.println("Invalid rotate command.");
+      return;
+    }
+    int degrees;
+    try {
+      degrees = Integer.parseInt(tokens[1]);
+    } catch (NumberFormatException e) {
+      System.out.println("Error: Rotation angle must be an integer.");
+      return;
+    }
+    if (degrees % 90 != 0) {
+      System.out.println("Error: Rotation angle must be a multiple of 90 degrees.");
+      return;
+    }
+    String outputImageName = tokens[3];
+    String imageName = tokens[2];
+
+    if (storeView(imageName, outputImageName, source -> SourceView.rotate(source, degrees / 90))) {
+      return;
+    }
+
+    int[][][] imageFromHashMap = imageMap.get(imageName);
+    if (imageFromHashMap == null) {
+      System.out.println("No image present in storage for this image Name.");
+    } else {
+      int[][][] rotatedArray = imageFilter.rotate(imageFromHashMap, degrees);
+      imageMap.put(outputImageName, rotatedArray);
+    }
+  }
+}
@@ -1,13 +1,13 @@
 package imagecontroller.handlefilters;
 
+import imagecontroller.fileio.HaarFile;
+import imagecontroller.fileio.PpmWriter;
 import imagemodel.ExtendedImageModel;
 import imagemodel.ImageConvert;
+import imagemodel.PixelSource;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Map;
 import javax.imageio.ImageIO;
 
@@ -17,6 +17,8 @@ import javax.imageio.ImageIO;
 public class HandleSave extends HandleConstruct implements HandleInterfaceCommand {
 
   private final ImageConvert imageConvertor = new ImageConvert();
+  private final HaarFile haarFile = new HaarFile();
+  private final PpmWriter ppmWriter = new PpmWriter();
 
   /**
    * Constructs a HandleSave object with the specified ImageModel and image map.
@@ -30,15 +32,34 @@ public class HandleSave extends HandleConstruct implements HandleInterfaceComman
 
   @Override
   public void apply(String[] tokens) {
-    if (tokens.length != 3) {
+    if (tokens.length != 3 && (tokens.length != 4 || !isValidOption(tokens[1], tokens[3]))
+        && (tokens.length != 5 || !tokens[1].endsWith("haar"))) {
       System.out.println("Invalid save command.");
       return;
     }
     String outputPath = tokens[1];
     String imageName = tokens[2];
+    PixelSource source = getSource(imageName);
+    if (source != null && outputPath.endsWith("ppm")) {
+      if (isValidPPMPath(outputPath)) {
+        savePPM(source, outputPath, tokens.length == 4 && tokens[3].equals("P6"));
+      } else {
+        System.out.println("Invalid PPM file path: " + outputPath);
+      }
+      return;
+    }
     int[][][] imageToSave = imageMap.get(imageName);
     if (imageToSave == null) {
       System.out.println("No image present in storage for this image Name.");
+    } else if (outputPath.endsWith("haar")) {
+      saveHaar(imageToSave, outputPath, tokens.length >= 4 ? tokens[3] : "0",
+          tokens.length == 5 ? tokens[4] : String.valueOf(HaarFile.DEFAULT_QUANTIZATION_STEP));
+    } else if (outputPath.endsWith("ppm")) {
+      if (isValidPPMPath(outputPath)) {
+        savePPM(imageToSave, outputPath, tokens.length == 4 && tokens[3].equals("P6"));
+      } else {
+        System.out.println("Invalid PPM file path: " + outputPath);
+      }
     } else {
       BufferedImage imageBuf = imageConvertor.convertToBufferedImage(imageToSave);
       saveImage(imageBuf, outputPath);
@@ -46,7 +67,22 @@ public class HandleSave extends HandleConstruct implements HandleInterfaceComman
   }
 
   /**
-   * Saves the provided BufferedImage to the specified output path, supporting JPG, PNG, and PPM
+   * Checks the optional last token of a save command: the compression percentage for haar files,
+   * or the P3 or P6 format for PPM files.
+   *
+   * @param outputPath The path where the image should be saved.
+   * @param option     The optional token.
+   * @return True if the format of the path takes the option, false otherwise.
+   */
+  private boolean isValidOption(String outputPath, String option) {
+    if (outputPath.endsWith("haar")) {
+      return true;
+    }
+    return outputPath.endsWith("ppm") && (option.equals("P3") || option.equals("P6"));
+  }
+
+  /**
+   * Saves the provided BufferedImage to the specified output path, supporting JPG and PNG
    * formats.
    *
    * @param image      The BufferedImage to be saved.
@@ -58,19 +94,46 @@ public class HandleSave extends HandleConstruct implements HandleInterfaceComman
         ImageIO.write(image, "jpg", new File(outputPath));
       } else if (outputPath.endsWith("png")) {
         ImageIO.write(image, "png", new File(outputPath));
-      } else if (outputPath.endsWith("ppm")) {
-        if (isValidPPMPath(outputPath)) {
-          int[][][] savePPM = imageConvertor.convertToArray(image);
-          savePPM(savePPM, outputPath);
-        } else {
-          System.out.println("Invalid PPM file path: " + outputPath);
-        }
       }
     } catch (IOException e) {
       e.printStackTrace(System.out);
     }
   }
 
+  /**
+   * Saves the coefficients of the image in the compressed haar format, discarding the given
+   * percentage of them first and rounding the others to multiples of the quantization step.
+   *
+   * @param image      The pixel array to be saved.
+   * @param outputPath The path where the haar file should be saved.
+   * @param percentage The compression percentage.
+   * @param step       The quantization step.
+   */
+  private void saveHaar(int[][][] image, String outputPath, String percentage, String step) {
+    int compression;
+    double quantizationStep;
+    try {
+      compression = Integer.parseInt(percentage);
+      if (compression < 0 || compression > 100) {
+        throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
+      }
+      quantizationStep = Double.parseDouble(step);
+      if (!(quantizationStep > 0) || Double.isInfinite(quantizationStep)) {
+        throw new IllegalArgumentException("Quantization step must be a positive number.");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return;
+    }
+    try {
+      haarFile.write(image, compression, quantizationStep, outputPath);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+    } catch (IOException e) {
+      System.out.println("Error saving the haar image to " + outputPath);
+    }
+  }
+
   /**
    * Checks if the given path is a valid PPM file path.
    *
@@ -98,29 +161,27 @@ public class HandleSave extends HandleConstruct implements HandleInterfaceComman
    *
    * @param pixelArray The pixel array to be saved.
    * @param outputPath The path where the PPM image should be saved.
+   * @param binary     True to save a binary P6 file, false for a plain P3 file.
    */
-  private static void savePPM(int[][][] pixelArray, String outputPath) {
-    int height = pixelArray.length;
-    int width = pixelArray[0].length;
-
+  private void savePPM(int[][][] pixelArray, String outputPath, boolean binary) {
     try {
-      PrintWriter writer = new PrintWriter(new FileOutputStream(outputPath));
-
-      writer.println("P3");
-      writer.println(width + " " + height);
-      writer.println("255");
+      ppmWriter.write(pixelArray, outputPath, binary);
+    } catch (IOException e) {
+      System.out.println("Error saving the ppm image to " + outputPath);
+    }
+  }
 
-      for (int[][] ints : pixelArray) {
-        for (int j = 0; j < width; j++) {
-          int r = ints[j][0];
-          int g = ints[j][1];
-          int b = ints[j][2];
-          writer.print(r + " " + g + " " + b + " ");
-        }
-        writer.println();
-      }
-      writer.close();
-    } catch (FileNotFoundException e) {
+  /**
+   * Saves an image stored as a source in PPM format, decoding it one row at a time.
+   *
+   * @param source     The source of the image to be saved.
+   * @param outputPath The path where the PPM image should be saved.
+   * @param binary     True to save a binary P6 file, false for a plain P3 file.
+   */
+  private void savePPM(PixelSource source, String outputPath, boolean binary) {
+    try {
+      ppmWriter.write(source, outputPath, binary);
+    } catch (IOException e) {
       System.out.println("Error saving the ppm image to " + outputPath);
     }
   }
@@ -0,0 +1,44 @@
+package imagemodel;
+
+/**
+ * A {@link PixelSource} reading an image held in the 3D integer array form used by
+ * {@link ImageModel}. The array is not copied and must not be modified while the source is in use.
+ */
+public final class ArraySource implements PixelSource {
+
+  private final int[][][] colorArray;
+
+  /**
+   * Constructs a source over an image array.
+   *
+   * @param colorArray A 3D integer array representing the color image.
+   */
+  public ArraySource(int[][][] colorArray) {
+    this.colorArray = colorArray;
+  }
+
+  @Override
+  public int getWidth() {
+    return colorArray[0].length;
+  }
+
+  @Override
+  public int getHeight() {
+    return colorArray.length;
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return true;
+  }
+
+  @Override
+  public void readRow(int y, int x, int length, int[] dest) {
+    int[][] row = colorArray[y];
+    for (int j = 0; j < length; j++) {
+      int[] pixel = row[x + j];
+      dest[j] = PackedImage.pack(PackedImage.clamp(pixel[0]), PackedImage.clamp(pixel[1]),
+          PackedImage.clamp(pixel[2]));
+    }
+  }
+}
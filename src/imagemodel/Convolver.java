@@ -0,0 +1,441 @@
+package imagemodel;
+
+/**
+ * Applies a square convolution kernel to an image. Every output channel value is the weighted sum
+ * of the neighbouring input values, divided by the divisor and clamped to 0-255. Pixels outside
+ * the image are replaced by the nearest border pixel.
+ *
+ * <p>Two optimizations are applied without changing the result. Kernels that are the outer product
+ * of a column and a row vector, such as the Gaussian blur kernel, are applied as a horizontal and
+ * a vertical 1D pass. Interior pixels, whose neighbourhood lies entirely inside the image, are
+ * computed without any index clamping; only the border is handled by the clamping path. All sums
+ * are computed in integer arithmetic, so the output is identical to the direct 2D loop.
+ */
+public class Convolver {
+
+  private final int size;
+  private final int half;
+  private final int[] weights;
+  private final int divisor;
+  private final int[] columnWeights;
+  private final int[] rowWeights;
+
+  /**
+   * Constructs a convolver that divides by the sum of the kernel, or by 1 if the sum is zero.
+   *
+   * @param kernel the square kernel with an odd size.
+   * @throws IllegalArgumentException if the kernel is not square or its size is even.
+   */
+  public Convolver(int[][] kernel) {
+    this(kernel, kernelSum(kernel));
+  }
+
+  /**
+   * Constructs a convolver with an explicit divisor.
+   *
+   * @param kernel  the square kernel with an odd size.
+   * @param divisor the value every weighted sum is divided by.
+   * @throws IllegalArgumentException if the kernel is not square, its size is even or the divisor
+   *                                  is zero.
+   */
+  public Convolver(int[][] kernel, int divisor) {
+    validate(kernel);
+    if (divisor == 0) {
+      throw new IllegalArgumentException("Kernel divisor must not be zero.");
+    }
+    this.size = kernel.length;
+    this.half = size / 2;
+    this.divisor = divisor;
+    this.weights = new int[size * size];
+    for (int x = 0; x < size; x++) {
+      System.arraycopy(kernel[x], 0, weights, x * size, size);
+    }
+
+    int[][] factors = factorize(kernel);
+    this.columnWeights = factors == null ? null : factors[0];
+    this.rowWeights = factors == null ? null : factors[1];
+  }
+
+  /**
+   * Checks that a kernel is a non-empty square with an odd size.
+   *
+   * @param kernel the kernel to check.
+   */
+  private static void validate(int[][] kernel) {
+    if (kernel == null || kernel.length == 0 || kernel.length % 2 == 0) {
+      throw new IllegalArgumentException("Kernel size must be odd.");
+    }
+    for (int[] row : kernel) {
+      if (row == null || row.length != kernel.length) {
+        throw new IllegalArgumentException("Kernel must be square.");
+      }
+    }
+  }
+
+  /**
+   * Calculates the sum of all elements in a kernel, using 1 in place of a zero sum.
+   *
+   * @param kernel the 2D array representing the kernel.
+   * @return the divisor used for the kernel.
+   */
+  public static int kernelSum(int[][] kernel) {
+    validate(kernel);
+    int sum = 0;
+    for (int[] ints : kernel) {
+      for (int anInt : ints) {
+        sum += anInt;
+      }
+    }
+    return (sum == 0) ? 1 : sum;
+  }
+
+  /**
+   * Splits a kernel into integer column and row vectors whose outer product is the kernel.
+   *
+   * @param kernel the kernel to split.
+   * @return the column vector and the row vector, or null if the kernel is not separable.
+   */
+  private static int[][] factorize(int[][] kernel) {
+    int n = kernel.length;
+    int pivot = -1;
+    for (int x = 0; x < n && pivot < 0; x++) {
+      for (int y = 0; y < n; y++) {
+        if (kernel[x][y] != 0) {
+          pivot = x;
+          break;
+        }
+      }
+    }
+    int[] column = new int[n];
+    int[] row = new int[n];
+    if (pivot < 0) {
+      return new int[][]{column, row};
+    }
+
+    // The row vector is the first non-zero kernel row divided by the gcd of its entries, so any
+    // other row that is a multiple of it is an integer multiple.
+    int gcd = 0;
+    for (int y = 0; y < n; y++) {
+      gcd = gcd(gcd, Math.abs(kernel[pivot][y]));
+    }
+    int anchor = -1;
+    for (int y = 0; y < n; y++) {
+      row[y] = kernel[pivot][y] / gcd;
+      if (anchor < 0 && row[y] != 0) {
+        anchor = y;
+      }
+    }
+    for (int x = 0; x < n; x++) {
+      if (kernel[x][anchor] % row[anchor] != 0) {
+        return null;
+      }
+      column[x] = kernel[x][anchor] / row[anchor];
+      for (int y = 0; y < n; y++) {
+        if ((long) column[x] * row[y] != kernel[x][y]) {
+          return null;
+        }
+      }
+    }
+    return new int[][]{column, row};
+  }
+
+  /**
+   * Computes the greatest common divisor of two non-negative integers.
+   *
+   * @param a the first value.
+   * @param b the second value.
+   * @return the greatest common divisor.
+   */
+  private static int gcd(int a, int b) {
+    while (b != 0) {
+      int t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+  /**
+   * Returns whether the kernel is applied as two 1D passes.
+   *
+   * @return true if the kernel is separable.
+   */
+  public boolean isSeparable() {
+    return rowWeights != null;
+  }
+
+  /**
+   * Returns the size of the kernel.
+   *
+   * @return the number of rows and columns of the kernel.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Convolves an image in 3D array form.
+   *
+   * @param colorArray A 3D integer array representing the color image.
+   * @param executor   the executor used to process rows in parallel.
+   * @return A 3D integer array representing the filtered image.
+   */
+  public int[][][] apply(int[][][] colorArray, RowBandExecutor executor) {
+    int height = colorArray.length;
+    int width = colorArray[0].length;
+    int[][] planes = new int[3][height * width];
+
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int index = i * width;
+        for (int j = 0; j < width; j++) {
+          int[] pixel = colorArray[i][j];
+          planes[0][index + j] = pixel[0];
+          planes[1][index + j] = pixel[1];
+          planes[2][index + j] = pixel[2];
+        }
+      }
+    });
+
+    int[][] filtered = convolvePlanes(planes, width, height, executor);
+    int[][][] filteredArray = new int[height][][];
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int index = i * width;
+        filteredArray[i] = new int[width][3];
+        for (int j = 0; j < width; j++) {
+          filteredArray[i][j][0] = filtered[0][index + j];
+          filteredArray[i][j][1] = filtered[1][index + j];
+          filteredArray[i][j][2] = filtered[2][index + j];
+        }
+      }
+    });
+    return filteredArray;
+  }
+
+  /**
+   * Convolves a packed image.
+   *
+   * @param image    the packed color image.
+   * @param executor the executor used to process rows in parallel.
+   * @return the filtered image.
+   */
+  public PackedImage apply(PackedImage image, RowBandExecutor executor) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] source = image.getPixels();
+    int[][] planes = new int[3][height * width];
+
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int sourceIndex = image.indexOf(0, i);
+        int index = i * width;
+        for (int j = 0; j < width; j++) {
+          int rgb = source[sourceIndex + j];
+          planes[0][index + j] = PackedImage.red(rgb);
+          planes[1][index + j] = PackedImage.green(rgb);
+          planes[2][index + j] = PackedImage.blue(rgb);
+        }
+      }
+    });
+
+    int[][] filtered = convolvePlanes(planes, width, height, executor);
+    PackedImage result = new PackedImage(width, height);
+    int[] target = result.getPixels();
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int index = startRow * width; index < endRow * width; index++) {
+        target[index] = PackedImage.pack(filtered[0][index], filtered[1][index],
+            filtered[2][index]);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Convolves three channel planes, dividing and clamping the sums.
+   *
+   * @param planes   the red, green and blue planes, each holding one value per pixel.
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param executor the executor used to process rows in parallel.
+   * @return the filtered planes, in the range 0-255.
+   */
+  private int[][] convolvePlanes(int[][] planes, int width, int height,
+      RowBandExecutor executor) {
+    int[][] result = new int[3][];
+    for (int c = 0; c < 3; c++) {
+      int[] plane = planes[c];
+      int[] sums;
+      if (isSeparable()) {
+        int[] horizontal = new int[width * height];
+        executor.forEachBand(height, width,
+            (startRow, endRow) -> horizontalPass(plane, horizontal, width, startRow, endRow));
+        // The source plane is no longer needed, so the vertical pass writes into it.
+        sums = plane;
+        executor.forEachBand(height, width,
+            (startRow, endRow) -> verticalPass(horizontal, sums, width, height, startRow,
+                endRow));
+      } else {
+        sums = new int[width * height];
+        executor.forEachBand(height, width,
+            (startRow, endRow) -> fullPass(plane, sums, width, height, startRow, endRow));
+      }
+      executor.forEachBand(height, width, (startRow, endRow) -> {
+        for (int index = startRow * width; index < endRow * width; index++) {
+          sums[index] = Math.min(255, Math.max(0, sums[index] / divisor));
+        }
+      });
+      result[c] = sums;
+    }
+    return result;
+  }
+
+  /**
+   * Applies the row vector of a separable kernel along each row.
+   *
+   * @param source   the input plane.
+   * @param target   the plane receiving the unnormalized sums.
+   * @param width    the width of the image.
+   * @param startRow the first row to process.
+   * @param endRow   the row after the last row to process.
+   */
+  private void horizontalPass(int[] source, int[] target, int width, int startRow,
+      int endRow) {
+    int interiorStart = Math.min(half, width);
+    int interiorEnd = Math.max(interiorStart, width - half);
+    for (int i = startRow; i < endRow; i++) {
+      int rowIndex = i * width;
+      for (int j = 0; j < interiorStart; j++) {
+        target[rowIndex + j] = clampedRowSum(source, rowIndex, j, width);
+      }
+      for (int j = interiorStart; j < interiorEnd; j++) {
+        int sum = 0;
+        int base = rowIndex + j - half;
+        for (int y = 0; y < size; y++) {
+          sum += rowWeights[y] * source[base + y];
+        }
+        target[rowIndex + j] = sum;
+      }
+      for (int j = interiorEnd; j < width; j++) {
+        target[rowIndex + j] = clampedRowSum(source, rowIndex, j, width);
+      }
+    }
+  }
+
+  /**
+   * Computes the horizontal sum for a pixel near the left or right border.
+   *
+   * @param source   the input plane.
+   * @param rowIndex the index of the first pixel of the row.
+   * @param column   the column of the pixel.
+   * @param width    the width of the image.
+   * @return the weighted sum.
+   */
+  private int clampedRowSum(int[] source, int rowIndex, int column, int width) {
+    int sum = 0;
+    for (int y = 0; y < size; y++) {
+      int neighbor = Math.max(0, Math.min(column + y - half, width - 1));
+      sum += rowWeights[y] * source[rowIndex + neighbor];
+    }
+    return sum;
+  }
+
+  /**
+   * Applies the column vector of a separable kernel along each column.
+   *
+   * @param source   the plane holding the horizontal sums.
+   * @param target   the plane receiving the unnormalized sums.
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param startRow the first row to process.
+   * @param endRow   the row after the last row to process.
+   */
+  private void verticalPass(int[] source, int[] target, int width, int height, int startRow,
+      int endRow) {
+    for (int i = startRow; i < endRow; i++) {
+      int rowIndex = i * width;
+      if (i >= half && i < height - half) {
+        int base = (i - half) * width;
+        for (int j = 0; j < width; j++) {
+          int sum = 0;
+          int index = base + j;
+          for (int x = 0; x < size; x++) {
+            sum += columnWeights[x] * source[index];
+            index += width;
+          }
+          target[rowIndex + j] = sum;
+        }
+      } else {
+        for (int j = 0; j < width; j++) {
+          int sum = 0;
+          for (int x = 0; x < size; x++) {
+            int neighbor = Math.max(0, Math.min(i + x - half, height - 1));
+            sum += columnWeights[x] * source[neighbor * width + j];
+          }
+          target[rowIndex + j] = sum;
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies a non-separable kernel directly.
+   *
+   * @param source   the input plane.
+   * @param target   the plane receiving the unnormalized sums.
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param startRow the first row to process.
+   * @param endRow   the row after the last row to process.
+   */
+  private void fullPass(int[] source, int[] target, int width, int height, int startRow,
+      int endRow) {
+    int[] offsets = new int[size * size];
+    for (int x = 0; x < size; x++) {
+      for (int y = 0; y < size; y++) {
+        offsets[x * size + y] = (x - half) * width + (y - half);
+      }
+    }
+    int interiorStart = Math.min(half, width);
+    int interiorEnd = Math.max(interiorStart, width - half);
+
+    for (int i = startRow; i < endRow; i++) {
+      int rowIndex = i * width;
+      boolean interiorRow = i >= half && i < height - half;
+      for (int j = 0; j < width; j++) {
+        if (interiorRow && j >= interiorStart && j < interiorEnd) {
+          int center = rowIndex + j;
+          int sum = 0;
+          for (int k = 0; k < offsets.length; k++) {
+            sum += weights[k] * source[center + offsets[k]];
+          }
+          target[center] = sum;
+        } else {
+          target[rowIndex + j] = clampedSum(source, i, j, width, height);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the 2D sum for a pixel near the border of the image.
+   *
+   * @param source the input plane.
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the weighted sum.
+   */
+  private int clampedSum(int[] source, int row, int column, int width, int height) {
+    int sum = 0;
+    for (int x = 0; x < size; x++) {
+      int neighborX = Math.max(0, Math.min(row + x - half, height - 1));
+      for (int y = 0; y < size; y++) {
+        int neighborY = Math.max(0, Math.min(column + y - half, width - 1));
+        sum += weights[x * size + y] * source[neighborX * width + neighborY];
+      }
+    }
+    return sum;
+  }
+}
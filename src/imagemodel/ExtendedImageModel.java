@@ -104,4 +104,110 @@ public interface ExtendedImageModel extends ImageModel {
    * @return The processed color array.
    */
   int[][][] splitGrayscaleImage(int[][][] colorArray, int splitPercentage);
+
+  /**
+   * Convolves the image with a user-defined kernel. Every channel value becomes the weighted sum
+   * of its neighbourhood divided by the divisor, clamped to 0-255.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param kernel     The square kernel with an odd size.
+   * @param divisor    The value every weighted sum is divided by.
+   * @return The processed color array.
+   */
+  int[][][] convolve(int[][][] colorArray, int[][] kernel, int divisor);
+
+  /**
+   * Splits and convolves the specified portion of the input color array with a user-defined
+   * kernel.
+   *
+   * @param colorArray      The input color array representing the image.
+   * @param kernel          The square kernel with an odd size.
+   * @param divisor         The value every weighted sum is divided by.
+   * @param splitPercentage The percentage of the image width at which to split and apply the
+   *                        effect.
+   * @return The processed color array.
+   */
+  int[][][] splitConvolveImage(int[][][] colorArray, int[][] kernel, int divisor,
+      int splitPercentage);
+
+  /**
+   * Crops a rectangular region out of the image.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param x          The first column of the region.
+   * @param y          The first row of the region.
+   * @param width      The width of the region.
+   * @param height     The height of the region.
+   * @return The cropped color array.
+   */
+  int[][][] crop(int[][][] colorArray, int x, int y, int width, int height);
+
+  /**
+   * Rotates the image clockwise by a multiple of 90 degrees.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param degrees    The angle of the rotation; negative angles rotate counterclockwise.
+   * @return The rotated color array.
+   */
+  int[][][] rotate(int[][][] colorArray, int degrees);
+
+  /**
+   * Scales the image down to fit within a size, keeping its aspect ratio, by averaging the pixels
+   * covered by each new pixel. An image that already fits is returned as it is.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param maxWidth   The largest width of the result.
+   * @param maxHeight  The largest height of the result.
+   * @return The downscaled color array, or the input if it fits.
+   */
+  int[][][] downscale(int[][][] colorArray, int maxWidth, int maxHeight);
+
+  /**
+   * Generates the histogram of an image that is decoded row by row, without holding the whole
+   * image in memory.
+   *
+   * @param source The source of the image.
+   * @return The histogram of the image.
+   */
+  int[][] generateHistogram(PixelSource source);
+
+  /**
+   * Maps every channel value of the image through a tone curve.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param curve      The tone curve.
+   * @return The mapped color array.
+   */
+  int[][][] applyToneCurve(int[][][] colorArray, ToneCurve curve);
+
+  /**
+   * Applies a tone curve to a split portion of the image.
+   *
+   * @param colorArray      The input color array representing the image.
+   * @param curve           The tone curve.
+   * @param splitPercentage The percentage of the image width at which to split and apply the
+   *                        effect.
+   * @return The color array after applying the curve to the split part.
+   */
+  int[][][] splitToneCurveImage(int[][][] colorArray, ToneCurve curve, int splitPercentage);
+
+  /**
+   * Transforms the color of every pixel of the image with a color matrix.
+   *
+   * @param colorArray The input color array representing the image.
+   * @param matrix     The color matrix.
+   * @return The transformed color array.
+   */
+  int[][][] applyColorMatrix(int[][][] colorArray, ColorMatrix matrix);
+
+  /**
+   * Applies a color matrix to a split portion of the image.
+   *
+   * @param colorArray      The input color array representing the image.
+   * @param matrix          The color matrix.
+   * @param splitPercentage The percentage of the image width at which to split and apply the
+   *                        effect.
+   * @return The color array after applying the matrix to the split part.
+   */
+  int[][][] splitColorMatrixImage(int[][][] colorArray, ColorMatrix matrix, int splitPercentage);
 }
@@ -1,8 +1,6 @@
 package imagemodel;
 
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -10,6 +8,26 @@ import java.util.function.Function;
  */
 public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedImageModel {
 
+  private final HistogramEngine histogramEngine;
+
+  /**
+   * Constructs a model that runs its filters on the shared {@link RowBandExecutor}.
+   */
+  public ExtendedImageModelImpl() {
+    super();
+    histogramEngine = new HistogramEngine(executor);
+  }
+
+  /**
+   * Constructs a model that runs its filters on the given executor.
+   *
+   * @param executor the executor used to process image rows in parallel.
+   */
+  public ExtendedImageModelImpl(RowBandExecutor executor) {
+    super(executor);
+    histogramEngine = new HistogramEngine(executor);
+  }
+
   @Override
   public int[][][] splitBlurImage(int[][][] colorArray, int splitPercentage) {
     return splitAndProcessImage(colorArray, splitPercentage, this::blurImage);
@@ -41,6 +59,135 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
     return splitAndProcessImage(colorArray, splitPercentage, this::calculateLuma);
   }
 
+  @Override
+  public int[][][] splitConvolveImage(int[][][] colorArray, int[][] kernel, int divisor,
+      int splitPercentage) {
+    return splitAndProcessImage(colorArray, splitPercentage,
+        xi -> convolve(xi, kernel, divisor));
+  }
+
+  @Override
+  public int[][][] convolve(int[][][] colorArray, int[][] kernel, int divisor) {
+    Convolver convolver;
+    try {
+      convolver = new Convolver(kernel, divisor);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
+    }
+    return convolver.apply(colorArray, executor);
+  }
+
+  @Override
+  public int[][][] crop(int[][][] colorArray, int x, int y, int width, int height) {
+    try {
+      if (x < 0 || y < 0 || width <= 0 || height <= 0
+          || (long) x + width > colorArray[0].length || (long) y + height > colorArray.length) {
+        throw new IllegalArgumentException("Crop region must lie inside the image.");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
+    }
+    int[][][] croppedArray = new int[height][width][];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        croppedArray[i][j] = colorArray[y + i][x + j].clone();
+      }
+    }
+    return croppedArray;
+  }
+
+  @Override
+  public int[][][] rotate(int[][][] colorArray, int degrees) {
+    try {
+      if (degrees % 90 != 0) {
+        throw new IllegalArgumentException("Rotation angle must be a multiple of 90 degrees.");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
+    }
+    return SourceView.rotate(new ArraySource(colorArray), degrees / 90).toArray();
+  }
+
+  @Override
+  public int[][][] downscale(int[][][] colorArray, int maxWidth, int maxHeight) {
+    if (maxWidth <= 0 || maxHeight <= 0) {
+      throw new IllegalArgumentException("The size of a downscaled image must be positive.");
+    }
+    int height = colorArray.length;
+    int width = colorArray[0].length;
+    if (width <= maxWidth && height <= maxHeight) {
+      return colorArray;
+    }
+    double scale = Math.min((double) maxWidth / width, (double) maxHeight / height);
+    int newWidth = Math.max(1, (int) (width * scale));
+    int newHeight = Math.max(1, (int) (height * scale));
+
+    // Each new pixel averages the columns from columnStart[x] up to columnStart[x + 1].
+    int[] columnStart = new int[newWidth + 1];
+    for (int x = 0; x <= newWidth; x++) {
+      columnStart[x] = (int) ((long) width * x / newWidth);
+    }
+    int[][][] result = new int[newHeight][][];
+
+    executor.forEachBand(newHeight, width, (startRow, endRow) -> {
+      long[] sums = new long[3 * newWidth];
+      for (int i = startRow; i < endRow; i++) {
+        int top = (int) ((long) height * i / newHeight);
+        int bottom = (int) ((long) height * (i + 1) / newHeight);
+        Arrays.fill(sums, 0);
+        for (int y = top; y < bottom; y++) {
+          int[][] source = colorArray[y];
+          for (int x = 0; x < newWidth; x++) {
+            for (int j = columnStart[x]; j < columnStart[x + 1]; j++) {
+              sums[3 * x] += PackedImage.clamp(source[j][0]);
+              sums[3 * x + 1] += PackedImage.clamp(source[j][1]);
+              sums[3 * x + 2] += PackedImage.clamp(source[j][2]);
+            }
+          }
+        }
+        int[][] row = new int[newWidth][3];
+        for (int x = 0; x < newWidth; x++) {
+          long count = (long) (bottom - top) * (columnStart[x + 1] - columnStart[x]);
+          for (int c = 0; c < 3; c++) {
+            row[x][c] = (int) ((sums[3 * x + c] + count / 2) / count);
+          }
+        }
+        result[i] = row;
+      }
+    });
+    return result;
+  }
+
+  @Override
+  public int[][] generateHistogram(PixelSource source) {
+    return histogramEngine.histograms(source);
+  }
+
+  @Override
+  public int[][][] applyToneCurve(int[][][] colorArray, ToneCurve curve) {
+    return curve.apply(colorArray, executor);
+  }
+
+  @Override
+  public int[][][] splitToneCurveImage(int[][][] colorArray, ToneCurve curve,
+      int splitPercentage) {
+    return splitAndProcessImage(colorArray, splitPercentage, xi -> applyToneCurve(xi, curve));
+  }
+
+  @Override
+  public int[][][] applyColorMatrix(int[][][] colorArray, ColorMatrix matrix) {
+    return matrix.apply(colorArray, executor);
+  }
+
+  @Override
+  public int[][][] splitColorMatrixImage(int[][][] colorArray, ColorMatrix matrix,
+      int splitPercentage) {
+    return splitAndProcessImage(colorArray, splitPercentage, xi -> applyColorMatrix(xi, matrix));
+  }
+
   /**
    * Splits the input color array, applies an image processing function to one part, and combines it
    * with the original array.
@@ -69,7 +216,8 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
 
     int[][][] leftPart = imageProcessor.apply(xi);
 
-    int[][][] combinedArray = new int[height][width][3];
+    // The rows hold the pixels of both parts, so only the rows are allocated.
+    int[][][] combinedArray = new int[height][width][];
     for (int i = 0; i < height; i++) {
       System.arraycopy(leftPart[i], 0, combinedArray[i], 0, splitPosition);
       System.arraycopy(colorArray[i], splitPosition, combinedArray[i], splitPosition,
@@ -79,7 +227,8 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
   }
 
   /**
-   * Retrieves a specific portion of the original color array up to the specified end column.
+   * Retrieves a specific portion of the original color array up to the specified end column. The
+   * portion shares its pixels with the original array.
    *
    * @param originalArray The original color array representing the image.
    * @param endCol        The ending column index up to which the portion is retrieved.
@@ -87,22 +236,16 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
    */
   private int[][][] getPart(int[][][] originalArray, int endCol) {
     int height = originalArray.length;
-    int[][][] partArray = new int[height][endCol][3];
+    int[][][] partArray = new int[height][][];
 
     for (int i = 0; i < height; i++) {
-      System.arraycopy(originalArray[i], 0, partArray[i], 0, endCol);
+      partArray[i] = Arrays.copyOf(originalArray[i], endCol);
     }
     return partArray;
   }
 
   @Override
   public int[][][] compress(int[][][] image, int threshold) {
-    int height = image.length;
-    int width = image[0].length;
-    int channels = image[0][0].length;
-    int targetSize = calculateTargetSize(Math.max(height, width));
-    int[][][] compressedImage = new int[height][width][channels];
-
     try {
       if (threshold < 0 || threshold > 100) {
         throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
@@ -111,265 +254,234 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
       System.out.println("Error: " + e.getMessage());
       return null;
     }
+    return new HaarCompressor(HaarCompressor.Padding.SQUARE, executor).compress(image, threshold);
+  }
 
-    double[][][] transformedImage = new double[channels][height][width];
-    for (int c = 0; c < channels; c++) {
-      int[][] channel = new int[height][width];
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          channel[i][j] = image[i][j][c];
-        }
+  @Override
+  public int[][][] adjustLevel(int[][][] colorArray, int b, int m, int w) {
+    try {
+      if (!(b >= 0 && b <= m && m <= w && w <= 255)) {
+        throw new IllegalArgumentException(
+            "Values b, m, and w must be in ascending order and within the range of 0 to 255.");
       }
-      double[][] paddedChannel = padWithZeros(channel, targetSize);
-      double[][] transformedChannel = applyHaarWaveletTransform(paddedChannel);
-
-      transformedImage[c] = transformedChannel;
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
     }
+    return ToneCurve.adjustLevel(b, m, w).apply(colorArray, executor);
+  }
 
-    double compressionThreshold = calculateThreshold(transformedImage, threshold);
+  @Override
+  public int[][][] colorCorrect(int[][][] colorArray) {
+    int[][] histograms = histogramEngine.histograms(colorArray);
 
-    for (int c = 0; c < channels; c++) {
-      double[][] transformedChannel = transformedImage[c];
-      for (int i = 0; i < transformedChannel.length; i++) {
-        for (int j = 0; j < transformedChannel[0].length; j++) {
-          if (Math.abs(transformedChannel[i][j]) < compressionThreshold) {
-            transformedChannel[i][j] = 0;
-          }
-        }
-      }
-      double[][] invertedChannel = invertHaarWaveletTransform(transformedChannel);
-      int numRows = invertedChannel.length;
-      int numCols = invertedChannel[0].length;
-      int[][] roundedValues = new int[numRows][numCols];
-      for (int i = 0; i < numRows; i++) {
-        for (int j = 0; j < numCols; j++) {
-          roundedValues[i][j] = (int) Math.round(invertedChannel[i][j]);
-        }
-      }
-      int[][] originalChannel = removePadding(roundedValues, height, width);
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          originalChannel[i][j] = Math.max(0, Math.min(255, originalChannel[i][j]));
-          compressedImage[i][j][c] = originalChannel[i][j];
-        }
-      }
-    }
-    return compressedImage;
+    int redPeak = findMeaningfulPeak(histograms[0]);
+    int greenPeak = findMeaningfulPeak(histograms[1]);
+    int bluePeak = findMeaningfulPeak(histograms[2]);
+
+    int averagePeak = (redPeak + greenPeak + bluePeak) / 3;
+
+    int redOffset = averagePeak - redPeak;
+    int greenOffset = averagePeak - greenPeak;
+    int blueOffset = averagePeak - bluePeak;
+
+    return ToneCurve.offsets(redOffset, greenOffset, blueOffset).apply(colorArray, executor);
   }
 
   /**
-   * Applies the Haar wavelet transform to the given image.
+   * Finds and returns the peak position within the meaningful range (10 to 245) of the given
+   * histogram.
    *
-   * @param image The input image to which the Haar wavelet transform is applied.
-   * @return The image after applying the Haar wavelet transform.
+   * @param histogram The input histogram array representing frequency distribution.
+   * @return The position of the peak within the meaningful range.
    */
-  private double[][] applyHaarWaveletTransform(double[][] image) {
-    int length = image.length;
-    while (length > 1) {
-      for (int i = 0; i < length; i++) {
-        image[i] = applyHaarOperation(image[i]);
-      }
-      for (int j = 0; j < length; j++) {
-        double[] column = new double[length];
-        for (int i = 0; i < length; i++) {
-          column[i] = image[i][j];
-        }
-        double[] transformedColumn = applyHaarOperation(column);
-        for (int i = 0; i < length; i++) {
-          image[i][j] = transformedColumn[i];
-        }
+  private int findMeaningfulPeak(int[] histogram) {
+    // Find and return the peak position based on meaningful range (10 to 245)
+    int peakPosition = 0;
+    int maxFrequency = 0;
+
+    for (int i = 10; i <= 245; i++) {
+      if (histogram[i] > maxFrequency) {
+        peakPosition = i;
+        maxFrequency = histogram[i];
       }
-      length /= 2;
     }
-    return image;
+    return peakPosition;
+  }
+
+  @Override
+  public int[][] generateHistogram(int[][][] colorArray) {
+    return histogramEngine.histograms(colorArray);
   }
 
   /**
-   * Applies the Haar operation to the given data array.
+   * Generates a histogram for the specified color component of the given color array.
    *
-   * @param data The input data array to which the Haar operation is applied.
-   * @return The array after applying the Haar operation.
+   * @param colorArray The input color array for which the histogram is generated.
+   * @param component  The color component for which the histogram is generated (0 for red, 1 for
+   *                   green, 2 for blue).
+   * @return The histogram for the specified color component.
    */
-  private double[] applyHaarOperation(double[] data) {
-    int length = data.length;
-    int halfLength = length / 2;
-    double[] transformedData = new double[length];
-
-    for (int i = 0; i < halfLength; i++) {
-      double a = data[2 * i];
-      double b = data[2 * i + 1];
-      transformedData[i] = (a + b) / Math.sqrt(2);
-      transformedData[i + halfLength] = ((a - b) / Math.sqrt(2));
-    }
-    return transformedData;
+  public int[] generateComponentHistogram(int[][][] colorArray, int component) {
+    return histogramEngine.histograms(colorArray)[component];
   }
 
   /**
-   * Inverts the Haar wavelet transform on the transformed image.
+   * Splits a packed image, applies an image processing function to the part left of the split
+   * and combines the result with the untouched right part.
    *
-   * @param transformedImage The input image after Haar wavelet transform.
-   * @return The image after inverting the Haar wavelet transform.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split and apply the
+   *                        effect.
+   * @param imageProcessor  The image processing function to be applied to the split part.
+   * @return the combined image, or null if the split percentage is invalid.
    */
-  private double[][] invertHaarWaveletTransform(double[][] transformedImage) {
-    int length = transformedImage.length;
-    int c = 2;
-    while (c <= length) {
-      for (int j = 0; j < c; j++) {
-        double[] column = new double[c];
-        for (int i = 0; i < c; i++) {
-          column[i] = transformedImage[i][j];
-        }
-        double[] originalColumn = invertHaarOperation(column);
-        for (int i = 0; i < c; i++) {
-          transformedImage[i][j] = originalColumn[i];
-        }
-      }
-      for (int i = 0; i < c; i++) {
-        transformedImage[i] = invertHaarOperation(transformedImage[i]);
+  public PackedImage splitAndProcessImage(PackedImage image, int splitPercentage,
+      Function<PackedImage, PackedImage> imageProcessor) {
+    try {
+      if (splitPercentage < 0 || splitPercentage > 100) {
+        throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
       }
-      c *= 2;
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
+    }
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int splitPosition = (int) (width * (splitPercentage / 100.0));
+
+    PackedImage combined = image.copy();
+    if (splitPosition == 0) {
+      return combined;
+    }
+    PackedImage leftPart = imageProcessor.apply(
+        new PackedImage(splitPosition, height, image.getPixels(), image.getStride(),
+            image.getOffset()).copy());
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(leftPart.getPixels(), leftPart.indexOf(0, i), combined.getPixels(),
+          i * width, splitPosition);
     }
-    return transformedImage;
+    return combined;
   }
 
   /**
-   * Inverts the Haar operation on the transformed data array.
+   * Splits and applies a blur effect to a packed image.
    *
-   * @param transformedData The input data array after Haar operation.
-   * @return The array after inverting the Haar operation.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
    */
-  private double[] invertHaarOperation(double[] transformedData) {
-    int length = transformedData.length;
-    int halfLength = length / 2;
-    double[] originalData = new double[length];
-
-    for (int i = 0; i < halfLength; i++) {
-      double a = transformedData[i];
-      double b = transformedData[i + halfLength];
-      originalData[2 * i] = (a + b) / Math.sqrt(2);
-      originalData[2 * i + 1] = (a - b) / Math.sqrt(2);
-    }
-    return originalData;
+  public PackedImage splitBlurImage(PackedImage image, int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, this::blurImage);
   }
 
   /**
-   * Calculates the target size for padding based on the input size.
+   * Splits and applies a sharpening effect to a packed image.
    *
-   * @param size The input size for which the target size is calculated.
-   * @return The target size for padding.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
    */
-  private int calculateTargetSize(int size) {
-    int targetSize = 1;
-    while (targetSize < size) {
-      targetSize *= 2;
-    }
-    return targetSize;
+  public PackedImage splitSharpenImage(PackedImage image, int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, this::sharpenImage);
   }
 
   /**
-   * Pads the input array with zeros to the target size.
+   * Splits and applies a sepia tone effect to a packed image.
    *
-   * @param input      The input array to be padded.
-   * @param targetSize The target size for padding.
-   * @return The padded array.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
    */
-  private double[][] padWithZeros(int[][] input, int targetSize) {
-    int height = input.length;
-    int width = input[0].length;
-    double[][] paddedArray = new double[targetSize][targetSize];
-
-    for (int i = 0; i < targetSize; i++) {
-      for (int j = 0; j < targetSize; j++) {
-        if (i < height && j < width) {
-          paddedArray[i][j] = input[i][j];
-        } else {
-          paddedArray[i][j] = 0;
-        }
-      }
-    }
-    return paddedArray;
+  public PackedImage splitSepiaImage(PackedImage image, int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, this::convertToSepia);
   }
 
   /**
-   * Removes padding from the input array to the original size.
+   * Splits and applies color correction to a packed image.
    *
-   * @param input          The input array with padding.
-   * @param originalHeight The original height of the array before padding.
-   * @param originalWidth  The original width of the array before padding.
-   * @return The array without padding.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
    */
-  private int[][] removePadding(int[][] input, int originalHeight, int originalWidth) {
-    int[][] originalArray = new int[originalHeight][originalWidth];
+  public PackedImage splitColorCorrectionImage(PackedImage image, int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, this::colorCorrect);
+  }
 
-    for (int i = 0; i < originalHeight; i++) {
-      System.arraycopy(input[i], 0, originalArray[i], 0, originalWidth);
-    }
-    return originalArray;
+  /**
+   * Splits and adjusts the levels of a packed image.
+   *
+   * @param image           the packed color image.
+   * @param b               The black point.
+   * @param m               The mid point.
+   * @param w               The white point.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
+   */
+  public PackedImage splitLevelAdjustImage(PackedImage image, int b, int m, int w,
+      int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, xi -> adjustLevel(xi, b, m, w));
   }
 
   /**
-   * Calculates the threshold for compression based on the image and compression percentage.
+   * Splits and converts a packed image to grayscale.
    *
-   * @param image                 The input image for which the threshold is calculated.
-   * @param compressionPercentage The compression percentage used to determine the threshold.
-   * @return The calculated threshold for compression.
+   * @param image           the packed color image.
+   * @param splitPercentage The percentage of the image width at which to split.
+   * @return The processed image.
    */
-  private double calculateThreshold(double[][][] image, int compressionPercentage) {
-
-    double[][] flattenedChannel = new double[3][image[0].length * image[0][0].length];
-
-    for (int c = 0; c < 3; c++) {
-      int index = 0;
-      double[][] channel = image[c];
-      for (double[] doubles : channel) {
-        for (int j = 0; j < channel[0].length; j++) {
-          double value = doubles[j];
-          flattenedChannel[c][index] = value;
-          index++;
-        }
-      }
-    }
+  public PackedImage splitGrayscaleImage(PackedImage image, int splitPercentage) {
+    return splitAndProcessImage(image, splitPercentage, this::calculateLuma);
+  }
 
-    double[] finalflattenedchannel = new double[flattenedChannel.length
-        * flattenedChannel[0].length];
-    int index = 0;
-    for (double[] doubles : flattenedChannel) {
-      for (int j = 0; j < flattenedChannel[0].length; j++) {
-        double value = doubles[j];
-        finalflattenedchannel[index] = value;
-        index++;
-      }
+  /**
+   * Convolves a packed image with a user-defined kernel.
+   *
+   * @param image   the packed color image.
+   * @param kernel  The square kernel with an odd size.
+   * @param divisor The value every weighted sum is divided by.
+   * @return The processed image, or null if the kernel is invalid.
+   */
+  public PackedImage convolve(PackedImage image, int[][] kernel, int divisor) {
+    Convolver convolver;
+    try {
+      convolver = new Convolver(kernel, divisor);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
     }
-
-    double[] sortedChannel = Arrays.copyOf(finalflattenedchannel, finalflattenedchannel.length);
-    Arrays.sort(sortedChannel);
-    double[] sortedChannelAbs = getUniqueAbsoluteValues(sortedChannel);
-    Arrays.sort(sortedChannelAbs);
-    int thresholdIndex = (int) ((compressionPercentage) / 100.0 * sortedChannelAbs.length);
-    return Math.abs(sortedChannelAbs[thresholdIndex]);
+    return convolver.apply(image, executor);
   }
 
   /**
-   * Retrieves unique absolute values from the sorted array.
+   * Compresses a packed image using the specified percentage.
    *
-   * @param sortedArray The sorted array from which unique absolute values are retrieved.
-   * @return An array containing unique absolute values.
+   * @param image     the packed color image.
+   * @param threshold The compression percentage.
+   * @return The compressed image, or null if the percentage is invalid.
    */
-  private double[] getUniqueAbsoluteValues(double[] sortedArray) {
-    Set<Double> uniqueAbsValuesSet = new HashSet<>();
-    for (double value : sortedArray) {
-      uniqueAbsValuesSet.add(Math.abs(value));
+  public PackedImage compress(PackedImage image, int threshold) {
+    try {
+      if (threshold < 0 || threshold > 100) {
+        throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Error: " + e.getMessage());
+      return null;
     }
-    return uniqueAbsValuesSet.stream().mapToDouble(Double::doubleValue).toArray();
+    return new HaarCompressor(HaarCompressor.Padding.SQUARE, executor).compress(image, threshold);
   }
 
-  @Override
-  public int[][][] adjustLevel(int[][][] colorArray, int b, int m, int w) {
-    int width = colorArray.length;
-    int height = colorArray[0].length;
-
-    int[][][] adjustedImage = new int[width][height][3];
-
+  /**
+   * Adjusts the levels of a packed image.
+   *
+   * @param image The packed color image.
+   * @param b     The black point.
+   * @param m     The mid point.
+   * @param w     The white point.
+   * @return The adjusted image, or null if the values are invalid.
+   */
+  public PackedImage adjustLevel(PackedImage image, int b, int m, int w) {
     try {
       if (!(b >= 0 && b <= m && m <= w && w <= 255)) {
         throw new IllegalArgumentException(
@@ -379,137 +491,61 @@ public class ExtendedImageModelImpl extends ImageModelImpl implements ExtendedIm
       System.out.println("Error: " + e.getMessage());
       return null;
     }
-
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        for (int c = 0; c < 3; c++) {
-          int pixelValue = colorArray[x][y][c];
-          int adjustedValue = applyLevelAdjustment(pixelValue, b, m, w);
-          adjustedImage[x][y][c] = adjustedValue;
-        }
-      }
-    }
-    return adjustedImage;
+    return mapPixels(image, PointOperations.adjustLevel(b, m, w));
   }
 
   /**
-   * Applies the level adjustment to the given pixel value.
+   * Maps every channel value of a packed image through a tone curve.
    *
-   * @param pixelValue The input pixel value to which the level adjustment is applied.
-   * @param b          Parameter 'b' used in the level adjustment formula.
-   * @param m          Parameter 'm' used in the level adjustment formula.
-   * @param w          Parameter 'w' used in the level adjustment formula.
-   * @return The adjusted pixel value.
+   * @param image The packed color image.
+   * @param curve The tone curve.
+   * @return The mapped image.
    */
-  private int applyLevelAdjustment(int pixelValue, int b, int m, int w) {
-    double a = b * b * (m - w) - b * (m * m - w * w) + w * m * m - m * w * w;
-    double a1 = -b * (128 - 255) + 128 * w - 255 * m;
-    double a2 = b * b * (128 - 255) + 255 * m * m - 128 * w * w;
-    double a3 = b * b * (255 * m - 128 * w) - b * (255 * m * m - 128 * w * w);
-
-    double aValue = a1 / a;
-    double bValue = a2 / a;
-    double cValue = a3 / a;
-
-    double adjustedValue = aValue * pixelValue * pixelValue + bValue * pixelValue + cValue;
-
-    return Math.max(0, Math.min(255, (int) adjustedValue));
-  }
-
-  @Override
-  public int[][][] colorCorrect(int[][][] colorArray) {
-
-    int width = colorArray.length;
-    int height = colorArray[0].length;
-    int[] redHistogram = generateComponentHistogram(colorArray, 0);
-    int[] greenHistogram = generateComponentHistogram(colorArray, 1);
-    int[] blueHistogram = generateComponentHistogram(colorArray, 2);
-
-    int redPeak = findMeaningfulPeak(redHistogram);
-    int greenPeak = findMeaningfulPeak(greenHistogram);
-    int bluePeak = findMeaningfulPeak(blueHistogram);
-
-    int averagePeak = (redPeak + greenPeak + bluePeak) / 3;
-
-    int redOffset = averagePeak - redPeak;
-    int greenOffset = averagePeak - greenPeak;
-    int blueOffset = averagePeak - bluePeak;
-
-    int[][][] correctedImage = new int[width][height][3];
-    for (int i = 0; i < colorArray.length; i++) {
-      for (int j = 0; j < colorArray[0].length; j++) {
-        System.arraycopy(colorArray[i][j], 0, correctedImage[i][j], 0, correctedImage[0][0].length);
-      }
-    }
-
-    for (int i = 0; i < correctedImage.length; i++) {
-      for (int j = 0; j < correctedImage[0].length; j++) {
-        correctedImage[i][j][0] += redOffset;
-        correctedImage[i][j][1] += greenOffset;
-        correctedImage[i][j][2] += blueOffset;
-
-        correctedImage[i][j][0] = Math.min(255, Math.max(0, correctedImage[i][j][0]));
-        correctedImage[i][j][1] = Math.min(255, Math.max(0, correctedImage[i][j][1]));
-        correctedImage[i][j][2] = Math.min(255, Math.max(0, correctedImage[i][j][2]));
-      }
-    }
-    return correctedImage;
+  public PackedImage applyToneCurve(PackedImage image, ToneCurve curve) {
+    return mapPixels(image, curve);
   }
 
   /**
-   * Finds and returns the peak position within the meaningful range (10 to 245) of the given
-   * histogram.
+   * Transforms the color of every pixel of a packed image with a color matrix.
    *
-   * @param histogram The input histogram array representing frequency distribution.
-   * @return The position of the peak within the meaningful range.
+   * @param image  The packed color image.
+   * @param matrix The color matrix.
+   * @return The transformed image.
    */
-  private int findMeaningfulPeak(int[] histogram) {
-    // Find and return the peak position based on meaningful range (10 to 245)
-    int peakPosition = 0;
-    int maxFrequency = 0;
-
-    for (int i = 10; i <= 245; i++) {
-      if (histogram[i] > maxFrequency) {
-        peakPosition = i;
-        maxFrequency = histogram[i];
-      }
-    }
-    return peakPosition;
+  public PackedImage applyColorMatrix(PackedImage image, ColorMatrix matrix) {
+    return mapPixels(image, matrix);
   }
 
-  @Override
-  public int[][] generateHistogram(int[][][] colorArray) {
-    int[] redHistogram = generateComponentHistogram(colorArray, 0);
-    int[] greenHistogram = generateComponentHistogram(colorArray, 1);
-    int[] blueHistogram = generateComponentHistogram(colorArray, 2);
-
-    int[][] histograms = new int[3][256];
-
-    for (int i = 0; i < 256; i++) {
-      histograms[0][i] = redHistogram[i];
-      histograms[1][i] = greenHistogram[i];
-      histograms[2][i] = blueHistogram[i];
-    }
-    return histograms;
+  /**
+   * Generates the red, green and blue histograms of a packed image in a single pass. The result
+   * is cached for the image.
+   *
+   * @param image The packed color image.
+   * @return the histograms, indexed by channel and then by value.
+   */
+  public int[][] generateHistogram(PackedImage image) {
+    return histogramEngine.histograms(image);
   }
 
   /**
-   * Generates a histogram for the specified color component of the given color array.
+   * Applies color correction to a packed image.
    *
-   * @param colorArray The input color array for which the histogram is generated.
-   * @param component  The color component for which the histogram is generated (0 for red, 1 for
-   *                   green, 2 for blue).
-   * @return The histogram for the specified color component.
+   * @param image The packed color image.
+   * @return The corrected image.
    */
-  public int[] generateComponentHistogram(int[][][] colorArray, int component) {
-    int[] histogram = new int[256];
+  public PackedImage colorCorrect(PackedImage image) {
+    int[][] histograms = generateHistogram(image);
 
-    for (int[][] ints : colorArray) {
-      for (int j = 0; j < colorArray[0].length; j++) {
-        int pixelValue = ints[j][component];
-        histogram[pixelValue]++;
-      }
-    }
-    return histogram;
+    int redPeak = findMeaningfulPeak(histograms[0]);
+    int greenPeak = findMeaningfulPeak(histograms[1]);
+    int bluePeak = findMeaningfulPeak(histograms[2]);
+
+    int averagePeak = (redPeak + greenPeak + bluePeak) / 3;
+
+    int redOffset = averagePeak - redPeak;
+    int greenOffset = averagePeak - greenPeak;
+    int blueOffset = averagePeak - bluePeak;
+
+    return mapPixels(image, ToneCurve.offsets(redOffset, greenOffset, blueOffset));
   }
-}
\ No newline at end of file
+}
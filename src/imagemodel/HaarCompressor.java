@@ -0,0 +1,544 @@
+package imagemodel;
+
+/**
+ * Compresses images with a 2D Haar wavelet transform. Each channel is padded with zeros to a power
+ * of two, transformed, stripped of every coefficient whose magnitude is below a threshold, and
+ * transformed back.
+ *
+ * <p>Each channel is stored in a single flat {@code double} array and transformed in place. Every
+ * step replaces pairs of values {@code (a, b)} with {@code (a + b) / sqrt 2} in the first half and
+ * {@code (a - b) / sqrt 2} in the second half; the averages overwrite values that have already been
+ * read, so only the differences pass through a small scratch buffer that is reused for the whole
+ * transform. Columns are processed in blocks of consecutive values instead of being copied out one
+ * by one. The arithmetic is the same as in the original transform, so the coefficients and the
+ * reconstructed image are identical. The three channels are transformed in parallel.
+ *
+ * <p>With {@link Padding#SQUARE} every channel is padded to a square whose side is the next power
+ * of two of the larger dimension, which is what {@link ExtendedImageModel#compress} has always
+ * done. {@link Padding#RECTANGULAR} pads each dimension on its own, which needs far less memory for
+ * images that are much wider than they are tall, or the other way around.
+ */
+public class HaarCompressor {
+
+  private static final double SQRT_2 = Math.sqrt(2);
+
+  /**
+   * The number of columns transformed together, so that column steps read whole cache lines.
+   */
+  private static final int COLUMN_BLOCK = 64;
+
+  private final Padding padding;
+  private final RowBandExecutor executor;
+
+  /**
+   * The way channels are padded before they are transformed.
+   */
+  public enum Padding {
+    /**
+     * Pads both dimensions to the next power of two of the larger dimension.
+     */
+    SQUARE,
+
+    /**
+     * Pads each dimension to its own next power of two.
+     */
+    RECTANGULAR
+  }
+
+  /**
+   * The Haar coefficients of the three channels of an image, each stored as one flat array.
+   */
+  public static final class Coefficients {
+
+    private final int width;
+    private final int height;
+    private final int paddedWidth;
+    private final int paddedHeight;
+    private final double[][] channels;
+
+    /**
+     * Constructs a set of coefficients.
+     *
+     * @param width        the width of the original image.
+     * @param height       the height of the original image.
+     * @param paddedWidth  the padded width, a power of two.
+     * @param paddedHeight the padded height, a power of two.
+     * @param channels     the flat coefficient array of each channel, row by row.
+     * @throws IllegalArgumentException if the sizes do not match.
+     */
+    public Coefficients(int width, int height, int paddedWidth, int paddedHeight,
+        double[][] channels) {
+      if (Integer.bitCount(paddedWidth) != 1 || Integer.bitCount(paddedHeight) != 1
+          || paddedWidth < width || paddedHeight < height) {
+        throw new IllegalArgumentException("Padded size must be a power of two.");
+      }
+      for (double[] channel : channels) {
+        if (channel.length != paddedWidth * paddedHeight) {
+          throw new IllegalArgumentException("Channel size does not match the padded size.");
+        }
+      }
+      this.width = width;
+      this.height = height;
+      this.paddedWidth = paddedWidth;
+      this.paddedHeight = paddedHeight;
+      this.channels = channels;
+    }
+
+    /**
+     * Returns the width of the original image.
+     *
+     * @return the width in pixels.
+     */
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * Returns the height of the original image.
+     *
+     * @return the height in pixels.
+     */
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * Returns the padded width of the coefficient arrays.
+     *
+     * @return the padded width.
+     */
+    public int getPaddedWidth() {
+      return paddedWidth;
+    }
+
+    /**
+     * Returns the padded height of the coefficient arrays.
+     *
+     * @return the padded height.
+     */
+    public int getPaddedHeight() {
+      return paddedHeight;
+    }
+
+    /**
+     * Returns the coefficient arrays of the channels. Changes to them are visible in this object.
+     *
+     * @return the flat coefficient array of each channel.
+     */
+    public double[][] getChannels() {
+      return channels;
+    }
+  }
+
+  /**
+   * Constructs a compressor that pads channels to a square and uses the shared executor.
+   */
+  public HaarCompressor() {
+    this(Padding.SQUARE, RowBandExecutor.getDefault());
+  }
+
+  /**
+   * Constructs a compressor.
+   *
+   * @param padding  the way channels are padded.
+   * @param executor the executor used to process the channels in parallel.
+   */
+  public HaarCompressor(Padding padding, RowBandExecutor executor) {
+    this.padding = padding;
+    this.executor = executor;
+  }
+
+  /**
+   * Compresses an image by removing the given percentage of its distinct coefficient magnitudes.
+   *
+   * @param image      A 3D integer array representing the color image.
+   * @param percentage the compression percentage, between 0 and 100.
+   * @return the compressed image.
+   */
+  public int[][][] compress(int[][][] image, int percentage) {
+    Coefficients coefficients = transform(image);
+    discardBelow(coefficients, threshold(coefficients, percentage));
+    return reconstruct(coefficients);
+  }
+
+  /**
+   * Compresses a packed image by removing the given percentage of its distinct coefficient
+   * magnitudes.
+   *
+   * @param image      the packed image.
+   * @param percentage the compression percentage, between 0 and 100.
+   * @return the compressed image.
+   */
+  public PackedImage compress(PackedImage image, int percentage) {
+    Coefficients coefficients = transform(image);
+    discardBelow(coefficients, threshold(coefficients, percentage));
+    return reconstructPacked(coefficients);
+  }
+
+  /**
+   * Pads and transforms the channels of an image.
+   *
+   * @param image A 3D integer array representing the color image.
+   * @return the coefficients of the image.
+   */
+  public Coefficients transform(int[][][] image) {
+    int height = image.length;
+    int width = image[0].length;
+    Coefficients coefficients = allocate(width, height);
+    int paddedWidth = coefficients.paddedWidth;
+    double[][] channels = coefficients.channels;
+
+    for (int i = 0; i < height; i++) {
+      int[][] row = image[i];
+      int index = i * paddedWidth;
+      for (int j = 0; j < width; j++) {
+        channels[0][index] = row[j][0];
+        channels[1][index] = row[j][1];
+        channels[2][index] = row[j][2];
+        index++;
+      }
+    }
+    forEachChannel(coefficients, true);
+    return coefficients;
+  }
+
+  /**
+   * Pads and transforms the channels of a packed image.
+   *
+   * @param image the packed image.
+   * @return the coefficients of the image.
+   */
+  public Coefficients transform(PackedImage image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] pixels = image.getPixels();
+    Coefficients coefficients = allocate(width, height);
+    int paddedWidth = coefficients.paddedWidth;
+    double[][] channels = coefficients.channels;
+
+    for (int i = 0; i < height; i++) {
+      int source = image.indexOf(0, i);
+      int index = i * paddedWidth;
+      for (int j = 0; j < width; j++) {
+        int rgb = pixels[source++];
+        channels[0][index] = PackedImage.red(rgb);
+        channels[1][index] = PackedImage.green(rgb);
+        channels[2][index] = PackedImage.blue(rgb);
+        index++;
+      }
+    }
+    forEachChannel(coefficients, true);
+    return coefficients;
+  }
+
+  /**
+   * Inverts the transform in place and converts the coefficients back into an image, rounding and
+   * clamping every value to 0-255.
+   *
+   * @param coefficients the coefficients of the image, which are overwritten.
+   * @return A 3D integer array representing the color image.
+   */
+  public int[][][] reconstruct(Coefficients coefficients) {
+    forEachChannel(coefficients, false);
+    int height = coefficients.height;
+    int width = coefficients.width;
+    double[][] channels = coefficients.channels;
+    int[][][] image = new int[height][width][3];
+
+    for (int i = 0; i < height; i++) {
+      int index = i * coefficients.paddedWidth;
+      for (int j = 0; j < width; j++) {
+        image[i][j][0] = toChannelValue(channels[0][index]);
+        image[i][j][1] = toChannelValue(channels[1][index]);
+        image[i][j][2] = toChannelValue(channels[2][index]);
+        index++;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Inverts the transform in place and converts the coefficients back into a packed image,
+   * rounding and clamping every value to 0-255.
+   *
+   * @param coefficients the coefficients of the image, which are overwritten.
+   * @return the packed image.
+   */
+  public PackedImage reconstructPacked(Coefficients coefficients) {
+    forEachChannel(coefficients, false);
+    int height = coefficients.height;
+    int width = coefficients.width;
+    double[][] channels = coefficients.channels;
+    PackedImage image = new PackedImage(width, height);
+    int[] pixels = image.getPixels();
+
+    for (int i = 0; i < height; i++) {
+      int index = i * coefficients.paddedWidth;
+      int target = i * width;
+      for (int j = 0; j < width; j++) {
+        pixels[target++] = PackedImage.pack(toChannelValue(channels[0][index]),
+            toChannelValue(channels[1][index]), toChannelValue(channels[2][index]));
+        index++;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Calculates the magnitude below which coefficients are discarded: the value at the given
+   * percentage of the sorted distinct magnitudes of all channels.
+   *
+   * @param coefficients the coefficients of the image.
+   * @param percentage   the compression percentage.
+   * @return the threshold.
+   */
+  public double threshold(Coefficients coefficients, int percentage) {
+    return new ThresholdSelector(executor).select(coefficients.channels, percentage);
+  }
+
+  /**
+   * Sets every coefficient whose magnitude is below the threshold to zero.
+   *
+   * @param coefficients the coefficients of the image.
+   * @param threshold    the threshold.
+   */
+  public static void discardBelow(Coefficients coefficients, double threshold) {
+    for (double[] channel : coefficients.channels) {
+      for (int i = 0; i < channel.length; i++) {
+        if (Math.abs(channel[i]) < threshold) {
+          channel[i] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Allocates zeroed coefficient arrays for an image of the given size.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the empty coefficients.
+   */
+  private Coefficients allocate(int width, int height) {
+    int paddedWidth;
+    int paddedHeight;
+    if (padding == Padding.SQUARE) {
+      paddedWidth = nextPowerOfTwo(Math.max(width, height));
+      paddedHeight = paddedWidth;
+    } else {
+      paddedWidth = nextPowerOfTwo(width);
+      paddedHeight = nextPowerOfTwo(height);
+    }
+    if ((long) paddedWidth * paddedHeight > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image is too large to compress.");
+    }
+    double[][] channels = new double[3][paddedWidth * paddedHeight];
+    return new Coefficients(width, height, paddedWidth, paddedHeight, channels);
+  }
+
+  /**
+   * Transforms or inverts every channel, in parallel.
+   *
+   * @param coefficients the coefficients to process in place.
+   * @param forward      true to apply the transform, false to invert it.
+   */
+  private void forEachChannel(Coefficients coefficients, boolean forward) {
+    int width = coefficients.paddedWidth;
+    int height = coefficients.paddedHeight;
+    Runnable[] tasks = new Runnable[coefficients.channels.length];
+    for (int c = 0; c < tasks.length; c++) {
+      double[] channel = coefficients.channels[c];
+      tasks[c] = forward
+          ? () -> applyTransform(channel, width, height)
+          : () -> invertTransform(channel, width, height);
+    }
+    executor.runAll(tasks);
+  }
+
+  /**
+   * Applies the Haar wavelet transform to a channel in place. At every level the rows that hold
+   * approximation coefficients are transformed along their full length, followed by the leading
+   * part of the columns that hold approximation coefficients.
+   *
+   * @param data   the channel, row by row.
+   * @param width  the padded width.
+   * @param height the padded height.
+   */
+  static void applyTransform(double[] data, int width, int height) {
+    int levelsX = Integer.numberOfTrailingZeros(width);
+    int levelsY = Integer.numberOfTrailingZeros(height);
+    int levels = Math.max(levelsX, levelsY);
+    double[] scratch = new double[Math.max(width / 2, height / 2 * COLUMN_BLOCK)];
+
+    for (int level = 0; level < levels; level++) {
+      int rowCount = height >> Math.min(level, levelsY);
+      int columnCount = width >> Math.min(level, levelsX);
+      if (level < levelsX) {
+        for (int i = 0; i < rowCount; i++) {
+          transformRow(data, i * width, width, scratch);
+        }
+      }
+      if (level < levelsY) {
+        transformColumns(data, width, columnCount, rowCount, scratch);
+      }
+    }
+  }
+
+  /**
+   * Inverts the Haar wavelet transform of a channel in place, undoing the levels of
+   * {@link #applyTransform} in reverse order.
+   *
+   * @param data   the channel, row by row.
+   * @param width  the padded width.
+   * @param height the padded height.
+   */
+  static void invertTransform(double[] data, int width, int height) {
+    int levelsX = Integer.numberOfTrailingZeros(width);
+    int levelsY = Integer.numberOfTrailingZeros(height);
+    int levels = Math.max(levelsX, levelsY);
+    double[] scratch = new double[Math.max(width / 2, height / 2 * COLUMN_BLOCK)];
+
+    for (int level = levels - 1; level >= 0; level--) {
+      int rowCount = height >> Math.min(level, levelsY);
+      int columnCount = width >> Math.min(level, levelsX);
+      if (level < levelsY) {
+        invertColumns(data, width, columnCount, rowCount, scratch);
+      }
+      if (level < levelsX) {
+        for (int i = 0; i < rowCount; i++) {
+          invertRow(data, i * width, width, scratch);
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies one Haar step to a row, storing the averages in the first half and the differences
+   * in the second half. The averages are written over values that have already been read, so only
+   * the differences pass through the scratch buffer.
+   *
+   * @param data    the channel.
+   * @param start   the index of the first value of the row.
+   * @param length  the length of the row.
+   * @param scratch a buffer of at least half the row length.
+   */
+  private static void transformRow(double[] data, int start, int length, double[] scratch) {
+    int half = length / 2;
+    for (int i = 0; i < half; i++) {
+      double a = data[start + 2 * i];
+      double b = data[start + 2 * i + 1];
+      data[start + i] = (a + b) / SQRT_2;
+      scratch[i] = (a - b) / SQRT_2;
+    }
+    System.arraycopy(scratch, 0, data, start + half, half);
+  }
+
+  /**
+   * Inverts one Haar step of a row. The differences are moved to the scratch buffer first, and
+   * the pairs are rebuilt from the end so that no average is overwritten before it is read.
+   *
+   * @param data    the channel.
+   * @param start   the index of the first value of the row.
+   * @param length  the length of the row.
+   * @param scratch a buffer of at least half the row length.
+   */
+  private static void invertRow(double[] data, int start, int length, double[] scratch) {
+    int half = length / 2;
+    System.arraycopy(data, start + half, scratch, 0, half);
+    for (int i = half - 1; i >= 0; i--) {
+      double a = data[start + i];
+      double b = scratch[i];
+      data[start + 2 * i] = (a + b) / SQRT_2;
+      data[start + 2 * i + 1] = (a - b) / SQRT_2;
+    }
+  }
+
+  /**
+   * Applies one Haar step down the leading values of the leading columns. The columns are
+   * processed in blocks, so every row access reads consecutive values.
+   *
+   * @param data        the channel.
+   * @param width       the padded width.
+   * @param columnCount the number of columns to transform.
+   * @param rowCount    the number of values of each column to transform.
+   * @param scratch     a buffer of at least half the row count times {@link #COLUMN_BLOCK}.
+   */
+  private static void transformColumns(double[] data, int width, int columnCount, int rowCount,
+      double[] scratch) {
+    int half = rowCount / 2;
+    for (int first = 0; first < columnCount; first += COLUMN_BLOCK) {
+      int count = Math.min(COLUMN_BLOCK, columnCount - first);
+      for (int k = 0; k < half; k++) {
+        int upper = 2 * k * width + first;
+        int lower = upper + width;
+        int target = k * width + first;
+        int difference = k * count;
+        for (int c = 0; c < count; c++) {
+          double a = data[upper + c];
+          double b = data[lower + c];
+          data[target + c] = (a + b) / SQRT_2;
+          scratch[difference + c] = (a - b) / SQRT_2;
+        }
+      }
+      for (int k = 0; k < half; k++) {
+        System.arraycopy(scratch, k * count, data, (k + half) * width + first, count);
+      }
+    }
+  }
+
+  /**
+   * Inverts one Haar step down the leading values of the leading columns.
+   *
+   * @param data        the channel.
+   * @param width       the padded width.
+   * @param columnCount the number of columns to invert.
+   * @param rowCount    the number of values of each column to invert.
+   * @param scratch     a buffer of at least half the row count times {@link #COLUMN_BLOCK}.
+   */
+  private static void invertColumns(double[] data, int width, int columnCount, int rowCount,
+      double[] scratch) {
+    int half = rowCount / 2;
+    for (int first = 0; first < columnCount; first += COLUMN_BLOCK) {
+      int count = Math.min(COLUMN_BLOCK, columnCount - first);
+      for (int k = 0; k < half; k++) {
+        System.arraycopy(data, (k + half) * width + first, scratch, k * count, count);
+      }
+      for (int k = half - 1; k >= 0; k--) {
+        int source = k * width + first;
+        int upper = 2 * k * width + first;
+        int lower = upper + width;
+        int difference = k * count;
+        for (int c = 0; c < count; c++) {
+          double a = data[source + c];
+          double b = scratch[difference + c];
+          data[upper + c] = (a + b) / SQRT_2;
+          data[lower + c] = (a - b) / SQRT_2;
+        }
+      }
+    }
+  }
+
+  /**
+   * Rounds a reconstructed value and clamps it to 0-255.
+   *
+   * @param value the reconstructed value.
+   * @return the channel value.
+   */
+  private static int toChannelValue(double value) {
+    return Math.max(0, Math.min(255, (int) Math.round(value)));
+  }
+
+  /**
+   * Returns the smallest power of two that is at least the given size.
+   *
+   * @param size the size.
+   * @return the padded size.
+   */
+  private static int nextPowerOfTwo(int size) {
+    int target = 1;
+    while (target < size) {
+      target *= 2;
+    }
+    return target;
+  }
+}
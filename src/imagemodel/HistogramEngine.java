@@ -0,0 +1,165 @@
+package imagemodel;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Computes the red, green and blue histograms of an image in a single pass over its pixels. Bands
+ * of rows are counted in parallel into partial histograms, which are added up at the end.
+ *
+ * <p>Results are cached per image. Images are never modified once created, so an image object
+ * identifies a version of an image: asking again for the histograms of the same array, packed
+ * image or source costs nothing, while a new image produced by a filter is counted afresh. The
+ * cache holds its images weakly and does not keep them alive.
+ */
+public class HistogramEngine {
+
+  private final RowBandExecutor executor;
+  private final Map<Object, int[][]> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Constructs an engine counting pixels on the given executor.
+   *
+   * @param executor the executor used to process image rows in parallel.
+   */
+  public HistogramEngine(RowBandExecutor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the histograms of an image held as an array.
+   *
+   * @param colorArray A 3D integer array representing the color image, with values in 0-255.
+   * @return the histograms, indexed by channel and then by value.
+   */
+  public int[][] histograms(int[][][] colorArray) {
+    int[][] histograms = cache.get(colorArray);
+    if (histograms == null) {
+      histograms = count(colorArray.length, colorArray[0].length, (startRow, endRow, counts) -> {
+        for (int i = startRow; i < endRow; i++) {
+          for (int[] pixel : colorArray[i]) {
+            counts[pixel[0]]++;
+            counts[256 + pixel[1]]++;
+            counts[512 + pixel[2]]++;
+          }
+        }
+      });
+      cache.put(colorArray, histograms);
+    }
+    return copyOf(histograms);
+  }
+
+  /**
+   * Returns the histograms of a packed image.
+   *
+   * @param image The packed color image.
+   * @return the histograms, indexed by channel and then by value.
+   */
+  public int[][] histograms(PackedImage image) {
+    int[][] histograms = cache.get(image);
+    if (histograms == null) {
+      int[] pixels = image.getPixels();
+      int width = image.getWidth();
+      histograms = count(image.getHeight(), width, (startRow, endRow, counts) -> {
+        for (int i = startRow; i < endRow; i++) {
+          int index = image.indexOf(0, i);
+          for (int j = 0; j < width; j++) {
+            countPixel(pixels[index + j], counts);
+          }
+        }
+      });
+      cache.put(image, histograms);
+    }
+    return copyOf(histograms);
+  }
+
+  /**
+   * Returns the histograms of an image decoded row by row.
+   *
+   * @param source The source of the image.
+   * @return the histograms, indexed by channel and then by value.
+   */
+  public int[][] histograms(PixelSource source) {
+    int[][] histograms = cache.get(source);
+    if (histograms == null) {
+      int width = source.getWidth();
+      histograms = count(source.getHeight(), width, (startRow, endRow, counts) -> {
+        int[] row = new int[width];
+        for (int i = startRow; i < endRow; i++) {
+          source.readRow(i, 0, width, row);
+          for (int rgb : row) {
+            countPixel(rgb, counts);
+          }
+        }
+      });
+      cache.put(source, histograms);
+    }
+    return copyOf(histograms);
+  }
+
+  /**
+   * Counts the pixels of a band of rows into a partial histogram.
+   */
+  private interface BandCounter {
+
+    /**
+     * Counts the pixels of rows {@code startRow} (inclusive) to {@code endRow} (exclusive).
+     *
+     * @param startRow the first row of the band.
+     * @param endRow   the row after the last row of the band.
+     * @param counts   the partial histogram: red counts at 0-255, green at 256-511 and blue at
+     *                 512-767.
+     */
+    void count(int startRow, int endRow, int[] counts);
+  }
+
+  /**
+   * Counts all bands of an image and adds up their partial histograms.
+   *
+   * @param height  the number of rows in the image.
+   * @param width   the number of columns in the image.
+   * @param counter the counter of a band.
+   * @return the histograms, indexed by channel and then by value.
+   */
+  private int[][] count(int height, int width, BandCounter counter) {
+    int[] total = new int[768];
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      int[] counts = new int[768];
+      counter.count(startRow, endRow, counts);
+      synchronized (total) {
+        for (int v = 0; v < 768; v++) {
+          total[v] += counts[v];
+        }
+      }
+    });
+
+    int[][] histograms = new int[3][256];
+    for (int c = 0; c < 3; c++) {
+      System.arraycopy(total, 256 * c, histograms[c], 0, 256);
+    }
+    return histograms;
+  }
+
+  /**
+   * Counts a packed pixel into a partial histogram.
+   *
+   * @param rgb    the packed pixel.
+   * @param counts the partial histogram.
+   */
+  private static void countPixel(int rgb, int[] counts) {
+    counts[PackedImage.red(rgb)]++;
+    counts[256 + PackedImage.green(rgb)]++;
+    counts[512 + PackedImage.blue(rgb)]++;
+  }
+
+  /**
+   * Copies histograms, so that callers cannot change the cached ones.
+   *
+   * @param histograms the histograms.
+   * @return the copy.
+   */
+  private static int[][] copyOf(int[][] histograms) {
+    return new int[][]{histograms[0].clone(), histograms[1].clone(), histograms[2].clone()};
+  }
+}
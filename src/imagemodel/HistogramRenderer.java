@@ -0,0 +1,170 @@
+package imagemodel;
+
+/**
+ * Draws the red, green and blue histograms of an image as line graphs over a light grid, writing
+ * packed pixels directly instead of going through a {@code Graphics2D} and a
+ * {@code BufferedImage}.
+ *
+ * <p>The grid is drawn once, when the renderer is created, and copied under every graph into a
+ * flat buffer of packed pixels, which callers may reuse from one rendering to the next. Each
+ * channel is a polyline through one point per value, scaled so that the highest count reaches the
+ * top of the image, either linearly or on a logarithmic scale, which keeps small counts visible
+ * next to a large peak.
+ */
+public final class HistogramRenderer {
+
+  private static final int BACKGROUND = 0xFFFFFF;
+  private static final int GRID = 0xE6E6E6;
+  private static final int GRID_SPACING = 10;
+  private static final int[] CHANNEL_COLORS = {0xFF0000, 0x00FF00, 0x0000FF};
+
+  /**
+   * The largest width and height of a rendered image.
+   */
+  public static final int MAX_SIZE = 4096;
+
+  private final int width;
+  private final int height;
+  private final boolean logScale;
+  private final int[] grid;
+
+  /**
+   * Constructs a renderer.
+   *
+   * @param width    the width of the rendered image, from 2 to {@value #MAX_SIZE}.
+   * @param height   the height of the rendered image, from 2 to {@value #MAX_SIZE}.
+   * @param logScale true to scale the counts logarithmically.
+   * @throws IllegalArgumentException if the size is too small or too large.
+   */
+  public HistogramRenderer(int width, int height, boolean logScale) {
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("Histogram size must be at least 2 by 2.");
+    }
+    if (width > MAX_SIZE || height > MAX_SIZE) {
+      throw new IllegalArgumentException(
+          "Histogram size must be at most " + MAX_SIZE + " by " + MAX_SIZE + ".");
+    }
+    this.width = width;
+    this.height = height;
+    this.logScale = logScale;
+    this.grid = new int[width * height];
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        boolean onGrid = x % GRID_SPACING == 0 || y % GRID_SPACING == 0;
+        grid[y * width + x] = onGrid ? GRID : BACKGROUND;
+      }
+    }
+  }
+
+  /**
+   * Returns the width of the rendered image.
+   *
+   * @return the width in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the rendered image.
+   *
+   * @return the height in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Draws histograms into a buffer of packed pixels.
+   *
+   * @param histograms the red, green and blue histograms, each with 256 counts.
+   * @param pixels     the buffer receiving the image as packed {@code 0xRRGGBB} values, row after
+   *                   row, with at least width times height elements. Its contents are replaced.
+   */
+  public void render(int[][] histograms, int[] pixels) {
+    System.arraycopy(grid, 0, pixels, 0, grid.length);
+    int maxFrequency = 0;
+    for (int[] frequencies : histograms) {
+      for (int frequency : frequencies) {
+        maxFrequency = Math.max(maxFrequency, frequency);
+      }
+    }
+
+    for (int c = 0; c < 3; c++) {
+      int[] frequencies = histograms[c];
+      int previousX = 0;
+      int previousY = scale(frequencies[0], maxFrequency);
+      for (int i = 1; i < 256; i++) {
+        int x = (int) ((long) i * (width - 1) / 255);
+        int y = scale(frequencies[i], maxFrequency);
+        drawLine(pixels, previousX, previousY, x, y, CHANNEL_COLORS[c]);
+        previousX = x;
+        previousY = y;
+      }
+    }
+  }
+
+  /**
+   * Draws histograms into a new packed image.
+   *
+   * @param histograms the red, green and blue histograms, each with 256 counts.
+   * @return the rendered image.
+   */
+  public PackedImage render(int[][] histograms) {
+    PackedImage image = new PackedImage(width, height);
+    render(histograms, image.getPixels());
+    return image;
+  }
+
+  /**
+   * Converts a count to the row of its point in the graph.
+   *
+   * @param frequency    the count.
+   * @param maxFrequency the highest count of all channels.
+   * @return the row, 0 at the top.
+   */
+  private int scale(int frequency, int maxFrequency) {
+    if (maxFrequency == 0) {
+      return height - 1;
+    }
+    if (logScale) {
+      return height - 1
+          - (int) (Math.log1p(frequency) / Math.log1p(maxFrequency) * (height - 1));
+    }
+    return height - 1 - (int) (frequency * ((height - 1.0) / maxFrequency));
+  }
+
+  /**
+   * Draws a one pixel wide line with Bresenham's algorithm.
+   *
+   * @param pixels the buffer of packed pixels.
+   * @param x0     the column of the first end.
+   * @param y0     the row of the first end.
+   * @param x1     the column of the second end.
+   * @param y1     the row of the second end.
+   * @param color  the packed color of the line.
+   */
+  private void drawLine(int[] pixels, int x0, int y0, int x1, int y1, int color) {
+    int dx = Math.abs(x1 - x0);
+    int dy = -Math.abs(y1 - y0);
+    int stepX = x0 < x1 ? 1 : -1;
+    int stepY = y0 < y1 ? 1 : -1;
+    int error = dx + dy;
+    while (true) {
+      pixels[y0 * width + x0] = color;
+      if (x0 == x1 && y0 == y1) {
+        return;
+      }
+      int doubled = 2 * error;
+      if (doubled >= dy) {
+        error += dy;
+        x0 += stepX;
+      }
+      if (doubled <= dx) {
+        error += dx;
+        y0 += stepY;
+      }
+    }
+  }
+}
@@ -1,9 +1,22 @@
 package imagemodel;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 
 /**
  * A class to convert image formats from buffered to array and vice-versa.
+ *
+ * <p>Images of type {@code TYPE_INT_RGB}, {@code TYPE_INT_ARGB}, {@code TYPE_3BYTE_BGR} and
+ * {@code TYPE_4BYTE_ABGR} are read straight from their data buffer, and new images are written a
+ * row at a time, instead of converting every pixel through the color model with
+ * {@link BufferedImage#getRGB(int, int)} and {@link BufferedImage#setRGB(int, int, int)}. Other
+ * image types are read a row at a time through the color model. Alpha is ignored.
  */
 public class ImageConvert {
 
@@ -17,16 +30,57 @@ public class ImageConvert {
     int height = pixelArray.length;
     int width = pixelArray[0].length;
     BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    WritableRaster raster = image.getRaster();
+    int[] row = new int[width];
 
     for (int i = 0; i < height; i++) {
+      int[][] pixels = pixelArray[i];
       for (int j = 0; j < width; j++) {
-        int red = pixelArray[i][j][0];
-        int green = pixelArray[i][j][1];
-        int blue = pixelArray[i][j][2];
-
-        int pixelValue = (255 << 24) | (red << 16) | (green << 8) | blue;
-        image.setRGB(j, i, pixelValue);
+        row[j] = (pixels[j][0] << 16) | (pixels[j][1] << 8) | pixels[j][2];
       }
+      raster.setDataElements(0, i, width, 1, row);
+    }
+    return image;
+  }
+
+  /**
+   * A method to convert a packed image to bufferedImage.
+   *
+   * @param packedImage the packed image to be converted.
+   * @return a buffered image.
+   */
+  public BufferedImage convertToBufferedImage(PackedImage packedImage) {
+    int height = packedImage.getHeight();
+    int width = packedImage.getWidth();
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    WritableRaster raster = image.getRaster();
+    int[] pixels = packedImage.getPixels();
+    int[] row = new int[width];
+
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(pixels, packedImage.indexOf(0, i), row, 0, width);
+      raster.setDataElements(0, i, width, 1, row);
+    }
+    return image;
+  }
+
+  /**
+   * A method to convert an image decoded row by row to bufferedImage, without converting it to
+   * array form first.
+   *
+   * @param source the image to be converted.
+   * @return a buffered image.
+   */
+  public BufferedImage convertToBufferedImage(PixelSource source) {
+    int height = source.getHeight();
+    int width = source.getWidth();
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    WritableRaster raster = image.getRaster();
+    int[] row = new int[width];
+
+    for (int i = 0; i < height; i++) {
+      source.readRow(i, 0, width, row);
+      raster.setDataElements(0, i, width, 1, row);
     }
     return image;
   }
@@ -40,21 +94,87 @@ public class ImageConvert {
   public int[][][] convertToArray(BufferedImage image) {
     int w = image.getWidth();
     int h = image.getHeight();
-    int[][][] array;
-    array = new int[h][w][3];
+    int[][][] array = new int[h][w][3];
+    int[] row = new int[w];
 
     for (int i = 0; i < h; i++) {
+      readRow(image, i, row, 0);
       for (int j = 0; j < w; j++) {
-        int pixel = image.getRGB(j, i);
-        int red = (pixel >> 16) & 0xff;
-        int green = (pixel >> 8) & 0xff;
-        int blue = (pixel) & 0xff;
-
-        array[i][j][0] = red;
-        array[i][j][1] = green;
-        array[i][j][2] = blue;
+        int pixel = row[j];
+        array[i][j][0] = (pixel >> 16) & 0xff;
+        array[i][j][1] = (pixel >> 8) & 0xff;
+        array[i][j][2] = pixel & 0xff;
       }
     }
     return array;
   }
-}
\ No newline at end of file
+
+  /**
+   * A method to convert buffered image to a packed image.
+   *
+   * @param image buffered image to be converted.
+   * @return the packed image.
+   */
+  public PackedImage convertToPackedImage(BufferedImage image) {
+    PackedImage packedImage = new PackedImage(image.getWidth(), image.getHeight());
+    int[] pixels = packedImage.getPixels();
+
+    for (int i = 0; i < image.getHeight(); i++) {
+      readRow(image, i, pixels, packedImage.indexOf(0, i));
+    }
+    return packedImage;
+  }
+
+  /**
+   * Reads a row of an image as packed {@code 0xRRGGBB} values.
+   *
+   * @param image  the image to read.
+   * @param y      the row to read.
+   * @param dest   the array receiving the pixels.
+   * @param offset the index in dest of the first pixel.
+   */
+  private static void readRow(BufferedImage image, int y, int[] dest, int offset) {
+    int width = image.getWidth();
+    WritableRaster raster = image.getRaster();
+    DataBuffer buffer = raster.getDataBuffer();
+    SampleModel model = raster.getSampleModel();
+    int modelX = -raster.getSampleModelTranslateX();
+    int modelY = y - raster.getSampleModelTranslateY();
+    boolean standard = buffer.getNumBanks() == 1
+        && image.getColorModel().getColorSpace().isCS_sRGB();
+
+    switch (standard ? image.getType() : BufferedImage.TYPE_CUSTOM) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB: {
+        int[] data = ((DataBufferInt) buffer).getData();
+        int index = buffer.getOffset()
+            + ((SinglePixelPackedSampleModel) model).getOffset(modelX, modelY);
+        for (int j = 0; j < width; j++) {
+          dest[offset + j] = data[index + j] & 0xFFFFFF;
+        }
+        return;
+      }
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR: {
+        ComponentSampleModel components = (ComponentSampleModel) model;
+        byte[] data = ((DataBufferByte) buffer).getData();
+        int[] bandOffsets = components.getBandOffsets();
+        int pixelStride = components.getPixelStride();
+        int index = buffer.getOffset() + modelY * components.getScanlineStride()
+            + modelX * pixelStride;
+        for (int j = 0; j < width; j++) {
+          dest[offset + j] = ((data[index + bandOffsets[0]] & 0xFF) << 16)
+              | ((data[index + bandOffsets[1]] & 0xFF) << 8)
+              | (data[index + bandOffsets[2]] & 0xFF);
+          index += pixelStride;
+        }
+        return;
+      }
+      default:
+        image.getRGB(0, y, width, 1, dest, offset, width);
+        for (int j = 0; j < width; j++) {
+          dest[offset + j] &= 0xFFFFFF;
+        }
+    }
+  }
+}
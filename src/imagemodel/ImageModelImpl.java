@@ -1,54 +1,43 @@
 package imagemodel;
 
+import java.util.function.IntUnaryOperator;
+
 /**
  * A class representing the model, contains all methods for filters.
  */
 public class ImageModelImpl implements ImageModel {
 
+  protected final RowBandExecutor executor;
+
+  /**
+   * Constructs a model that runs its filters on the shared {@link RowBandExecutor}.
+   */
+  public ImageModelImpl() {
+    this(RowBandExecutor.getDefault());
+  }
+
+  /**
+   * Constructs a model that runs its filters on the given executor.
+   *
+   * @param executor the executor used to process image rows in parallel.
+   */
+  public ImageModelImpl(RowBandExecutor executor) {
+    this.executor = executor;
+  }
+
   @Override
   public int[][][] extractRedComponent(int[][][] colorArray) {
-    return extractComponent(colorArray, 1, 0, 0);
+    return ColorMatrix.component(0).apply(colorArray, executor);
   }
 
   @Override
   public int[][][] extractGreenComponent(int[][][] colorArray) {
-    return extractComponent(colorArray, 0, 1, 0);
+    return ColorMatrix.component(1).apply(colorArray, executor);
   }
 
   @Override
   public int[][][] extractBlueComponent(int[][][] colorArray) {
-    return extractComponent(colorArray, 0, 0, 1);
-  }
-
-  /**
-   * A helper method to extract a single color component (red, green, or blue).
-   *
-   * @param colorArray  A 3D integer array representing the color image.
-   * @param redOffset   the flag variable to get red component.
-   * @param greenOffset the flag variable to get blue component.
-   * @param blueOffset  the flag variable to get green component.
-   * @return A 3D integer array representing the red or green or blue component of the image.
-   */
-  private int[][][] extractComponent(int[][][] colorArray, int redOffset, int greenOffset,
-      int blueOffset) {
-    int height = colorArray.length;
-    int width = colorArray[0].length;
-
-    int[][][] componentArray = new int[height][width][3];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int red = colorArray[i][j][0];
-        int green = colorArray[i][j][1];
-        int blue = colorArray[i][j][2];
-
-        componentArray[i][j][0] = redOffset != 0 ? red : 0;
-        componentArray[i][j][1] = greenOffset != 0 ? green : 0;
-        componentArray[i][j][2] = blueOffset != 0 ? blue : 0;
-      }
-    }
-
-    return componentArray;
+    return ColorMatrix.component(2).apply(colorArray, executor);
   }
 
   @Override
@@ -62,7 +51,8 @@ public class ImageModelImpl implements ImageModel {
   }
 
   /**
-   * A helper method to flip an array horizontally or vertically.
+   * A helper method to flip an array horizontally or vertically. Every pixel is copied, so the
+   * result shares no arrays with the original.
    *
    * @param originalArray A 3D integer array representing the color image.
    * @param horizontally  the flag variable to flip horizontally.
@@ -73,76 +63,56 @@ public class ImageModelImpl implements ImageModel {
     int height = originalArray.length;
     int width = originalArray[0].length;
 
-    int[][][] flippedArray = new int[height][width][3];
+    int[][][] flippedArray = new int[height][][];
 
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int targetI = vertically ? height - i - 1 : i;
-        int targetJ = horizontally ? width - j - 1 : j;
-        flippedArray[targetI][targetJ] = originalArray[i][j];
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int[][] targetRow = new int[width][];
+        for (int j = 0; j < width; j++) {
+          int targetJ = horizontally ? width - j - 1 : j;
+          targetRow[targetJ] = originalArray[i][j].clone();
+        }
+        flippedArray[vertically ? height - i - 1 : i] = targetRow;
       }
-    }
+    });
     return flippedArray;
   }
 
   @Override
   public int[][][] calculateValue(int[][][] inputArray) {
-    return calculateColorComponent(inputArray, "max");
+    int height = inputArray.length;
+    int width = inputArray[0].length;
+    int[][][] outputArray = new int[height][][];
+
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        outputArray[i] = new int[width][3];
+        for (int j = 0; j < width; j++) {
+          int red = inputArray[i][j][0];
+          int green = inputArray[i][j][1];
+          int blue = inputArray[i][j][2];
+
+          int componentValue = Math.max(red, Math.max(green, blue));
+
+          outputArray[i][j][0] = componentValue;
+          outputArray[i][j][1] = componentValue;
+          outputArray[i][j][2] = componentValue;
+        }
+      }
+    });
+    return outputArray;
   }
 
   @Override
   public int[][][] calculateIntensity(int[][][] inputArray) {
-    return calculateColorComponent(inputArray, "avg");
+    return ColorMatrix.intensity().apply(inputArray, executor);
   }
 
   @Override
   public int[][][] calculateLuma(int[][][] inputArray) {
-    return calculateColorComponent(inputArray, "luma");
+    return ColorMatrix.luma().apply(inputArray, executor);
   }
 
-  /**
-   * A helper method to calculate a color component (max, avg, or luma).
-   *
-   * @param inputArray A 3D integer array representing the color image.
-   * @param type       the type of greyscale we want to apply
-   * @return A 3D integer array representing the requested color component image.
-   */
-  private int[][][] calculateColorComponent(int[][][] inputArray, String type) {
-    int height = inputArray.length;
-    int width = inputArray[0].length;
-    int[][][] outputArray = new int[height][width][3];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int red = inputArray[i][j][0];
-        int green = inputArray[i][j][1];
-        int blue = inputArray[i][j][2];
-
-        int componentValue = 0;
-
-        switch (type) {
-          case "max":
-            componentValue = Math.max(red, Math.max(green, blue));
-            break;
-          case "avg":
-            componentValue = (red + green + blue) / 3;
-            break;
-          case "luma":
-            componentValue = (int) (0.2126 * red + 0.7152 * green + 0.0722 * blue);
-            break;
-          default:
-            break;
-        }
-
-        outputArray[i][j][0] = componentValue;
-        outputArray[i][j][1] = componentValue;
-        outputArray[i][j][2] = componentValue;
-      }
-    }
-    return outputArray;
-  }
-
-
   @Override
   public int[][][] blurImage(int[][][] colorArray) {
     return applyKernelFilter(colorArray, getGaussianBlurKernel());
@@ -161,71 +131,7 @@ public class ImageModelImpl implements ImageModel {
    * @return A 3D integer array representing the blurred or sharpened image.
    */
   private int[][][] applyKernelFilter(int[][][] colorArray, int[][] kernel) {
-    int height = colorArray.length;
-    int width = colorArray[0].length;
-    int[][][] filteredArray = new int[height][width][3];
-
-    int kernelSum = calculateKernelSum(kernel);
-    int kernelSize = kernel.length;
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int red = 0;
-        int green = 0;
-        int blue = 0;
-
-        for (int x = -kernelSize / 2; x <= kernelSize / 2; x++) {
-          for (int y = -kernelSize / 2; y <= kernelSize / 2; y++) {
-            int neighborX = i + x;
-            int neighborY = j + y;
-
-            // Handle border pixels by replicating values from the nearest valid pixel
-            neighborX = Math.max(0, Math.min(neighborX, height - 1));
-            neighborY = Math.max(0, Math.min(neighborY, width - 1));
-
-            int neighborRed = colorArray[neighborX][neighborY][0];
-            int neighborGreen = colorArray[neighborX][neighborY][1];
-            int neighborBlue = colorArray[neighborX][neighborY][2];
-
-            int kernelValue = kernel[x + kernelSize / 2][y + kernelSize / 2];
-
-            red += neighborRed * kernelValue;
-            green += neighborGreen * kernelValue;
-            blue += neighborBlue * kernelValue;
-          }
-        }
-
-        red /= kernelSum;
-        green /= kernelSum;
-        blue /= kernelSum;
-
-        red = Math.min(255, Math.max(0, red));
-        green = Math.min(255, Math.max(0, green));
-        blue = Math.min(255, Math.max(0, blue));
-
-        filteredArray[i][j][0] = red;
-        filteredArray[i][j][1] = green;
-        filteredArray[i][j][2] = blue;
-      }
-    }
-
-    return filteredArray;
-  }
-
-  /**
-   * A helper method to calculate the sum of all elements in a kernel.
-   *
-   * @param kernel the 2D array representing the kernel that is used.
-   * @return the sum of the elements in kernel.
-   */
-  private int calculateKernelSum(int[][] kernel) {
-    int sum = 0;
-    for (int[] ints : kernel) {
-      for (int anInt : ints) {
-        sum += anInt;
-      }
-    }
-    return (sum == 0) ? 1 : sum;
+    return new Convolver(kernel).apply(colorArray, executor);
   }
 
   /**
@@ -258,32 +164,7 @@ public class ImageModelImpl implements ImageModel {
 
   @Override
   public int[][][] convertToSepia(int[][][] colorArray) {
-    int height = colorArray.length;
-    int width = colorArray[0].length;
-
-    int[][][] sepiaArray = new int[height][width][3];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int red = colorArray[i][j][0];
-        int green = colorArray[i][j][1];
-        int blue = colorArray[i][j][2];
-
-        int sepiaRed = (int) (0.393 * red + 0.769 * green + 0.189 * blue);
-        int sepiaGreen = (int) (0.349 * red + 0.686 * green + 0.168 * blue);
-        int sepiaBlue = (int) (0.272 * red + 0.534 * green + 0.131 * blue);
-
-        sepiaRed = Math.min(255, sepiaRed);
-        sepiaGreen = Math.min(255, sepiaGreen);
-        sepiaBlue = Math.min(255, sepiaBlue);
-
-        sepiaArray[i][j][0] = sepiaRed;
-        sepiaArray[i][j][1] = sepiaGreen;
-        sepiaArray[i][j][2] = sepiaBlue;
-      }
-    }
-
-    return sepiaArray;
+    return ColorMatrix.sepia().apply(colorArray, executor);
   }
 
   @Override
@@ -309,27 +190,225 @@ public class ImageModelImpl implements ImageModel {
 
   @Override
   public int[][][] brightenImage(int[][][] colorArray, int adjustment) {
-    int height = colorArray.length;
-    int width = colorArray[0].length;
+    return ToneCurve.brighten(adjustment).apply(colorArray, executor);
+  }
 
-    int[][][] adjustedArray = new int[height][width][3];
+  /**
+   * Extracts the red component of a packed image.
+   *
+   * @param image the packed color image.
+   * @return a packed image holding only the red component.
+   */
+  public PackedImage extractRedComponent(PackedImage image) {
+    return mapPixels(image, PointOperations.redComponent());
+  }
+
+  /**
+   * Extracts the green component of a packed image.
+   *
+   * @param image the packed color image.
+   * @return a packed image holding only the green component.
+   */
+  public PackedImage extractGreenComponent(PackedImage image) {
+    return mapPixels(image, PointOperations.greenComponent());
+  }
+
+  /**
+   * Extracts the blue component of a packed image.
+   *
+   * @param image the packed color image.
+   * @return a packed image holding only the blue component.
+   */
+  public PackedImage extractBlueComponent(PackedImage image) {
+    return mapPixels(image, PointOperations.blueComponent());
+  }
+
+  /**
+   * Flips a packed image horizontally.
+   *
+   * @param image the packed color image.
+   * @return the horizontally flipped image.
+   */
+  public PackedImage flipHorizontally(PackedImage image) {
+    return flipPacked(image, true, false);
+  }
+
+  /**
+   * Flips a packed image vertically.
+   *
+   * @param image the packed color image.
+   * @return the vertically flipped image.
+   */
+  public PackedImage flipVertically(PackedImage image) {
+    return flipPacked(image, false, true);
+  }
+
+  /**
+   * A helper method to flip a packed image horizontally or vertically.
+   *
+   * @param image        the packed color image.
+   * @param horizontally the flag variable to flip horizontally.
+   * @param vertically   the flag variable to flip vertically.
+   * @return the flipped image.
+   */
+  private PackedImage flipPacked(PackedImage image, boolean horizontally, boolean vertically) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] source = image.getPixels();
+    PackedImage flipped = new PackedImage(width, height);
+    int[] target = flipped.getPixels();
+
+    for (int i = 0; i < height; i++) {
+      int sourceIndex = image.indexOf(0, i);
+      int targetIndex = (vertically ? height - i - 1 : i) * width;
+      if (horizontally) {
+        for (int j = 0; j < width; j++) {
+          target[targetIndex + width - j - 1] = source[sourceIndex + j];
+        }
+      } else {
+        System.arraycopy(source, sourceIndex, target, targetIndex, width);
+      }
+    }
+    return flipped;
+  }
+
+  /**
+   * Converts a packed image to sepia tone.
+   *
+   * @param image the packed color image.
+   * @return the sepia-toned image.
+   */
+  public PackedImage convertToSepia(PackedImage image) {
+    return mapPixels(image, PointOperations.sepia());
+  }
+
+  /**
+   * Combines the red channel of one packed image, the green channel of another and the blue
+   * channel of a third into a single image.
+   *
+   * @param redImage   the image providing the red channel.
+   * @param greenImage the image providing the green channel.
+   * @param blueImage  the image providing the blue channel.
+   * @return the combined color image.
+   */
+  public PackedImage combineRGBImage(PackedImage redImage, PackedImage greenImage,
+      PackedImage blueImage) {
+    int height = redImage.getHeight();
+    int width = redImage.getWidth();
+    PackedImage combined = new PackedImage(width, height);
+    int[] target = combined.getPixels();
+    int[] red = redImage.getPixels();
+    int[] green = greenImage.getPixels();
+    int[] blue = blueImage.getPixels();
 
     for (int i = 0; i < height; i++) {
+      int redIndex = redImage.indexOf(0, i);
+      int greenIndex = greenImage.indexOf(0, i);
+      int blueIndex = blueImage.indexOf(0, i);
+      int targetIndex = i * width;
       for (int j = 0; j < width; j++) {
-        int red = colorArray[i][j][0] + adjustment;
-        int green = colorArray[i][j][1] + adjustment;
-        int blue = colorArray[i][j][2] + adjustment;
-
-        // Clamp the values to the 0-255 range
-        red = (red < 0) ? 0 : Math.min(red, 255);
-        green = (green < 0) ? 0 : Math.min(green, 255);
-        blue = (blue < 0) ? 0 : Math.min(blue, 255);
-
-        adjustedArray[i][j][0] = red;
-        adjustedArray[i][j][1] = green;
-        adjustedArray[i][j][2] = blue;
+        target[targetIndex + j] = (red[redIndex + j] & 0xFF0000)
+            | (green[greenIndex + j] & 0x00FF00) | (blue[blueIndex + j] & 0x0000FF);
       }
     }
-    return adjustedArray;
+    return combined;
+  }
+
+  /**
+   * Brightens a packed image by adding an adjustment to each color component.
+   *
+   * @param image      the packed color image.
+   * @param adjustment the value added to each component.
+   * @return the brightened image.
+   */
+  public PackedImage brightenImage(PackedImage image, int adjustment) {
+    return mapPixels(image, PointOperations.brighten(adjustment));
+  }
+
+  /**
+   * Applies the Gaussian blur kernel to a packed image.
+   *
+   * @param image the packed color image.
+   * @return the blurred image.
+   */
+  public PackedImage blurImage(PackedImage image) {
+    return applyKernelFilter(image, getGaussianBlurKernel());
+  }
+
+  /**
+   * Applies the sharpen kernel to a packed image.
+   *
+   * @param image the packed color image.
+   * @return the sharpened image.
+   */
+  public PackedImage sharpenImage(PackedImage image) {
+    return applyKernelFilter(image, getSharpenKernel());
+  }
+
+  /**
+   * A helper method to apply a kernel filter to a packed image.
+   *
+   * @param image  the packed color image.
+   * @param kernel the 2D array representing the kernel that is used.
+   * @return the filtered image.
+   */
+  private PackedImage applyKernelFilter(PackedImage image, int[][] kernel) {
+    return new Convolver(kernel).apply(image, executor);
+  }
+
+  /**
+   * Calculates the maximum color component value for each pixel of a packed image.
+   *
+   * @param image the packed color image.
+   * @return the value image.
+   */
+  public PackedImage calculateValue(PackedImage image) {
+    return mapPixels(image, PointOperations.value());
+  }
+
+  /**
+   * Calculates the average of the color components for each pixel of a packed image.
+   *
+   * @param image the packed color image.
+   * @return the intensity image.
+   */
+  public PackedImage calculateIntensity(PackedImage image) {
+    return mapPixels(image, PointOperations.intensity());
+  }
+
+  /**
+   * Calculates the luma of each pixel of a packed image.
+   *
+   * @param image the packed color image.
+   * @return the luma image.
+   */
+  public PackedImage calculateLuma(PackedImage image) {
+    return mapPixels(image, PointOperations.luma());
+  }
+
+  /**
+   * A helper method to apply a per-pixel operation to every pixel of a packed image.
+   *
+   * @param image     the packed color image.
+   * @param operation the operation mapping one packed pixel to another.
+   * @return a new packed image holding the results.
+   */
+  protected PackedImage mapPixels(PackedImage image, IntUnaryOperator operation) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] source = image.getPixels();
+    PackedImage result = new PackedImage(width, height);
+    int[] target = result.getPixels();
+
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int sourceIndex = image.indexOf(0, i);
+        int targetIndex = i * width;
+        for (int j = 0; j < width; j++) {
+          target[targetIndex + j] = operation.applyAsInt(source[sourceIndex + j]);
+        }
+      }
+    });
+    return result;
   }
-}
\ No newline at end of file
+}
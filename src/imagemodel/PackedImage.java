@@ -0,0 +1,266 @@
+package imagemodel;
+
+/**
+ * A compact image representation that stores every pixel as a single packed {@code 0xRRGGBB}
+ * integer in one flat array. Compared to the {@code int[height][width][3]} form used by the rest
+ * of the model this needs one int per pixel instead of one array object per pixel, and rows are
+ * laid out contiguously in memory.
+ *
+ * <p>The pixel at column {@code x} and row {@code y} is stored at index
+ * {@code offset + y * stride + x}. The alpha byte is ignored. A packed image is also a
+ * {@link PixelSource} held in memory, so it can be stored in an image map without converting it.
+ */
+public final class PackedImage implements PixelSource {
+
+  private final int width;
+  private final int height;
+  private final int stride;
+  private final int offset;
+  private final int[] pixels;
+
+  /**
+   * Constructs a new black image of the given size.
+   *
+   * @param width  the width of the image in pixels.
+   * @param height the height of the image in pixels.
+   */
+  public PackedImage(int width, int height) {
+    this(width, height, new int[checkSize(width, height)], width, 0);
+  }
+
+  /**
+   * Constructs an image over an existing packed pixel buffer, without copying it.
+   *
+   * @param width  the width of the image in pixels.
+   * @param height the height of the image in pixels.
+   * @param pixels the packed pixel buffer.
+   * @param stride the number of array elements between the start of two consecutive rows.
+   * @param offset the index of the top-left pixel in the buffer.
+   * @throws IllegalArgumentException if the buffer is too small for the given layout.
+   */
+  public PackedImage(int width, int height, int[] pixels, int stride, int offset) {
+    checkSize(width, height);
+    if (stride < width || offset < 0
+        || (long) offset + (long) (height - 1) * stride + width > pixels.length) {
+      throw new IllegalArgumentException("Pixel buffer is too small for the given layout.");
+    }
+    this.width = width;
+    this.height = height;
+    this.pixels = pixels;
+    this.stride = stride;
+    this.offset = offset;
+  }
+
+  /**
+   * Validates the dimensions of an image.
+   *
+   * @param width  the width of the image in pixels.
+   * @param height the height of the image in pixels.
+   * @return the number of pixels in the image.
+   */
+  private static int checkSize(int width, int height) {
+    if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+    }
+    return width * height;
+  }
+
+  /**
+   * Converts a 3D integer array into a packed image. Channel values are clamped to 0-255.
+   *
+   * @param colorArray A 3D integer array representing the color image.
+   * @return the packed image.
+   */
+  public static PackedImage fromArray(int[][][] colorArray) {
+    int height = colorArray.length;
+    int width = colorArray[0].length;
+    PackedImage image = new PackedImage(width, height);
+    int[] data = image.pixels;
+
+    for (int i = 0; i < height; i++) {
+      int[][] row = colorArray[i];
+      int index = i * width;
+      for (int j = 0; j < width; j++) {
+        data[index++] = pack(clamp(row[j][0]), clamp(row[j][1]), clamp(row[j][2]));
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Converts this image into the 3D integer array form used by {@link ImageModel}.
+   *
+   * @return A 3D integer array representing the color image.
+   */
+  @Override
+  public int[][][] toArray() {
+    int[][][] colorArray = new int[height][width][3];
+
+    for (int i = 0; i < height; i++) {
+      int index = offset + i * stride;
+      for (int j = 0; j < width; j++) {
+        int rgb = pixels[index++];
+        colorArray[i][j][0] = red(rgb);
+        colorArray[i][j][1] = green(rgb);
+        colorArray[i][j][2] = blue(rgb);
+      }
+    }
+    return colorArray;
+  }
+
+  /**
+   * Returns a copy of this image whose rows are contiguous, i.e. stride equals width and the
+   * offset is zero. If this image already has that layout the copy is still made.
+   *
+   * @return a compact copy of this image.
+   */
+  public PackedImage copy() {
+    PackedImage copy = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(pixels, offset + i * stride, copy.pixels, i * width, width);
+    }
+    return copy;
+  }
+
+  @Override
+  public void readRow(int y, int x, int length, int[] dest) {
+    System.arraycopy(pixels, offset + y * stride + x, dest, 0, length);
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return true;
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width in pixels.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height in pixels.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of array elements between the start of two consecutive rows.
+   *
+   * @return the row stride.
+   */
+  public int getStride() {
+    return stride;
+  }
+
+  /**
+   * Returns the index of the top-left pixel in the pixel buffer.
+   *
+   * @return the buffer offset.
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the backing pixel buffer. Changes to the buffer are visible in this image.
+   *
+   * @return the packed pixel buffer.
+   */
+  public int[] getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Returns the index of a pixel in the backing buffer.
+   *
+   * @param x the column of the pixel.
+   * @param y the row of the pixel.
+   * @return the index of the pixel in {@link #getPixels()}.
+   */
+  public int indexOf(int x, int y) {
+    return offset + y * stride + x;
+  }
+
+  /**
+   * Returns the packed {@code 0xRRGGBB} value of a pixel.
+   *
+   * @param x the column of the pixel.
+   * @param y the row of the pixel.
+   * @return the packed pixel value.
+   */
+  public int getRGB(int x, int y) {
+    return pixels[indexOf(x, y)] & 0xFFFFFF;
+  }
+
+  /**
+   * Sets the packed {@code 0xRRGGBB} value of a pixel.
+   *
+   * @param x   the column of the pixel.
+   * @param y   the row of the pixel.
+   * @param rgb the packed pixel value.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    pixels[indexOf(x, y)] = rgb & 0xFFFFFF;
+  }
+
+  /**
+   * Packs three channel values in the range 0-255 into a single integer.
+   *
+   * @param red   the red value.
+   * @param green the green value.
+   * @param blue  the blue value.
+   * @return the packed {@code 0xRRGGBB} value.
+   */
+  public static int pack(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  /**
+   * Extracts the red channel of a packed pixel.
+   *
+   * @param rgb the packed pixel value.
+   * @return the red value.
+   */
+  public static int red(int rgb) {
+    return (rgb >> 16) & 0xFF;
+  }
+
+  /**
+   * Extracts the green channel of a packed pixel.
+   *
+   * @param rgb the packed pixel value.
+   * @return the green value.
+   */
+  public static int green(int rgb) {
+    return (rgb >> 8) & 0xFF;
+  }
+
+  /**
+   * Extracts the blue channel of a packed pixel.
+   *
+   * @param rgb the packed pixel value.
+   * @return the blue value.
+   */
+  public static int blue(int rgb) {
+    return rgb & 0xFF;
+  }
+
+  /**
+   * Clamps a channel value to the range 0-255.
+   *
+   * @param value the channel value.
+   * @return the clamped value.
+   */
+  public static int clamp(int value) {
+    return value < 0 ? 0 : Math.min(value, 255);
+  }
+}
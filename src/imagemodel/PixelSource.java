@@ -0,0 +1,64 @@
+package imagemodel;
+
+/**
+ * An image whose pixels are decoded on demand, one row segment at a time, instead of being held
+ * in memory as a whole. Sources are read-only, and reads may happen from several threads at once.
+ */
+public interface PixelSource {
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width in pixels.
+   */
+  int getWidth();
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height in pixels.
+   */
+  int getHeight();
+
+  /**
+   * Reads a segment of a row as packed {@code 0xRRGGBB} values.
+   *
+   * @param y      the row to read.
+   * @param x      the first column to read.
+   * @param length the number of pixels to read.
+   * @param dest   the array receiving the pixels, starting at index 0.
+   */
+  void readRow(int y, int x, int length, int[] dest);
+
+  /**
+   * Checks whether the pixels of this source are held in memory, in which case its decoded form
+   * can be kept once it has been computed without using much more memory.
+   *
+   * @return true if reading this source reads only memory.
+   */
+  default boolean isInMemory() {
+    return false;
+  }
+
+  /**
+   * Decodes the whole image into the 3D integer array form used by {@link ImageModel}.
+   *
+   * @return A 3D integer array representing the color image.
+   */
+  default int[][][] toArray() {
+    int width = getWidth();
+    int height = getHeight();
+    int[][][] colorArray = new int[height][width][3];
+    int[] row = new int[width];
+
+    for (int i = 0; i < height; i++) {
+      readRow(i, 0, width, row);
+      for (int j = 0; j < width; j++) {
+        colorArray[i][j][0] = PackedImage.red(row[j]);
+        colorArray[i][j][1] = PackedImage.green(row[j]);
+        colorArray[i][j][2] = PackedImage.blue(row[j]);
+      }
+    }
+    return colorArray;
+  }
+}
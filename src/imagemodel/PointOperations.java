@@ -0,0 +1,138 @@
+package imagemodel;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The point operations of the model, i.e. filters whose result for a pixel depends only on that
+ * pixel, as operations on packed {@code 0xRRGGBB} values. Because they need no neighbours they can
+ * be chained and applied to an image in a single pass, see {@link PointPipeline}. Operations that
+ * map each component on its own are {@link ToneCurve}s, and linear color transforms are
+ * {@link ColorMatrix} presets.
+ */
+public final class PointOperations {
+
+  private PointOperations() {
+  }
+
+  /**
+   * Returns the operation keeping only the red component.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix redComponent() {
+    return ColorMatrix.component(0);
+  }
+
+  /**
+   * Returns the operation keeping only the green component.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix greenComponent() {
+    return ColorMatrix.component(1);
+  }
+
+  /**
+   * Returns the operation keeping only the blue component.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix blueComponent() {
+    return ColorMatrix.component(2);
+  }
+
+  /**
+   * Returns the operation replacing a pixel with the maximum of its components.
+   *
+   * @return the operation.
+   */
+  public static IntUnaryOperator value() {
+    return rgb -> grey(Math.max(PackedImage.red(rgb),
+        Math.max(PackedImage.green(rgb), PackedImage.blue(rgb))));
+  }
+
+  /**
+   * Returns the operation replacing a pixel with the average of its components.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix intensity() {
+    return ColorMatrix.intensity();
+  }
+
+  /**
+   * Returns the operation replacing a pixel with its luma.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix luma() {
+    return ColorMatrix.luma();
+  }
+
+  /**
+   * Returns the operation converting a pixel to sepia tone.
+   *
+   * @return the operation.
+   */
+  public static ColorMatrix sepia() {
+    return ColorMatrix.sepia();
+  }
+
+  /**
+   * Returns the operation adding an adjustment to every component of a pixel.
+   *
+   * @param adjustment the value added to each component.
+   * @return the operation, as a lookup table.
+   */
+  public static ToneCurve brighten(int adjustment) {
+    return ToneCurve.brighten(adjustment);
+  }
+
+  /**
+   * Returns the operation applying a levels adjustment to every component of a pixel. The values
+   * are not validated.
+   *
+   * @param b The black point.
+   * @param m The mid point.
+   * @param w The white point.
+   * @return the operation, as a lookup table.
+   */
+  public static ToneCurve adjustLevel(int b, int m, int w) {
+    return ToneCurve.adjustLevel(b, m, w);
+  }
+
+  /**
+   * Applies the level adjustment to the given component value, fitting a quadratic curve through
+   * the black, mid and white points.
+   *
+   * @param pixelValue The input pixel value to which the level adjustment is applied.
+   * @param b          Parameter 'b' used in the level adjustment formula.
+   * @param m          Parameter 'm' used in the level adjustment formula.
+   * @param w          Parameter 'w' used in the level adjustment formula.
+   * @return The adjusted pixel value.
+   */
+  static int adjustLevel(int pixelValue, int b, int m, int w) {
+    double a = b * b * (m - w) - b * (m * m - w * w) + w * m * m - m * w * w;
+    double a1 = -b * (128 - 255) + 128 * w - 255 * m;
+    double a2 = b * b * (128 - 255) + 255 * m * m - 128 * w * w;
+    double a3 = b * b * (255 * m - 128 * w) - b * (255 * m * m - 128 * w * w);
+
+    double aValue = a1 / a;
+    double bValue = a2 / a;
+    double cValue = a3 / a;
+
+    double adjustedValue = aValue * pixelValue * pixelValue + bValue * pixelValue + cValue;
+
+    return Math.max(0, Math.min(255, (int) adjustedValue));
+  }
+
+  /**
+   * A helper method to build a grey packed pixel.
+   *
+   * @param value the value of all three components.
+   * @return the packed pixel value.
+   */
+  private static int grey(int value) {
+    return PackedImage.pack(value, value, value);
+  }
+}
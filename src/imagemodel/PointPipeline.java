@@ -0,0 +1,99 @@
+package imagemodel;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A chain of point operations recorded on top of an image instead of being applied to it. Reading
+ * a row of the pipeline reads the row of the underlying image and runs every operation over it
+ * while it is still in cache, so N chained operations cost one pass over the image and one result
+ * instead of N of each.
+ */
+public final class PointPipeline implements PixelSource {
+
+  private final PixelSource source;
+  private final IntUnaryOperator[] operations;
+
+  /**
+   * Constructs a pipeline applying operations, in order, to a source.
+   *
+   * @param source     the underlying image.
+   * @param operations the operations.
+   */
+  private PointPipeline(PixelSource source, IntUnaryOperator[] operations) {
+    this.source = source;
+    this.operations = operations;
+  }
+
+  /**
+   * Returns a pipeline applying an operation to a source. If the source is a pipeline itself, the
+   * operation is appended to a copy of it rather than nesting pipelines, and a tone curve following
+   * another tone curve is merged into it, so the two cost a single lookup.
+   *
+   * @param source    the underlying image.
+   * @param operation the operation to apply.
+   * @return the pipeline.
+   */
+  public static PointPipeline append(PixelSource source, IntUnaryOperator operation) {
+    if (source instanceof PointPipeline) {
+      PointPipeline pipeline = (PointPipeline) source;
+      IntUnaryOperator last = pipeline.operations[pipeline.operations.length - 1];
+      if (last instanceof ToneCurve && operation instanceof ToneCurve) {
+        IntUnaryOperator[] operations = pipeline.operations.clone();
+        operations[operations.length - 1] = ((ToneCurve) last).followedBy((ToneCurve) operation);
+        return new PointPipeline(pipeline.source, operations);
+      }
+      IntUnaryOperator[] operations = Arrays.copyOf(pipeline.operations,
+          pipeline.operations.length + 1);
+      operations[operations.length - 1] = operation;
+      return new PointPipeline(pipeline.source, operations);
+    }
+    return new PointPipeline(source, new IntUnaryOperator[]{operation});
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return source.isInMemory();
+  }
+
+  @Override
+  public int getWidth() {
+    return source.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return source.getHeight();
+  }
+
+  @Override
+  public void readRow(int y, int x, int length, int[] dest) {
+    source.readRow(y, x, length, dest);
+    for (IntUnaryOperator operation : operations) {
+      for (int j = 0; j < length; j++) {
+        dest[j] = operation.applyAsInt(dest[j]);
+      }
+    }
+  }
+
+  @Override
+  public int[][][] toArray() {
+    int width = getWidth();
+    int height = getHeight();
+    int[][][] colorArray = new int[height][][];
+
+    RowBandExecutor.getDefault().forEachBand(height, width, (startRow, endRow) -> {
+      int[] row = new int[width];
+      for (int i = startRow; i < endRow; i++) {
+        readRow(i, 0, width, row);
+        colorArray[i] = new int[width][3];
+        for (int j = 0; j < width; j++) {
+          colorArray[i][j][0] = PackedImage.red(row[j]);
+          colorArray[i][j][1] = PackedImage.green(row[j]);
+          colorArray[i][j][2] = PackedImage.blue(row[j]);
+        }
+      }
+    });
+    return colorArray;
+  }
+}
@@ -0,0 +1,183 @@
+package imagemodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs per-row image work in parallel by splitting the rows of an image into horizontal bands and
+ * processing the bands on a fork-join pool. Every band writes only its own output rows, so the
+ * result is identical to processing the rows one after another.
+ *
+ * <p>Images smaller than the sequential threshold, and executors with a parallelism of one, run
+ * the work directly on the calling thread.
+ */
+public class RowBandExecutor {
+
+  /**
+   * The default number of pixels below which an image is processed sequentially.
+   */
+  public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 64 * 1024;
+
+  /**
+   * The number of bands created per worker thread, so that uneven bands still balance out.
+   */
+  private static final int BANDS_PER_THREAD = 4;
+
+  private static RowBandExecutor defaultExecutor;
+
+  private final int parallelism;
+  private final int sequentialThreshold;
+  private ForkJoinPool pool;
+
+  /**
+   * Work performed on a contiguous range of rows.
+   */
+  @FunctionalInterface
+  public interface RowBand {
+
+    /**
+     * Processes the rows from {@code startRow} (inclusive) to {@code endRow} (exclusive).
+     *
+     * @param startRow the first row of the band.
+     * @param endRow   the row after the last row of the band.
+     */
+    void process(int startRow, int endRow);
+  }
+
+  /**
+   * Constructs an executor with the given parallelism and sequential threshold.
+   *
+   * @param parallelism         the number of worker threads, 1 to always run sequentially.
+   * @param sequentialThreshold the number of pixels below which images are processed
+   *                            sequentially.
+   * @throws IllegalArgumentException if the parallelism is less than 1 or the threshold is
+   *                                  negative.
+   */
+  public RowBandExecutor(int parallelism, int sequentialThreshold) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1.");
+    }
+    if (sequentialThreshold < 0) {
+      throw new IllegalArgumentException("Sequential threshold must not be negative.");
+    }
+    this.parallelism = parallelism;
+    this.sequentialThreshold = sequentialThreshold;
+  }
+
+  /**
+   * Returns the shared executor used by models constructed without an explicit one. Its
+   * parallelism is read from the {@code pixelate.parallelism} system property and defaults to the
+   * number of available processors.
+   *
+   * @return the shared executor.
+   */
+  public static synchronized RowBandExecutor getDefault() {
+    if (defaultExecutor == null) {
+      int parallelism = Integer.getInteger("pixelate.parallelism",
+          Runtime.getRuntime().availableProcessors());
+      defaultExecutor = new RowBandExecutor(Math.max(1, parallelism),
+          DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Returns the number of worker threads used by this executor.
+   *
+   * @return the parallelism level.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Processes all rows of an image, in parallel bands when the image is large enough.
+   *
+   * @param height the number of rows in the image.
+   * @param width  the number of columns in the image.
+   * @param band   the work to perform on each band of rows.
+   */
+  public void forEachBand(int height, int width, RowBand band) {
+    if (height <= 0) {
+      return;
+    }
+    if (parallelism == 1 || height == 1 || (long) height * width < sequentialThreshold) {
+      band.process(0, height);
+      return;
+    }
+
+    int bandCount = Math.min(height, parallelism * BANDS_PER_THREAD);
+    List<RecursiveAction> tasks = new ArrayList<>(bandCount);
+    for (int b = 0; b < bandCount; b++) {
+      int startRow = (int) ((long) height * b / bandCount);
+      int endRow = (int) ((long) height * (b + 1) / bandCount);
+      tasks.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          band.process(startRow, endRow);
+        }
+      });
+    }
+
+    invokeAll(tasks);
+  }
+
+  /**
+   * Runs fork-join actions on this executor's pool, or directly in the current pool when called
+   * from a fork-join worker, and waits for all of them to finish.
+   *
+   * @param actions the actions to run.
+   */
+  private void invokeAll(List<RecursiveAction> actions) {
+    if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(actions);
+    } else {
+      getPool().invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(actions);
+        }
+      });
+    }
+  }
+
+  /**
+   * Runs independent tasks, in parallel when this executor has more than one thread, and waits
+   * for all of them to finish.
+   *
+   * @param tasks the tasks to run.
+   */
+  public void runAll(Runnable... tasks) {
+    if (parallelism == 1 || tasks.length < 2) {
+      for (Runnable task : tasks) {
+        task.run();
+      }
+      return;
+    }
+    List<RecursiveAction> actions = new ArrayList<>(tasks.length);
+    for (Runnable task : tasks) {
+      actions.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          task.run();
+        }
+      });
+    }
+    invokeAll(actions);
+  }
+
+  /**
+   * Lazily creates the fork-join pool, so sequential-only executors never start threads.
+   *
+   * @return the pool backing this executor.
+   */
+  private synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    return pool;
+  }
+}
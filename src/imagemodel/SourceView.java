@@ -0,0 +1,294 @@
+package imagemodel;
+
+/**
+ * A cropped, flipped, rotated or channel-filtered view of another {@link PixelSource}. Creating a
+ * view copies no pixels; every read is remapped to the underlying source, and views of views are
+ * collapsed into a single view of the original source.
+ *
+ * <p>A view is a region of its source, optionally mirrored along either axis, then optionally
+ * transposed, with the channels outside a mask cleared. A row of a transposed view, i.e. a view
+ * rotated by a quarter turn, is a column of its source, so transposed views read a tile of
+ * neighbouring columns at once and keep the last tile for the rows that follow; {@link #toArray}
+ * reads every source row only once.
+ */
+public final class SourceView implements PixelSource {
+
+  private static final int TILE_PIXELS = 1 << 20;
+
+  private final PixelSource source;
+  private final int left;
+  private final int top;
+  private final int width;
+  private final int height;
+  private final boolean flipX;
+  private final boolean flipY;
+  private final boolean transpose;
+  private final int channelMask;
+  private volatile Tile tile;
+
+  /**
+   * A block of whole columns of the source region, cached to read a transposed view.
+   */
+  private static final class Tile {
+
+    private final int firstColumn;
+    private final int columns;
+    private final int[] pixels;
+
+    /**
+     * Constructs a tile.
+     *
+     * @param firstColumn the first column of the tile in the region.
+     * @param columns     the number of columns in the tile.
+     * @param pixels      the pixels of the tile, one row of the region after another.
+     */
+    private Tile(int firstColumn, int columns, int[] pixels) {
+      this.firstColumn = firstColumn;
+      this.columns = columns;
+      this.pixels = pixels;
+    }
+  }
+
+  /**
+   * Constructs a view of a region of a source.
+   *
+   * @param source      the underlying source.
+   * @param left        the first column of the region in the source.
+   * @param top         the first row of the region in the source.
+   * @param width       the width of the region.
+   * @param height      the height of the region.
+   * @param flipX       true to mirror the region horizontally.
+   * @param flipY       true to mirror the region vertically.
+   * @param transpose   true to swap the rows and columns of the mirrored region.
+   * @param channelMask the mask applied to every packed pixel.
+   */
+  private SourceView(PixelSource source, int left, int top, int width, int height, boolean flipX,
+      boolean flipY, boolean transpose, int channelMask) {
+    this.source = source;
+    this.left = left;
+    this.top = top;
+    this.width = width;
+    this.height = height;
+    this.flipX = flipX;
+    this.flipY = flipY;
+    this.transpose = transpose;
+    this.channelMask = channelMask;
+  }
+
+  /**
+   * Returns a view of a rectangular region of a source.
+   *
+   * @param source the underlying source.
+   * @param x      the first column of the region.
+   * @param y      the first row of the region.
+   * @param width  the width of the region.
+   * @param height the height of the region.
+   * @return the cropped view.
+   * @throws IllegalArgumentException if the region is empty or not inside the source.
+   */
+  public static PixelSource crop(PixelSource source, int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0
+        || (long) x + width > source.getWidth() || (long) y + height > source.getHeight()) {
+      throw new IllegalArgumentException("Crop region must lie inside the image.");
+    }
+    SourceView view = asView(source);
+    int regionX = view.transpose ? y : x;
+    int regionY = view.transpose ? x : y;
+    int regionWidth = view.transpose ? height : width;
+    int regionHeight = view.transpose ? width : height;
+    int left = view.flipX ? view.left + view.width - regionX - regionWidth : view.left + regionX;
+    int top = view.flipY ? view.top + view.height - regionY - regionHeight : view.top + regionY;
+    return new SourceView(view.source, left, top, regionWidth, regionHeight, view.flipX,
+        view.flipY, view.transpose, view.channelMask);
+  }
+
+  /**
+   * Returns a horizontally mirrored view of a source.
+   *
+   * @param source the underlying source.
+   * @return the flipped view.
+   */
+  public static PixelSource flipHorizontally(PixelSource source) {
+    SourceView view = asView(source);
+    return view.withFlips(view.flipX ^ !view.transpose, view.flipY ^ view.transpose);
+  }
+
+  /**
+   * Returns a vertically mirrored view of a source.
+   *
+   * @param source the underlying source.
+   * @return the flipped view.
+   */
+  public static PixelSource flipVertically(PixelSource source) {
+    SourceView view = asView(source);
+    return view.withFlips(view.flipX ^ view.transpose, view.flipY ^ !view.transpose);
+  }
+
+  /**
+   * Returns a view of a source rotated clockwise by a number of quarter turns.
+   *
+   * @param source       the underlying source.
+   * @param quarterTurns the number of quarter turns; negative values rotate counterclockwise.
+   * @return the rotated view.
+   */
+  public static PixelSource rotate(PixelSource source, int quarterTurns) {
+    switch (Math.floorMod(quarterTurns, 4)) {
+      case 1:
+        return flipHorizontally(transpose(source));
+      case 2:
+        return flipVertically(flipHorizontally(source));
+      case 3:
+        return flipVertically(transpose(source));
+      default:
+        return source;
+    }
+  }
+
+  /**
+   * Returns a view of a source keeping only some of its channels; the others read as zero.
+   *
+   * @param source      the underlying source.
+   * @param channelMask the mask applied to every packed {@code 0xRRGGBB} pixel, for example
+   *                    {@code 0xFF0000} to keep the red channel.
+   * @return the filtered view.
+   */
+  public static PixelSource keepChannels(PixelSource source, int channelMask) {
+    SourceView view = asView(source);
+    return new SourceView(view.source, view.left, view.top, view.width, view.height, view.flipX,
+        view.flipY, view.transpose, view.channelMask & channelMask);
+  }
+
+  /**
+   * Returns a view of a source with its rows and columns swapped.
+   *
+   * @param source the underlying source.
+   * @return the transposed view.
+   */
+  private static SourceView transpose(PixelSource source) {
+    SourceView view = asView(source);
+    return new SourceView(view.source, view.left, view.top, view.width, view.height, view.flipX,
+        view.flipY, !view.transpose, view.channelMask);
+  }
+
+  /**
+   * Returns a copy of this view with different flips of its region.
+   *
+   * @param flipX true to mirror the region horizontally.
+   * @param flipY true to mirror the region vertically.
+   * @return the new view.
+   */
+  private SourceView withFlips(boolean flipX, boolean flipY) {
+    return new SourceView(source, left, top, width, height, flipX, flipY, transpose, channelMask);
+  }
+
+  /**
+   * Returns a source as a view, wrapping it in a full-size view if it is not one already.
+   *
+   * @param source the source.
+   * @return the view.
+   */
+  private static SourceView asView(PixelSource source) {
+    if (source instanceof SourceView) {
+      return (SourceView) source;
+    }
+    return new SourceView(source, 0, 0, source.getWidth(), source.getHeight(), false, false, false,
+        0xFFFFFF);
+  }
+
+  @Override
+  public int getWidth() {
+    return transpose ? height : width;
+  }
+
+  @Override
+  public int getHeight() {
+    return transpose ? width : height;
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return source.isInMemory();
+  }
+
+  @Override
+  public void readRow(int y, int x, int length, int[] dest) {
+    if (transpose) {
+      int column = flipX ? width - 1 - y : y;
+      Tile current = tile;
+      if (current == null || column < current.firstColumn
+          || column >= current.firstColumn + current.columns) {
+        current = readTile(column);
+        tile = current;
+      }
+      for (int j = 0; j < length; j++) {
+        int row = flipY ? height - 1 - (x + j) : x + j;
+        dest[j] = current.pixels[row * current.columns + column - current.firstColumn]
+            & channelMask;
+      }
+      return;
+    }
+
+    int sourceRow = flipY ? top + height - 1 - y : top + y;
+    int sourceColumn = flipX ? left + width - x - length : left + x;
+    source.readRow(sourceRow, sourceColumn, length, dest);
+    if (flipX) {
+      for (int i = 0, j = length - 1; i < j; i++, j--) {
+        int pixel = dest[i];
+        dest[i] = dest[j];
+        dest[j] = pixel;
+      }
+    }
+    if (channelMask != 0xFFFFFF) {
+      for (int j = 0; j < length; j++) {
+        dest[j] &= channelMask;
+      }
+    }
+  }
+
+  /**
+   * Reads the tile of the source region holding a column.
+   *
+   * @param column the column of the region.
+   * @return the tile.
+   */
+  private Tile readTile(int column) {
+    int tileColumns = Math.max(1, Math.min(width, TILE_PIXELS / height));
+    int firstColumn = column / tileColumns * tileColumns;
+    int columns = Math.min(tileColumns, width - firstColumn);
+    int[] pixels = new int[height * columns];
+    int[] row = new int[columns];
+    for (int b = 0; b < height; b++) {
+      source.readRow(top + b, left + firstColumn, columns, row);
+      System.arraycopy(row, 0, pixels, b * columns, columns);
+    }
+    return new Tile(firstColumn, columns, pixels);
+  }
+
+  /**
+   * Decodes the whole view, reading every row of the source region once and scattering its pixels
+   * to their place in the result.
+   *
+   * @return A 3D integer array representing the color image.
+   */
+  @Override
+  public int[][][] toArray() {
+    int[][][] colorArray = new int[getHeight()][getWidth()][3];
+
+    RowBandExecutor.getDefault().forEachBand(height, width, (startRow, endRow) -> {
+      int[] row = new int[width];
+      for (int b = startRow; b < endRow; b++) {
+        source.readRow(top + b, left, width, row);
+        int v = flipY ? height - 1 - b : b;
+        for (int a = 0; a < width; a++) {
+          int u = flipX ? width - 1 - a : a;
+          int rgb = row[a] & channelMask;
+          int[] pixel = transpose ? colorArray[u][v] : colorArray[v][u];
+          pixel[0] = PackedImage.red(rgb);
+          pixel[1] = PackedImage.green(rgb);
+          pixel[2] = PackedImage.blue(rgb);
+        }
+      }
+    });
+    return colorArray;
+  }
+}
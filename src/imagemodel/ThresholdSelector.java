@@ -0,0 +1,146 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * Selects the compression threshold of a set of wavelet coefficients: the value at a given
+ * percentage of the sorted distinct magnitudes of the coefficients.
+ *
+ * <p>The magnitudes are never boxed. Because they are non-negative, the bit patterns of the
+ * doubles sort in the same order as the values, and two magnitudes are distinct exactly when their
+ * bit patterns are. The bit patterns are partitioned into buckets by their top 16 bits, each bucket
+ * is sorted on its own to count its distinct values, and only the bucket holding the selected rank
+ * is searched.
+ */
+public class ThresholdSelector {
+
+  private static final int BUCKET_BITS = 16;
+  private static final int BUCKETS = 1 << BUCKET_BITS;
+  private static final int BUCKET_SHIFT = Long.SIZE - 1 - BUCKET_BITS;
+
+  private final RowBandExecutor executor;
+
+  /**
+   * Constructs a selector that sorts the buckets on the given executor.
+   *
+   * @param executor the executor used to sort buckets in parallel.
+   */
+  public ThresholdSelector(RowBandExecutor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the threshold for the given compression percentage. With 100 percent every
+   * coefficient is below the threshold.
+   *
+   * @param channels   the coefficients of every channel.
+   * @param percentage the compression percentage, between 0 and 100.
+   * @return the magnitude at the percentage of the sorted distinct magnitudes.
+   */
+  public double select(double[][] channels, int percentage) {
+    int[] offsets = new int[BUCKETS + 1];
+    long total = 0;
+    for (double[] channel : channels) {
+      for (double value : channel) {
+        offsets[bucketOf(magnitudeBits(value)) + 1]++;
+      }
+      total += channel.length;
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many coefficients to select a threshold.");
+    }
+    for (int b = 0; b < BUCKETS; b++) {
+      offsets[b + 1] += offsets[b];
+    }
+
+    long[] bits = new long[(int) total];
+    int[] next = Arrays.copyOf(offsets, BUCKETS);
+    for (double[] channel : channels) {
+      for (double value : channel) {
+        long magnitude = magnitudeBits(value);
+        bits[next[bucketOf(magnitude)]++] = magnitude;
+      }
+    }
+
+    int[] uniqueCounts = new int[BUCKETS];
+    executor.forEachBand(BUCKETS, (int) (total / BUCKETS) + 1, (start, end) -> {
+      for (int b = start; b < end; b++) {
+        Arrays.sort(bits, offsets[b], offsets[b + 1]);
+        uniqueCounts[b] = countUnique(bits, offsets[b], offsets[b + 1]);
+      }
+    });
+
+    long uniqueTotal = 0;
+    for (int count : uniqueCounts) {
+      uniqueTotal += count;
+    }
+    int rank = (int) (percentage / 100.0 * uniqueTotal);
+    if (rank >= uniqueTotal) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    int bucket = 0;
+    while (rank >= uniqueCounts[bucket]) {
+      rank -= uniqueCounts[bucket];
+      bucket++;
+    }
+    return Double.longBitsToDouble(nthUnique(bits, offsets[bucket], rank));
+  }
+
+  /**
+   * Returns the bit pattern of the magnitude of a value.
+   *
+   * @param value the coefficient.
+   * @return the bits of its absolute value.
+   */
+  private static long magnitudeBits(double value) {
+    return Double.doubleToLongBits(Math.abs(value));
+  }
+
+  /**
+   * Returns the bucket of a magnitude, given by its top bits below the sign bit.
+   *
+   * @param magnitude the bits of a non-negative double.
+   * @return the bucket index.
+   */
+  private static int bucketOf(long magnitude) {
+    return (int) (magnitude >>> BUCKET_SHIFT);
+  }
+
+  /**
+   * Counts the distinct values of a sorted range.
+   *
+   * @param bits  the sorted values.
+   * @param start the first index of the range.
+   * @param end   the index after the range.
+   * @return the number of distinct values.
+   */
+  private static int countUnique(long[] bits, int start, int end) {
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      if (i == start || bits[i] != bits[i - 1]) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the distinct value of the given rank in a sorted range.
+   *
+   * @param bits  the sorted values.
+   * @param start the first index of the range.
+   * @param rank  the rank among the distinct values, starting at 0.
+   * @return the distinct value.
+   */
+  private static long nthUnique(long[] bits, int start, int rank) {
+    int i = start;
+    while (rank > 0) {
+      i++;
+      if (bits[i] != bits[i - 1]) {
+        rank--;
+      }
+    }
+    return bits[i];
+  }
+}
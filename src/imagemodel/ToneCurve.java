@@ -0,0 +1,270 @@
+package imagemodel;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A tone curve, i.e. a lookup table giving the new value of each of the 256 values of every
+ * channel. Tone mappings such as brighten, levels-adjust and color correction depend only on the
+ * value being mapped, so their formula is evaluated once per possible value when the curve is
+ * built, and mapping a pixel then costs three table lookups. Curves compose into a single table,
+ * so a chain of tone mappings is still one lookup per channel.
+ *
+ * <p>Curves work on values in 0-255; values outside that range are clamped before the lookup.
+ */
+public final class ToneCurve implements IntUnaryOperator {
+
+  private static final int LEVELS = 256;
+
+  /**
+   * The red table at 0-255, the green table at 256-511 and the blue table at 512-767.
+   */
+  private final int[] table;
+
+  /**
+   * Constructs a curve from its tables.
+   *
+   * @param table the three tables, one after the other.
+   */
+  private ToneCurve(int[] table) {
+    this.table = table;
+  }
+
+  /**
+   * Returns the curve leaving every value unchanged.
+   *
+   * @return the curve.
+   */
+  public static ToneCurve identity() {
+    return of(value -> value);
+  }
+
+  /**
+   * Returns the curve mapping the values of every channel the same way.
+   *
+   * @param mapping the mapping of a value; its results are clamped to 0-255.
+   * @return the curve.
+   */
+  public static ToneCurve of(IntUnaryOperator mapping) {
+    return of(mapping, mapping, mapping);
+  }
+
+  /**
+   * Returns the curve mapping the values of each channel with its own mapping.
+   *
+   * @param red   the mapping of a red value; its results are clamped to 0-255.
+   * @param green the mapping of a green value; its results are clamped to 0-255.
+   * @param blue  the mapping of a blue value; its results are clamped to 0-255.
+   * @return the curve.
+   */
+  public static ToneCurve of(IntUnaryOperator red, IntUnaryOperator green,
+      IntUnaryOperator blue) {
+    IntUnaryOperator[] mappings = {red, green, blue};
+    int[] table = new int[3 * LEVELS];
+    for (int c = 0; c < 3; c++) {
+      for (int value = 0; value < LEVELS; value++) {
+        table[c * LEVELS + value] = PackedImage.clamp(mappings[c].applyAsInt(value));
+      }
+    }
+    return new ToneCurve(table);
+  }
+
+  /**
+   * Returns the curve adding an adjustment to every channel.
+   *
+   * @param adjustment the value added to each component.
+   * @return the curve.
+   */
+  public static ToneCurve brighten(int adjustment) {
+    return offsets(adjustment, adjustment, adjustment);
+  }
+
+  /**
+   * Returns the curve adding its own offset to each channel, as color correction does.
+   *
+   * @param red   the value added to the red component.
+   * @param green the value added to the green component.
+   * @param blue  the value added to the blue component.
+   * @return the curve.
+   */
+  public static ToneCurve offsets(int red, int green, int blue) {
+    return of(value -> value + red, value -> value + green, value -> value + blue);
+  }
+
+  /**
+   * Returns the curve applying a levels adjustment to every channel. The values are not
+   * validated.
+   *
+   * @param b The black point.
+   * @param m The mid point.
+   * @param w The white point.
+   * @return the curve.
+   */
+  public static ToneCurve adjustLevel(int b, int m, int w) {
+    return of(value -> PointOperations.adjustLevel(value, b, m, w));
+  }
+
+  /**
+   * Returns the curve passing smoothly through control points, the same for every channel.
+   * Between two points the curve follows a monotone cubic spline, which never overshoots the
+   * points and so never reverses the order of two values unless the points do. Before the first
+   * point and after the last the curve is flat.
+   *
+   * @param points the control points as {x, y} pairs, with x strictly increasing, all in 0-255.
+   * @return the curve.
+   * @throws IllegalArgumentException if there are fewer than two points or a point is invalid.
+   */
+  public static ToneCurve fromControlPoints(int[][] points) {
+    if (points.length < 2) {
+      throw new IllegalArgumentException("A curve needs at least two control points.");
+    }
+    int n = points.length;
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int k = 0; k < n; k++) {
+      if (points[k].length != 2) {
+        throw new IllegalArgumentException("Control points must be x,y pairs.");
+      }
+      x[k] = points[k][0];
+      y[k] = points[k][1];
+      if (x[k] < 0 || x[k] > 255 || y[k] < 0 || y[k] > 255) {
+        throw new IllegalArgumentException("Control points must lie within 0 to 255.");
+      }
+      if (k > 0 && x[k] <= x[k - 1]) {
+        throw new IllegalArgumentException("Control points must be in increasing order of x.");
+      }
+    }
+
+    // Fritsch-Carlson tangents: the average of the neighbouring slopes, zero at a local extremum,
+    // and scaled down where they would make the segment overshoot.
+    double[] slopes = new double[n - 1];
+    for (int k = 0; k < n - 1; k++) {
+      slopes[k] = (y[k + 1] - y[k]) / (x[k + 1] - x[k]);
+    }
+    double[] tangents = new double[n];
+    tangents[0] = slopes[0];
+    tangents[n - 1] = slopes[n - 2];
+    for (int k = 1; k < n - 1; k++) {
+      tangents[k] = slopes[k - 1] * slopes[k] <= 0 ? 0 : (slopes[k - 1] + slopes[k]) / 2;
+    }
+    for (int k = 0; k < n - 1; k++) {
+      if (slopes[k] == 0) {
+        tangents[k] = 0;
+        tangents[k + 1] = 0;
+        continue;
+      }
+      double alpha = tangents[k] / slopes[k];
+      double beta = tangents[k + 1] / slopes[k];
+      double length = alpha * alpha + beta * beta;
+      if (length > 9) {
+        double scale = 3 / Math.sqrt(length);
+        tangents[k] = scale * alpha * slopes[k];
+        tangents[k + 1] = scale * beta * slopes[k];
+      }
+    }
+
+    int[] curve = new int[LEVELS];
+    int k = 0;
+    for (int value = 0; value < LEVELS; value++) {
+      if (value <= x[0]) {
+        curve[value] = (int) y[0];
+      } else if (value >= x[n - 1]) {
+        curve[value] = (int) y[n - 1];
+      } else {
+        while (value > x[k + 1]) {
+          k++;
+        }
+        double h = x[k + 1] - x[k];
+        double t = (value - x[k]) / h;
+        double t2 = t * t;
+        double t3 = t2 * t;
+        double result = (2 * t3 - 3 * t2 + 1) * y[k] + (t3 - 2 * t2 + t) * h * tangents[k]
+            + (-2 * t3 + 3 * t2) * y[k + 1] + (t3 - t2) * h * tangents[k + 1];
+        curve[value] = (int) Math.round(result);
+      }
+    }
+    return of(value -> curve[value]);
+  }
+
+  /**
+   * Returns a curve applying this curve to one channel only, leaving the others unchanged.
+   *
+   * @param channel the channel, 0 for red, 1 for green and 2 for blue.
+   * @return the curve.
+   */
+  public ToneCurve onChannel(int channel) {
+    if (channel < 0 || channel > 2) {
+      throw new IllegalArgumentException("Channel must be 0, 1 or 2.");
+    }
+    int[] result = identity().table;
+    System.arraycopy(table, channel * LEVELS, result, channel * LEVELS, LEVELS);
+    return new ToneCurve(result);
+  }
+
+  /**
+   * Returns the curve applying this curve and then another one, as a single table.
+   *
+   * @param after the curve applied to the results of this one.
+   * @return the combined curve.
+   */
+  public ToneCurve followedBy(ToneCurve after) {
+    int[] result = new int[3 * LEVELS];
+    for (int c = 0; c < 3; c++) {
+      for (int value = 0; value < LEVELS; value++) {
+        result[c * LEVELS + value] = after.table[c * LEVELS + table[c * LEVELS + value]];
+      }
+    }
+    return new ToneCurve(result);
+  }
+
+  /**
+   * Maps one value of a channel.
+   *
+   * @param channel the channel, 0 for red, 1 for green and 2 for blue.
+   * @param value   the value; it is clamped to 0-255.
+   * @return the mapped value.
+   */
+  public int map(int channel, int value) {
+    return table[channel * LEVELS + PackedImage.clamp(value)];
+  }
+
+  /**
+   * Maps a packed {@code 0xRRGGBB} pixel.
+   *
+   * @param rgb the packed pixel.
+   * @return the mapped packed pixel.
+   */
+  @Override
+  public int applyAsInt(int rgb) {
+    return table[PackedImage.red(rgb)] << 16
+        | table[LEVELS + PackedImage.green(rgb)] << 8
+        | table[2 * LEVELS + PackedImage.blue(rgb)];
+  }
+
+  /**
+   * Maps every pixel of an image held as an array, processing bands of rows in parallel.
+   *
+   * @param colorArray A 3D integer array representing the color image.
+   * @param executor   the executor used to process image rows in parallel.
+   * @return the mapped image, as a new array.
+   */
+  public int[][][] apply(int[][][] colorArray, RowBandExecutor executor) {
+    int height = colorArray.length;
+    int width = colorArray[0].length;
+    int[][][] result = new int[height][][];
+
+    executor.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int[][] source = colorArray[i];
+        int[][] row = new int[width][3];
+        for (int j = 0; j < width; j++) {
+          int[] pixel = source[j];
+          row[j][0] = table[PackedImage.clamp(pixel[0])];
+          row[j][1] = table[LEVELS + PackedImage.clamp(pixel[1])];
+          row[j][2] = table[2 * LEVELS + PackedImage.clamp(pixel[2])];
+        }
+        result[i] = row;
+      }
+    });
+    return result;
+  }
+}
@@ -0,0 +1,123 @@
+package imageview;
+
+import imagecontroller.Features;
+import imagecontroller.ImageStore;
+import imagemodel.ImageConvert;
+import imagemodel.PixelSource;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * A view for the script and text modes, which prints messages to the standard output and errors to
+ * the standard error stream. It never creates a window, so it does not initialize Swing and runs on
+ * machines without a display. The buttons of the GUI do not exist, so the methods handling them
+ * return empty input.
+ */
+public class HeadlessImageView implements ImageView {
+
+  private final PrintStream outputStream;
+  private final PrintStream errorStream;
+  private final ImageConvert imageConvert = new ImageConvert();
+
+  /**
+   * Constructs a view printing to the standard output and error streams.
+   */
+  public HeadlessImageView() {
+    this(System.out, System.err);
+  }
+
+  /**
+   * Constructs a view printing to the given streams.
+   *
+   * @param outputStream the stream receiving messages.
+   * @param errorStream  the stream receiving errors.
+   */
+  public HeadlessImageView(PrintStream outputStream, PrintStream errorStream) {
+    this.outputStream = outputStream;
+    this.errorStream = errorStream;
+  }
+
+  @Override
+  public void displayMessage(String message) {
+    outputStream.println(message);
+  }
+
+  @Override
+  public void setPhoto(Image image) {
+    // Nothing is displayed without a window.
+  }
+
+  @Override
+  public void generateHistogramView(String hist, Map<String, int[][][]> imageMap) {
+    // Nothing is displayed without a window.
+  }
+
+  @Override
+  public void setHistogram(Image image) {
+    // Nothing is displayed without a window.
+  }
+
+  @Override
+  public void addFeatures(Features features) {
+    // There are no buttons to connect to the features.
+  }
+
+  @Override
+  public void throwError(String error) {
+    errorStream.println(error);
+  }
+
+  @Override
+  public String handleBrightenButtonView(String brighten) {
+    return "";
+  }
+
+  @Override
+  public String handleCompressButtonView(String compress) {
+    return "";
+  }
+
+  @Override
+  public String[] handleLevelsAdjustButtonView(String levelAdjust) {
+    return getBMWValues();
+  }
+
+  @Override
+  public String handleLoadButton() {
+    return null;
+  }
+
+  @Override
+  public String handleSaveButton() {
+    return "";
+  }
+
+  @Override
+  public BufferedImage createBufferedImage(int[][][] processedImageArray) {
+    return imageConvert.convertToBufferedImage(processedImageArray);
+  }
+
+  @Override
+  public Image getProcessedImage(String image1, Map<String, int[][][]> imageMap) {
+    if (imageMap instanceof ImageStore) {
+      PixelSource source = ((ImageStore) imageMap).getSource(image1);
+      if (source != null) {
+        return imageConvert.convertToBufferedImage(source);
+      }
+    }
+    int[][][] processedImageArray = imageMap.get(image1);
+    return processedImageArray == null ? null : createBufferedImage(processedImageArray);
+  }
+
+  @Override
+  public void handleImageProcessingButtonView(String command, Boolean supportSplit) {
+    // There are no buttons to show or hide.
+  }
+
+  @Override
+  public String[] getBMWValues() {
+    return new String[]{"", "", ""};
+  }
+}
@@ -1,6 +1,9 @@
 package imageview;
 
 import imagecontroller.Features;
+import imagecontroller.ImageStore;
+import imagemodel.ImageConvert;
+import imagemodel.PixelSource;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -27,6 +30,7 @@ import javax.swing.JSlider;
 import javax.swing.JSplitPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
@@ -43,6 +47,8 @@ public class ImageViewImpl extends JFrame implements ImageView {
   private String lastMessageDisplayed;
   private final JButton loadButton;
   private final JButton saveButton;
+  private final JButton undoButton;
+  private final JButton redoButton;
   private final JButton redButton;
   private final JButton blueButton;
   private final JButton greenButton;
@@ -70,6 +76,7 @@ public class ImageViewImpl extends JFrame implements ImageView {
   private String currentCommand = "null";
   private boolean isImageSaved = false;
   private final JSplitPane mainPanel;
+  private final ImageConvert imageConvert = new ImageConvert();
 
   /**
    * Constructor for the View class, having outStream for printing.
@@ -108,6 +115,10 @@ public class ImageViewImpl extends JFrame implements ImageView {
     loadSavePanel.add(loadButton);
     saveButton = createButton("Save", "save_button");
     loadSavePanel.add(saveButton);
+    undoButton = createButton("Undo", "undo_button");
+    loadSavePanel.add(undoButton);
+    redoButton = createButton("Redo", "redo_button");
+    loadSavePanel.add(redoButton);
 
     // Adding buttons to the featuresPanel
     featurePanel.setBorder(BorderFactory.createTitledBorder("Features"));
@@ -217,7 +228,6 @@ public class ImageViewImpl extends JFrame implements ImageView {
     sliderSplit.setPaintLabels(true);
     sliderSplit.setLabelTable(sliderSplit.createStandardLabels(10));
     sliderSplit.setVisible(false);
-    sliderSplit.addChangeListener(evt -> splitPercentageView = sliderSplit.getValue());
     userEntryPanel.add(sliderSplit, BorderFactory.createLineBorder(new Color(118, 181, 197), 2));
     this.outputStream = System.out;
     pack();
@@ -229,6 +239,10 @@ public class ImageViewImpl extends JFrame implements ImageView {
         feature.handleLoadButton());
     saveButton.addActionListener(evt ->
         feature.handleSaveButton());
+    undoButton.addActionListener(evt ->
+        feature.handleUndoButton());
+    redoButton.addActionListener(evt ->
+        feature.handleRedoButton());
     redButton.addActionListener(evt ->
         feature.handleImageProcessingButton("red-component", false));
     greenButton.addActionListener(evt ->
@@ -256,6 +270,17 @@ public class ImageViewImpl extends JFrame implements ImageView {
     levelAdjust.addActionListener(evt ->
         feature.handleLevelsAdjustButton("levels-adjust"));
     split.addActionListener(evt -> feature.handleSplitButton(currentCommand, splitPercentageView));
+    sliderSplit.addChangeListener(evt -> {
+      int value = sliderSplit.getValue();
+      // Dragging reports the same position many times; only a new position updates the preview.
+      if (value == splitPercentageView) {
+        return;
+      }
+      splitPercentageView = value;
+      if (sliderSplit.isVisible()) {
+        feature.handleSplitButton(currentCommand, splitPercentageView);
+      }
+    });
     enterButton.addActionListener(evt -> feature.handleEnterButton(currentCommand));
   }
 
@@ -463,6 +488,12 @@ public class ImageViewImpl extends JFrame implements ImageView {
 
   @Override
   public Image getProcessedImage(String imageName, Map<String, int[][][]> imageMap) {
+    if (imageMap instanceof ImageStore) {
+      PixelSource source = ((ImageStore) imageMap).getSource(imageName);
+      if (source != null) {
+        return new ImageIcon(imageConvert.convertToBufferedImage(source)).getImage();
+      }
+    }
     int[][][] processedImageArray = imageMap.get(imageName);
     if (processedImageArray != null) {
       BufferedImage processedBufferedImage = createBufferedImage(processedImageArray);
@@ -475,23 +506,27 @@ public class ImageViewImpl extends JFrame implements ImageView {
 
   @Override
   public BufferedImage createBufferedImage(int[][][] imageArray) {
-    int width = imageArray[0].length;
-    int height = imageArray.length;
-    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int rgb = imageArray[y][x][0] << 16 | imageArray[y][x][1] << 8 | imageArray[y][x][2];
-        bufferedImage.setRGB(x, y, rgb);
-      }
-    }
-    return bufferedImage;
+    return imageConvert.convertToBufferedImage(imageArray);
   }
 
   @Override
   public void displayMessage(String message) {
     outputStream.println(message);
     lastMessageDisplayed = message;
+    if (!SwingUtilities.isEventDispatchThread()) {
+      // Commands run by the worker thread of the GUI report errors from that thread.
+      SwingUtilities.invokeLater(() -> showMessage(message));
+      return;
+    }
+    showMessage(message);
+  }
+
+  /**
+   * Shows a message in the message area.
+   *
+   * @param message the message.
+   */
+  private void showMessage(String message) {
     messageLabel.setText(message);
     messageLabel.setFont(new Font("Cambria", Font.BOLD, 16));
   }
@@ -0,0 +1,144 @@
+import static org.junit.Assert.assertEquals;
+
+import imagecontroller.EditExecutor;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the executor running the edits of the GUI. The worker and UI executors are queues run
+ * by hand, so that the order of events is fixed.
+ */
+public class EditExecutorTest {
+
+  private Queue<Runnable> worker;
+  private Queue<Runnable> ui;
+  private StringBuilder log;
+  private EditExecutor edits;
+
+  @Before
+  public void setUp() {
+    worker = new ArrayDeque<>();
+    ui = new ArrayDeque<>();
+    log = new StringBuilder();
+    edits = new EditExecutor(worker::add, ui::add, message -> log.append(message).append("\n"));
+  }
+
+  private static void runAll(Queue<Runnable> tasks) {
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+  }
+
+  private EditExecutor.Edit edit(String name) {
+    return progress -> {
+      log.append("run ").append(name).append("\n");
+      progress.accept(name + " applied");
+      return () -> log.append("show ").append(name).append("\n");
+    };
+  }
+
+  @Test
+  public void testEditsRunInOrder() {
+    edits.submit(edit("blur"));
+    runAll(worker);
+    runAll(ui);
+    edits.submit(edit("sepia"));
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run blur\nblur applied\nshow blur\n"
+        + "run sepia\nsepia applied\nshow sepia\n", log.toString());
+  }
+
+  @Test
+  public void testQueuedEditIsDropped() {
+    edits.submit(edit("blur"));
+    edits.submit(edit("sepia"));
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run sepia\nsepia applied\nshow sepia\n", log.toString());
+  }
+
+  @Test
+  public void testRunningEditStopsAtProgress() {
+    edits.submit(progress -> {
+      log.append("run blur\n");
+      edits.submit(edit("sepia"));
+      progress.accept("blur applied");
+      log.append("not reached\n");
+      return () -> log.append("show blur\n");
+    });
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run blur\nrun sepia\nsepia applied\nshow sepia\n", log.toString());
+  }
+
+  @Test
+  public void testSupersededResultIsNotShown() {
+    edits.submit(edit("blur"));
+    runAll(worker);
+    edits.submit(edit("sepia"));
+    runAll(ui);
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run blur\nrun sepia\nsepia applied\nshow sepia\n", log.toString());
+  }
+
+  @Test
+  public void testFollowUpWorkDoesNotHideQueuedResult() {
+    // The update of a preview edit queues the catch-up of the full image, as the controller does.
+    edits.submit(progress -> {
+      log.append("run blur preview\n");
+      return () -> {
+        log.append("show blur preview\n");
+        edits.enqueue(edit("blur full image"));
+      };
+    });
+    runAll(worker);
+    edits.enqueue(edit("load"));
+    runAll(ui);
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run blur preview\nshow blur preview\n"
+        + "run load\nrun blur full image\n"
+        + "load applied\nshow load\nblur full image applied\nshow blur full image\n",
+        log.toString());
+  }
+
+  @Test
+  public void testQueuedEditIsNeverDropped() {
+    edits.submit(edit("blur"));
+    edits.enqueue(edit("save"));
+    edits.submit(edit("sepia"));
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("run save\nrun sepia\nsepia applied\nshow sepia\n", log.toString());
+  }
+
+  @Test
+  public void testErrorsAreShown() {
+    edits.submit(progress -> {
+      throw new IllegalStateException("no image");
+    });
+    runAll(worker);
+    runAll(ui);
+
+    assertEquals("Error: no image\n", log.toString());
+  }
+
+  @Test
+  public void testDirectRunsOnCaller() {
+    EditExecutor direct = EditExecutor.direct(message -> log.append(message).append("\n"));
+    direct.submit(edit("blur"));
+    direct.enqueue(edit("save"));
+
+    assertEquals("run blur\nshow blur\nrun save\nshow save\n", log.toString());
+  }
+}
@@ -0,0 +1,104 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import imagecontroller.EditHistory;
+import imagemodel.ExtendedImageModelImpl;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the undo history of the GUI.
+ */
+public class EditHistoryTest {
+
+  private ExtendedImageModelImpl filters;
+  private int[][][] image;
+
+  @Before
+  public void setUp() {
+    filters = new ExtendedImageModelImpl();
+    Random random = new Random(3);
+    image = new int[150][130][3];
+    for (int[][] row : image) {
+      for (int[] pixel : row) {
+        pixel[0] = random.nextInt(256);
+        pixel[1] = random.nextInt(256);
+        pixel[2] = random.nextInt(256);
+      }
+    }
+  }
+
+  @Test
+  public void testUndoRestoresEveryStep() {
+    EditHistory history = new EditHistory(1L << 30);
+    int[][][] blurred = filters.blurImage(image);
+    int[][][] cropped = filters.crop(blurred, 10, 20, 70, 90);
+    int[][][] flipped = filters.flipVertically(cropped);
+    history.record("blur image1 image1", image, blurred);
+    history.record("crop 10 20 70 90 image1 image1", blurred, cropped);
+    history.record("vertical-flip image1 image1", cropped, flipped);
+
+    assertArrayEquals(cropped, history.undo(flipped));
+    assertArrayEquals(blurred, history.undo(cropped));
+    assertArrayEquals(image, history.undo(blurred));
+    assertFalse(history.canUndo());
+    assertNull(history.undo(image));
+
+    assertEquals("blur image1 image1", history.redo());
+    assertEquals("crop 10 20 70 90 image1 image1", history.redo());
+    assertTrue(history.canRedo());
+    assertArrayEquals(blurred, history.undo(cropped));
+  }
+
+  @Test
+  public void testNewEditDiscardsRedo() {
+    EditHistory history = new EditHistory(1L << 30);
+    int[][][] sepia = filters.convertToSepia(image);
+    history.record("sepia image1 image1", image, sepia);
+    history.undo(sepia);
+
+    history.record("blur image1 image1", image, filters.blurImage(image));
+    assertFalse(history.canRedo());
+    assertNull(history.redo());
+  }
+
+  @Test
+  public void testLocalEditKeepsOnlyChangedTiles() {
+    EditHistory history = new EditHistory(1L << 30);
+    int[][][] whole = filters.brightenImage(image, 10);
+    history.record("brighten 10 image1 image1", image, whole);
+    long wholeSize = history.getSize();
+    history.clear();
+
+    int[][][] local = filters.flipHorizontally(filters.flipHorizontally(image));
+    local[5][5][0] ^= 1;
+    history.record("edit", image, local);
+    assertTrue(history.getSize() * 3 < wholeSize);
+    assertArrayEquals(image, history.undo(local));
+  }
+
+  @Test
+  public void testBudgetForgetsOldestEdits() {
+    EditHistory history = new EditHistory(1L << 30);
+    int[][][] current = image;
+    for (int i = 0; i < 5; i++) {
+      int[][][] next = filters.brightenImage(current, 5);
+      history.record("brighten 5 image1 image1", current, next);
+      current = next;
+    }
+    long sizeOfAll = history.getSize();
+
+    history.setBudget(sizeOfAll / 2);
+    assertTrue(history.getSize() <= sizeOfAll / 2);
+    int undone = 0;
+    while (history.canUndo()) {
+      current = history.undo(current);
+      undone++;
+    }
+    assertTrue(undone >= 1 && undone < 5);
+  }
+}
@@ -1,10 +1,26 @@
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import imagecontroller.ImageControllerImpl;
+import imagecontroller.LazyImageMap;
+import imagecontroller.handlefilters.HandleCrop;
 import imagecontroller.handlefilters.HandleLoad;
 import imagecontroller.handlefilters.HandleSave;
+import imagemodel.ExtendedImageModelImpl;
+import imageview.HeadlessImageView;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -17,14 +33,29 @@ public class HandleLoadAndSaveTest {
 
   private HandleSave handleSave;
   private HashMap<String, int[][][]> imageMap;
-  private final String testImageFolder = "resources\\scripts\\ScriptResults\\";
+  private File outputFolder;
+  private String testImageFolder;
 
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
     imageMap = new HashMap<>();
     handleLoad = new HandleLoad(null, imageMap);
     handleSave = new HandleSave(null, imageMap);
+    // Saved images go to a fresh folder, so the tests leave nothing behind in the project.
+    outputFolder = Files.createTempDirectory("ScriptResults").toFile();
+    testImageFolder = outputFolder.getPath() + File.separator;
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = outputFolder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    outputFolder.delete();
   }
 
   @Test
@@ -144,6 +175,174 @@ public class HandleLoadAndSaveTest {
     assertTrue(savedImageFile.getAbsolutePath().endsWith(".ppm"));
   }
 
+  @Test
+  public void testLoadMappedPPM() {
+    LazyImageMap lazyImageMap = new LazyImageMap();
+    HandleLoad lazyLoad = new HandleLoad(null, lazyImageMap);
+    HandleCrop lazyCrop = new HandleCrop(null, lazyImageMap);
+    String imagePath = "resources\\assets\\testppm.ppm";
+
+    lazyLoad.apply(new String[]{"load", imagePath, "mapped_image", "mapped"});
+    lazyCrop.apply(new String[]{"crop", "1", "2", "3", "2", "mapped_image", "cropped_image"});
+    handleLoad.apply(new String[]{"load", imagePath, "loaded_image"});
+
+    assertTrue(lazyImageMap.getSource("mapped_image") != null);
+    assertArrayEquals(imageMap.get("loaded_image"), lazyImageMap.get("mapped_image"));
+    int[][][] croppedImage = lazyImageMap.get("cropped_image");
+    assertEquals(2, croppedImage.length);
+    assertEquals(3, croppedImage[0].length);
+    assertArrayEquals(imageMap.get("loaded_image")[3][2], croppedImage[1][1]);
+  }
+
+  @Test
+  public void testSaveAndLoadBinaryPPM() throws IOException {
+    int[][][] sampleImage = {{{255, 0, 10}, {1, 2, 3}}, {{40, 50, 60}, {0, 128, 255}}};
+    imageMap.put("sample_image", sampleImage);
+    String ppmOutputPath = testImageFolder + "output_image_p6.ppm";
+
+    handleSave.apply(new String[]{"save", ppmOutputPath, "sample_image", "P6"});
+    handleLoad.apply(new String[]{"load", ppmOutputPath, "loaded_image"});
+    assertArrayEquals(sampleImage, imageMap.get("loaded_image"));
+
+    String scaledPath = testImageFolder + "output_image_max15.ppm";
+    Files.write(Paths.get(scaledPath),
+        "P3\n# max value 15\n2 1\n15\n15 0 5  3 7 15\n".getBytes(StandardCharsets.US_ASCII));
+    handleLoad.apply(new String[]{"load", scaledPath, "scaled_image"});
+    assertArrayEquals(new int[][][]{{{255, 0, 85}, {51, 119, 255}}},
+        imageMap.get("scaled_image"));
+  }
+
+  @Test
+  public void testSaveAndLoadHaar() {
+    int[][][] sampleImage = new int[5][7][3];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 7; j++) {
+        sampleImage[i][j] = new int[]{i * 50, j * 30, 200 - i * j * 5};
+      }
+    }
+    imageMap.put("sample_image", sampleImage);
+    String haarOutputPath = testImageFolder + "output_image.haar";
+
+    handleSave.apply(new String[]{"save", haarOutputPath, "sample_image"});
+    handleLoad.apply(new String[]{"load", haarOutputPath, "loaded_image"});
+
+    int[][][] loadedImage = imageMap.get("loaded_image");
+    assertEquals(5, loadedImage.length);
+    assertEquals(7, loadedImage[0].length);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 7; j++) {
+        for (int c = 0; c < 3; c++) {
+          assertTrue(Math.abs(sampleImage[i][j][c] - loadedImage[i][j][c]) <= 1);
+        }
+      }
+    }
+
+    handleSave.apply(new String[]{"save", haarOutputPath, "sample_image", "100"});
+    handleLoad.apply(new String[]{"load", haarOutputPath, "loaded_image"});
+    assertEquals(0, imageMap.get("loaded_image")[2][3][1]);
+  }
+
+  @Test
+  public void testSaveAndLoadHaarWithQuantizationStep() throws IOException {
+    int[][][] sampleImage = new int[16][16][3];
+    for (int i = 0; i < 16; i++) {
+      for (int j = 0; j < 16; j++) {
+        sampleImage[i][j] = new int[]{i * 16, j * 16, (i * j) % 256};
+      }
+    }
+    imageMap.put("sample_image", sampleImage);
+    File fine = File.createTempFile("step", ".haar");
+    File coarse = File.createTempFile("step", ".haar");
+    try {
+      handleSave.apply(new String[]{"save", fine.getPath(), "sample_image", "0", "1"});
+      handleSave.apply(new String[]{"save", coarse.getPath(), "sample_image", "0", "8"});
+      handleLoad.apply(new String[]{"load", coarse.getPath(), "loaded_image"});
+
+      try (DataInputStream in = new DataInputStream(new FileInputStream(coarse))) {
+        // Magic, version, width and height varints and the two padded sizes precede the step.
+        in.skipBytes(9);
+        assertEquals(8.0, in.readDouble(), 0.0);
+      }
+      assertTrue(coarse.length() < fine.length());
+      int[][][] loadedImage = imageMap.get("loaded_image");
+      long error = 0;
+      for (int i = 0; i < 16; i++) {
+        for (int j = 0; j < 16; j++) {
+          for (int c = 0; c < 3; c++) {
+            error += Math.abs(sampleImage[i][j][c] - loadedImage[i][j][c]);
+          }
+        }
+      }
+      // Rounding to multiples of 8 moves each orthonormal coefficient by at most 4, so the mean
+      // error is at most 4, plus the rounding of the pixels.
+      assertTrue(error <= 5 * 16 * 16 * 3);
+    } finally {
+      fine.delete();
+      coarse.delete();
+    }
+  }
+
+  @Test
+  public void testInvalidHaarQuantizationStep() throws IOException {
+    imageMap.put("sample_image", new int[2][2][3]);
+    File file = File.createTempFile("step", ".haar");
+    file.delete();
+    ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(messages));
+    try {
+      handleSave.apply(new String[]{"save", file.getPath(), "sample_image", "0", "0"});
+      handleSave.apply(new String[]{"save", file.getPath(), "sample_image", "0", "step"});
+    } finally {
+      System.setOut(out);
+    }
+    assertFalse(file.exists());
+    assertEquals("Error: Quantization step must be a positive number."
+        + System.lineSeparator() + "Error: For input string: \"step\"" + System.lineSeparator(),
+        messages.toString());
+  }
+
+  @Test
+  public void testHaarQuantizationStepTooSmall() throws IOException {
+    int[][][] sampleImage = new int[64][64][];
+    for (int[][] row : sampleImage) {
+      for (int j = 0; j < 64; j++) {
+        row[j] = new int[]{200, 100, 50};
+      }
+    }
+    imageMap.put("sample_image", sampleImage);
+    String haarPath = testImageFolder + "small_step.haar";
+    ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(messages));
+    try {
+      handleSave.apply(new String[]{"save", haarPath, "sample_image", "0", "1e-7"});
+    } finally {
+      System.setOut(out);
+    }
+    assertFalse(new File(haarPath).exists());
+    assertEquals("Error: Quantization step is too small for this image." + System.lineSeparator(),
+        messages.toString());
+
+    // A step small enough to keep every coefficient almost exactly still fits in an int here.
+    handleSave.apply(new String[]{"save", haarPath, "sample_image", "0", "1e-5"});
+    handleLoad.apply(new String[]{"load", haarPath, "loaded_image"});
+    assertArrayEquals(sampleImage, imageMap.get("loaded_image"));
+  }
+
+  @Test
+  public void testFailedLoadStoresNothing() throws IOException {
+    File missing = File.createTempFile("missing", ".ppm");
+    missing.delete();
+    int[][][] sampleImage = new int[2][2][3];
+    imageMap.put("sample_image", sampleImage);
+
+    handleLoad.apply(new String[]{"load", missing.getPath(), "loaded_image"});
+    handleLoad.apply(new String[]{"load", missing.getPath(), "sample_image"});
+
+    assertFalse(imageMap.containsKey("loaded_image"));
+    assertTrue(imageMap.get("sample_image") == sampleImage);
+  }
 
   @Test
   public void testMultipleLoad() {
@@ -188,4 +387,47 @@ public class HandleLoadAndSaveTest {
     assertTrue(savedImageFile2.exists());
 
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testParallelLoadsOfPpmFiles() throws IOException {
+    int[][][] image = new int[300][400][3];
+    for (int i = 0; i < 300; i++) {
+      for (int j = 0; j < 400; j++) {
+        image[i][j] = new int[]{i % 256, j % 256, (i * j) % 256};
+      }
+    }
+    File plain = File.createTempFile("parallel", ".ppm");
+    File binary = File.createTempFile("parallel", ".ppm");
+    File script = File.createTempFile("parallel", ".txt");
+    imageMap.put("image", image);
+    handleSave.apply(new String[]{"save", plain.getPath(), "image"});
+    handleSave.apply(new String[]{"save", binary.getPath(), "image", "P6"});
+    Files.write(script.toPath(), ("load " + plain.getPath() + " plain\n"
+        + "load " + binary.getPath() + " binary\n"
+        + "save " + plain.getPath() + " plain\n"
+        + "save " + binary.getPath() + " binary P6\n").getBytes(StandardCharsets.UTF_8));
+    byte[] plainBytes = Files.readAllBytes(plain.toPath());
+    byte[] binaryBytes = Files.readAllBytes(binary.toPath());
+
+    ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(messages));
+    try {
+      for (int run = 0; run < 20; run++) {
+        // Both loads of a run share the HandleLoad of the controller.
+        ImageControllerImpl controller = new ImageControllerImpl(new ExtendedImageModelImpl(),
+            new HeadlessImageView());
+        controller.setScriptThreads(2);
+        controller.executeCommand("run " + script.getPath());
+        assertArrayEquals(plainBytes, Files.readAllBytes(plain.toPath()));
+        assertArrayEquals(binaryBytes, Files.readAllBytes(binary.toPath()));
+      }
+    } finally {
+      System.setOut(out);
+      plain.delete();
+      binary.delete();
+      script.delete();
+    }
+    assertEquals("", messages.toString());
+  }
+}
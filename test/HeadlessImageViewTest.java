@@ -0,0 +1,64 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import imagecontroller.ImageControllerImpl;
+import imagemodel.ExtendedImageModelImpl;
+import imageview.HeadlessImageView;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class to test the view used without a window.
+ */
+public class HeadlessImageViewTest {
+
+  private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+  private HeadlessImageView imageView;
+
+  @Before
+  public void setUp() {
+    imageView = new HeadlessImageView(new PrintStream(outContent), new PrintStream(errContent));
+  }
+
+  @Test
+  public void testDisplayMessage() {
+    imageView.displayMessage("This is a test message");
+
+    assertEquals("This is a test message" + System.lineSeparator(), outContent.toString());
+    assertEquals("", errContent.toString());
+  }
+
+  @Test
+  public void testThrowError() {
+    imageView.throwError("Please load the image first");
+
+    assertEquals("", outContent.toString());
+    assertEquals("Please load the image first" + System.lineSeparator(), errContent.toString());
+  }
+
+  @Test
+  public void testGetProcessedImage() {
+    HashMap<String, int[][][]> imageMap = new HashMap<>();
+    imageMap.put("image1", new int[][][]{{{255, 0, 0}, {0, 0, 255}}});
+
+    assertEquals(2, imageView.getProcessedImage("image1", imageMap).getWidth(null));
+    assertNull(imageView.getProcessedImage("missing", imageMap));
+  }
+
+  @Test
+  public void testControllerMessagesWithoutWindow() {
+    ImageControllerImpl controller = new ImageControllerImpl(new ExtendedImageModelImpl(),
+        imageView);
+    controller.executeCommand("misspelled image1 image2");
+
+    assertEquals("Unknown command: Operation is misspelled or doesn't exist."
+        + System.lineSeparator(), outContent.toString());
+    // Errors of the GUI buttons go to the error stream instead of a dialog.
+    controller.handleImageProcessingButton("blur", true);
+    assertEquals("Please load the image first" + System.lineSeparator(), errContent.toString());
+  }
+}
@@ -67,6 +67,34 @@ public class ImageControllerTest {
     assertEquals("Input: vflip:141", mockModel.log.toString());
   }
 
+  @Test
+  public void testExecuteRotateCommand() {
+    String command = "rotate 90 image1 rotate1";
+    imageController.executeCommand(command);
+
+    assertEquals("Input: rotate:141", mockModel.log.toString());
+  }
+
+  @Test
+  public void testExecuteCurvesCommand() {
+    imageController.executeCommand("curves 0,0;128,100;255,255 image1 curves1");
+    assertEquals("Input: curves:141", mockModel.log.toString());
+
+    mockModel.log.setLength(0);
+    imageController.executeCommand("curves green:0,10;255,245 image1 curves2 split 50");
+    assertEquals("Input: curvesSplit:141", mockModel.log.toString());
+  }
+
+  @Test
+  public void testExecuteColorMatrixCommand() {
+    imageController.executeCommand("color-matrix 0,1,0;1,0,0;0,0,1 image1 swapped1");
+    assertEquals("Input: colorMatrix:141", mockModel.log.toString());
+
+    mockModel.log.setLength(0);
+    imageController.executeCommand("color-matrix 1,0,0;0,1,0;0,0,0.5 image1 swapped2 split 30");
+    assertEquals("Input: colorMatrixSplit:141", mockModel.log.toString());
+  }
+
   @Test
   public void testExecuteSepiaCommand() {
     String command = "sepia image1 vflip1";
@@ -30,6 +30,15 @@ public class ImageControllerViewTest {
     );
   }
 
+  @Test
+  public void testHandleImageProcessingButtonAfterFailedLoad() {
+    // The mock view returns a path that does not exist.
+    imageController.handleLoadButton();
+    mockView.log.setLength(0);
+    imageController.handleImageProcessingButton("blur", false);
+    assertEquals("Error\n", mockView.log.toString());
+  }
+
   @Test
   public void testHandleSaveButton() {
     imageController.handleSaveButton();
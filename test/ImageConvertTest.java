@@ -1,9 +1,11 @@
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 import imagemodel.ImageConvert;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Random;
 import javax.imageio.ImageIO;
 import org.junit.Test;
 
@@ -38,4 +40,36 @@ public class ImageConvertTest {
       }
     }
   }
+
+  @Test
+  public void testConvertToArrayReadsEveryRasterLayout() {
+    ImageConvert imageConvert = new ImageConvert();
+    int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_INT_BGR};
+    Random random = new Random(7);
+
+    for (int type : types) {
+      BufferedImage image = new BufferedImage(13, 9, type);
+      for (int i = 0; i < 9; i++) {
+        for (int j = 0; j < 13; j++) {
+          image.setRGB(j, i, 0xFF000000 | random.nextInt(0x1000000));
+        }
+      }
+      BufferedImage subimage = image.getSubimage(3, 2, 7, 5);
+
+      for (BufferedImage source : new BufferedImage[]{image, subimage}) {
+        int[][][] array = imageConvert.convertToArray(source);
+        BufferedImage converted = imageConvert.convertToBufferedImage(array);
+        for (int i = 0; i < source.getHeight(); i++) {
+          for (int j = 0; j < source.getWidth(); j++) {
+            int rgb = source.getRGB(j, i);
+            assertArrayEquals(new int[]{(rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff},
+                array[i][j]);
+            assertEquals(rgb, converted.getRGB(j, i));
+          }
+        }
+      }
+    }
+  }
 }
@@ -1,15 +1,36 @@
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import imagecontroller.handlefilters.HandleBlur;
+import imagecontroller.handlefilters.HandleColorMatrix;
 import imagecontroller.handlefilters.HandleCompress;
+import imagecontroller.handlefilters.HandleCurves;
+import imagecontroller.handlefilters.HandleHistogram;
 import imagecontroller.handlefilters.HandleLevelAdjust;
 import imagecontroller.handlefilters.HandleLoad;
+import imagemodel.ArraySource;
+import imagemodel.ColorMatrix;
+import imagemodel.Convolver;
 import imagemodel.ExtendedImageModelImpl;
+import imagemodel.HaarCompressor;
+import imagemodel.HistogramRenderer;
+import imagemodel.PackedImage;
+import imagemodel.PixelSource;
+import imagemodel.PointOperations;
+import imagemodel.PointPipeline;
+import imagemodel.RowBandExecutor;
+import imagemodel.SourceView;
+import imagemodel.SplitSource;
+import imagemodel.ThresholdSelector;
+import imagemodel.ToneCurve;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -583,4 +604,477 @@ public class ImageModelImplTest {
 
     assertArrayEquals(expectedOutput, resultHistogram);
   }
+
+  @Test
+  public void testPackedImageRoundTrip() {
+    PackedImage packed = PackedImage.fromArray(inputImage);
+
+    assertEquals(3, packed.getWidth());
+    assertEquals(3, packed.getHeight());
+    assertEquals(0x00FFFF, packed.getRGB(1, 0));
+    assertArrayEquals(inputImage, packed.toArray());
+  }
+
+  @Test
+  public void testPackedOperationsMatchArrayOperations() {
+    PackedImage packed = PackedImage.fromArray(inputImage);
+
+    assertArrayEquals(filters.extractRedComponent(inputImage),
+        filters.extractRedComponent(packed).toArray());
+    assertArrayEquals(filters.flipHorizontally(inputImage),
+        filters.flipHorizontally(packed).toArray());
+    assertArrayEquals(filters.flipVertically(inputImage),
+        filters.flipVertically(packed).toArray());
+    assertArrayEquals(filters.convertToSepia(inputImage),
+        filters.convertToSepia(packed).toArray());
+    assertArrayEquals(filters.brightenImage(inputImage, 50),
+        filters.brightenImage(packed, 50).toArray());
+    assertArrayEquals(filters.blurImage(inputImage), filters.blurImage(packed).toArray());
+    assertArrayEquals(filters.sharpenImage(inputImage), filters.sharpenImage(packed).toArray());
+    assertArrayEquals(filters.calculateLuma(inputImage), filters.calculateLuma(packed).toArray());
+    assertArrayEquals(filters.adjustLevel(inputImage, 20, 100, 255),
+        filters.adjustLevel(packed, 20, 100, 255).toArray());
+    assertArrayEquals(filters.colorCorrect(inputImage), filters.colorCorrect(packed).toArray());
+    assertArrayEquals(filters.splitBlurImage(inputImage, 50),
+        filters.splitBlurImage(packed, 50).toArray());
+    assertArrayEquals(filters.generateHistogram(inputImage), filters.generateHistogram(packed));
+  }
+
+  @Test
+  public void testParallelExecutionMatchesSequential() {
+    Random random = new Random(42);
+    int[][][] image = new int[64][48][3];
+    for (int[][] row : image) {
+      for (int[] pixel : row) {
+        for (int c = 0; c < 3; c++) {
+          pixel[c] = random.nextInt(256);
+        }
+      }
+    }
+    ExtendedImageModelImpl sequential = new ExtendedImageModelImpl(new RowBandExecutor(1, 0));
+    ExtendedImageModelImpl parallel = new ExtendedImageModelImpl(new RowBandExecutor(4, 0));
+
+    assertArrayEquals(sequential.blurImage(image), parallel.blurImage(image));
+    assertArrayEquals(sequential.sharpenImage(image), parallel.sharpenImage(image));
+    assertArrayEquals(sequential.convertToSepia(image), parallel.convertToSepia(image));
+    assertArrayEquals(sequential.brightenImage(image, -40), parallel.brightenImage(image, -40));
+    assertArrayEquals(sequential.calculateIntensity(image), parallel.calculateIntensity(image));
+    assertArrayEquals(sequential.extractGreenComponent(image),
+        parallel.extractGreenComponent(image));
+  }
+
+  @Test
+  public void testConvolverSeparableKernel() {
+    Convolver gaussian = new Convolver(new int[][]{{1, 2, 1}, {2, 4, 2}, {1, 2, 1}});
+    Convolver laplacian = new Convolver(new int[][]{{0, -1, 0}, {-1, 4, -1}, {0, -1, 0}});
+
+    assertEquals(true, gaussian.isSeparable());
+    assertEquals(false, laplacian.isSeparable());
+    assertArrayEquals(filters.blurImage(inputImage),
+        gaussian.apply(inputImage, new RowBandExecutor(1, 0)));
+  }
+
+  @Test
+  public void testConvolveUserKernel() {
+    int[][] identity = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
+    int[][] gaussian = {{1, 2, 1}, {2, 4, 2}, {1, 2, 1}};
+
+    assertArrayEquals(inputImage, filters.convolve(inputImage, identity, 1));
+    assertArrayEquals(filters.blurImage(inputImage), filters.convolve(inputImage, gaussian, 16));
+    assertArrayEquals(filters.splitBlurImage(inputImage, 50),
+        filters.splitConvolveImage(inputImage, gaussian, 16, 50));
+  }
+
+  @Test
+  public void testHaarCompressorRectangularPadding() {
+    int[][][] wideImage = new int[3][9][3];
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 9; j++) {
+        wideImage[i][j] = new int[]{i * 40 + j, 255 - j * 20, (i * j * 17) % 256};
+      }
+    }
+    HaarCompressor square = new HaarCompressor(HaarCompressor.Padding.SQUARE,
+        new RowBandExecutor(1, 0));
+    HaarCompressor rectangular = new HaarCompressor(HaarCompressor.Padding.RECTANGULAR,
+        new RowBandExecutor(3, 0));
+
+    HaarCompressor.Coefficients coefficients = rectangular.transform(wideImage);
+    assertEquals(16, coefficients.getPaddedWidth());
+    assertEquals(4, coefficients.getPaddedHeight());
+    assertArrayEquals(wideImage, rectangular.reconstruct(coefficients));
+    assertArrayEquals(filters.compress(wideImage, 30), square.compress(wideImage, 30));
+  }
+
+  @Test
+  public void testThresholdSelectorUsesDistinctMagnitudes() {
+    double[][] coefficients = {{4.0, -1.5, 0.0, 2.0}, {-4.0, 1.5, -0.0, 3.0}, {8.0, 2.0, 1.5, 0.0}};
+    ThresholdSelector selector = new ThresholdSelector(new RowBandExecutor(1, 0));
+
+    // The distinct magnitudes are 0, 1.5, 2, 3, 4 and 8.
+    assertEquals(0.0, selector.select(coefficients, 0), 0);
+    assertEquals(2.0, selector.select(coefficients, 40), 0);
+    assertEquals(8.0, selector.select(coefficients, 99), 0);
+    assertEquals(Double.POSITIVE_INFINITY, selector.select(coefficients, 100), 0);
+  }
+
+  @Test
+  public void testPointPipelineMatchesFiltersAppliedOneByOne() {
+    Random random = new Random(11);
+    int[][][] image = new int[6][5][3];
+    for (int i = 0; i < 6; i++) {
+      for (int j = 0; j < 5; j++) {
+        image[i][j] = new int[]{random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+      }
+    }
+
+    PixelSource pipeline = PointPipeline.append(new ArraySource(image),
+        PointOperations.brighten(40));
+    pipeline = PointPipeline.append(pipeline, PointOperations.sepia());
+    pipeline = PointPipeline.append(pipeline, PointOperations.adjustLevel(10, 120, 240));
+    pipeline = PointPipeline.append(pipeline, PointOperations.luma());
+
+    int[][][] expected = filters.calculateLuma(filters.adjustLevel(
+        filters.convertToSepia(filters.brightenImage(image, 40)), 10, 120, 240));
+    assertArrayEquals(expected, pipeline.toArray());
+  }
+
+  @Test
+  public void testFlipCopiesPixels() {
+    int[][][] image = {{{1, 2, 3}, {4, 5, 6}}};
+    int[][][] flipped = filters.flipHorizontally(image);
+    assertNotSame(image[0][0], flipped[0][1]);
+
+    flipped[0][1][0] = 99;
+    assertEquals(1, image[0][0][0]);
+  }
+
+  @Test
+  public void testRotate() {
+    int[][][] image = {
+        {{1, 0, 0}, {2, 0, 0}, {3, 0, 0}},
+        {{4, 0, 0}, {5, 0, 0}, {6, 0, 0}}};
+
+    int[][][] clockwise = filters.rotate(image, 90);
+    assertArrayEquals(new int[][][]{
+        {{4, 0, 0}, {1, 0, 0}},
+        {{5, 0, 0}, {2, 0, 0}},
+        {{6, 0, 0}, {3, 0, 0}}}, clockwise);
+    assertArrayEquals(filters.rotate(image, -90), filters.rotate(image, 270));
+    assertArrayEquals(filters.flipVertically(filters.flipHorizontally(image)),
+        filters.rotate(image, 180));
+    assertArrayEquals(image, filters.rotate(clockwise, -90));
+  }
+
+  @Test
+  public void testDownscale() {
+    int[][][] image = {
+        {{0, 0, 0}, {10, 20, 30}, {100, 0, 0}, {200, 0, 0}},
+        {{20, 40, 60}, {30, 60, 90}, {100, 0, 0}, {200, 0, 0}}};
+
+    assertArrayEquals(new int[][][]{{{15, 30, 45}, {150, 0, 0}}},
+        filters.downscale(image, 2, 3));
+    assertArrayEquals(new int[][][]{{{15, 30, 45}, {150, 0, 0}}},
+        filters.downscale(image, 3, 1));
+    assertSame(image, filters.downscale(image, 4, 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDownscaleToNoPixels() {
+    filters.downscale(new int[][][]{{{1, 2, 3}}}, 0, 1);
+  }
+
+  @Test
+  public void testSplitSource() {
+    PackedImage left = PackedImage.fromArray(new int[][][]{{{1, 0, 0}, {2, 0, 0}, {3, 0, 0}}});
+    int[][][] right = {{{0, 1, 0}, {0, 2, 0}, {0, 3, 0}}};
+
+    assertArrayEquals(new int[][][]{{{1, 0, 0}, {0, 2, 0}, {0, 3, 0}}},
+        new SplitSource(left, PackedImage.fromArray(right), 1).toArray());
+    assertArrayEquals(new int[][][]{{{1, 0, 0}, {2, 0, 0}, {0, 3, 0}}},
+        new SplitSource(left, new ArraySource(right), 2).toArray());
+    assertArrayEquals(right, new SplitSource(left, new ArraySource(right), 0).toArray());
+    assertArrayEquals(left.toArray(), new SplitSource(left, new ArraySource(right), 3).toArray());
+
+    int[] segment = new int[2];
+    new SplitSource(left, new ArraySource(right), 2).readRow(0, 1, 2, segment);
+    assertArrayEquals(new int[]{PackedImage.pack(2, 0, 0), PackedImage.pack(0, 3, 0)}, segment);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSplitSourceOfDifferentSizes() {
+    new SplitSource(new PackedImage(2, 1), new PackedImage(1, 2), 1);
+  }
+
+  @Test
+  public void testSourceViewsMatchTransformsAppliedOneByOne() {
+    Random random = new Random(5);
+    int[][][] image = new int[7][9][3];
+    for (int i = 0; i < 7; i++) {
+      for (int j = 0; j < 9; j++) {
+        image[i][j] = new int[]{random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+      }
+    }
+
+    PixelSource view = new ArraySource(image);
+    int[][][] expected = image;
+    for (int step = 0; step < 40; step++) {
+      switch (random.nextInt(5)) {
+        case 0:
+          view = SourceView.flipHorizontally(view);
+          expected = filters.flipHorizontally(expected);
+          break;
+        case 1:
+          view = SourceView.flipVertically(view);
+          expected = filters.flipVertically(expected);
+          break;
+        case 2:
+          int turns = random.nextInt(7) - 3;
+          view = SourceView.rotate(view, turns);
+          expected = filters.rotate(expected, turns * 90);
+          break;
+        case 3:
+          if (expected.length > 2 && expected[0].length > 2) {
+            view = SourceView.crop(view, 1, 0, expected[0].length - 2, expected.length - 1);
+            expected = filters.crop(expected, 1, 0, expected[0].length - 2, expected.length - 1);
+          }
+          break;
+        default:
+          view = SourceView.keepChannels(view, 0xFFFF00);
+          expected = filters.flipHorizontally(filters.flipHorizontally(expected));
+          for (int[][] row : expected) {
+            for (int[] pixel : row) {
+              pixel[2] = 0;
+            }
+          }
+      }
+      assertArrayEquals(expected, view.toArray());
+
+      int[] row = new int[view.getWidth()];
+      for (int i = 0; i < view.getHeight(); i++) {
+        view.readRow(i, 0, row.length, row);
+        for (int j = 0; j < row.length; j++) {
+          assertEquals(PackedImage.pack(expected[i][j][0], expected[i][j][1], expected[i][j][2]),
+              row[j]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testHistogramEngineCountsEveryChannelInOnePass() {
+    Random random = new Random(8);
+    int[][][] image = new int[37][29][3];
+    int[][] expected = new int[3][256];
+    for (int[][] row : image) {
+      for (int[] pixel : row) {
+        for (int c = 0; c < 3; c++) {
+          pixel[c] = random.nextInt(256);
+          expected[c][pixel[c]]++;
+        }
+      }
+    }
+    ExtendedImageModelImpl parallel = new ExtendedImageModelImpl(new RowBandExecutor(4, 0));
+
+    assertArrayEquals(expected, parallel.generateHistogram(image));
+    assertArrayEquals(expected, parallel.generateHistogram(new ArraySource(image)));
+    assertArrayEquals(expected, parallel.generateHistogram(PackedImage.fromArray(image)));
+    assertArrayEquals(expected[1], parallel.generateComponentHistogram(image, 1));
+
+    parallel.generateHistogram(image)[0][0] = -1;
+    assertArrayEquals(expected, parallel.generateHistogram(image));
+  }
+
+  @Test
+  public void testHistogramRenderer() {
+    int[][] histograms = new int[3][256];
+    histograms[0][0] = 128;
+    histograms[1][255] = 1;
+
+    PackedImage linear = new HistogramRenderer(256, 256, false).render(histograms);
+    assertEquals(0xFF0000, linear.getRGB(0, 0));
+    assertEquals(0x0000FF, linear.getRGB(128, 255));
+    assertEquals(0x00FF00, linear.getRGB(255, 254));
+    assertEquals(0xE6E6E6, linear.getRGB(5, 100));
+    assertEquals(0xFFFFFF, linear.getRGB(5, 101));
+
+    PackedImage log = new HistogramRenderer(100, 50, true).render(histograms);
+    assertEquals(100, log.getWidth());
+    assertEquals(50, log.getHeight());
+    assertEquals(0xFF0000, log.getRGB(0, 0));
+    assertEquals(0x00FF00, log.getRGB(99, 43));
+  }
+
+  @Test
+  public void testInvalidHistogramSize() {
+    imageMap = new HashMap<>();
+    imageMap.put("image", new int[][][]{{{1, 2, 3}}});
+    HandleHistogram handleHistogram = new HandleHistogram(filters, imageMap);
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+
+    handleHistogram.apply(new String[]{"histogram", "image", "hist", "100000", "100000"});
+    handleHistogram.apply(new String[]{"histogram", "image", "hist", "4097", "256", "log"});
+    handleHistogram.apply(new String[]{"histogram", "image", "hist", "1", "256"});
+    String errorMessage = outContent.toString().trim();
+
+    String expected = "Error: Histogram size must be two integers from 2 to 4096.";
+    assertEquals(expected + System.lineSeparator() + expected + System.lineSeparator()
+        + expected, errorMessage);
+    assertEquals(1, imageMap.size());
+
+    handleHistogram.apply(new String[]{"histogram", "image", "hist", "4096", "2"});
+    assertEquals(2, imageMap.size());
+  }
+
+  @Test
+  public void testToneCurveFromControlPoints() {
+    ToneCurve identity = ToneCurve.fromControlPoints(new int[][]{{0, 0}, {255, 255}});
+    for (int value = 0; value < 256; value++) {
+      assertEquals(value, identity.map(1, value));
+    }
+
+    ToneCurve curve = ToneCurve.fromControlPoints(new int[][]{{32, 16}, {128, 160}, {224, 240}});
+    assertEquals(16, curve.map(0, 0));
+    assertEquals(16, curve.map(0, 32));
+    assertEquals(160, curve.map(1, 128));
+    assertEquals(240, curve.map(2, 224));
+    assertEquals(240, curve.map(2, 255));
+    for (int value = 1; value < 256; value++) {
+      assertTrue(curve.map(0, value) >= curve.map(0, value - 1));
+    }
+
+    ToneCurve blueOnly = curve.onChannel(2);
+    assertEquals(100, blueOnly.map(0, 100));
+    assertEquals(100, blueOnly.map(1, 100));
+    assertEquals(curve.map(2, 100), blueOnly.map(2, 100));
+  }
+
+  @Test
+  public void testInvalidCurve() {
+    imageMap = new HashMap<>();
+    imageMap.put("image", new int[][][]{{{1, 2, 3}}});
+    HandleCurves handleCurves = new HandleCurves(filters, imageMap);
+
+    String[] tokens = {"curves", "0,0;128,300", "image", "outputImage"};
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+
+    handleCurves.apply(tokens);
+    handleCurves.apply(new String[]{"curves", "128,0;64,255", "image", "outputImage"});
+    handleCurves.apply(new String[]{"curves", "alpha:0,0;255,255", "image", "outputImage"});
+    String errorMessage = outContent.toString().trim();
+
+    assertEquals("Invalid curve: Control points must lie within 0 to 255."
+        + System.lineSeparator()
+        + "Invalid curve: Control points must be in increasing order of x."
+        + System.lineSeparator()
+        + "Invalid curve: Channel must be red, green or blue.", errorMessage);
+    assertEquals(1, imageMap.size());
+  }
+
+  @Test
+  public void testToneCurvesCompose() {
+    Random random = new Random(5);
+    int[][][] image = new int[7][9][3];
+    for (int i = 0; i < 7; i++) {
+      for (int j = 0; j < 9; j++) {
+        image[i][j] = new int[]{random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+      }
+    }
+    ToneCurve curve = ToneCurve.fromControlPoints(new int[][]{{0, 20}, {100, 60}, {255, 250}});
+
+    int[][][] expected = filters.applyToneCurve(filters.adjustLevel(
+        filters.brightenImage(image, -40), 20, 100, 230), curve);
+    assertArrayEquals(expected, filters.applyToneCurve(image, ToneCurve.brighten(-40)
+        .followedBy(ToneCurve.adjustLevel(20, 100, 230)).followedBy(curve)));
+
+    PixelSource pipeline = PointPipeline.append(new ArraySource(image),
+        PointOperations.brighten(-40));
+    pipeline = PointPipeline.append(pipeline, PointOperations.adjustLevel(20, 100, 230));
+    pipeline = PointPipeline.append(pipeline, curve);
+    assertArrayEquals(expected, pipeline.toArray());
+    assertArrayEquals(filters.applyToneCurve(image, curve),
+        filters.applyToneCurve(PackedImage.fromArray(image), curve).toArray());
+  }
+
+  @Test
+  public void testColorMatrixPresets() {
+    ColorMatrix sepia = ColorMatrix.sepia();
+    ColorMatrix luma = ColorMatrix.luma();
+    ColorMatrix intensity = ColorMatrix.intensity();
+    for (int rgb = 0; rgb <= 0xFFFFFF; rgb++) {
+      int red = PackedImage.red(rgb);
+      int green = PackedImage.green(rgb);
+      int blue = PackedImage.blue(rgb);
+
+      int average = (red + green + blue) / 3;
+      assertEquals(PackedImage.pack(average, average, average), intensity.applyAsInt(rgb));
+
+      int y = (int) (0.2126 * red + 0.7152 * green + 0.0722 * blue);
+      assertEquals(PackedImage.pack(y, y, y), luma.applyAsInt(rgb));
+      assertEquals(PackedImage.pack(
+          Math.min(255, (int) (0.393 * red + 0.769 * green + 0.189 * blue)),
+          Math.min(255, (int) (0.349 * red + 0.686 * green + 0.168 * blue)),
+          Math.min(255, (int) (0.272 * red + 0.534 * green + 0.131 * blue))),
+          sepia.applyAsInt(rgb));
+    }
+    assertEquals(0x120000, ColorMatrix.component(0).applyAsInt(0x123456));
+    assertEquals(0x003400, ColorMatrix.component(1).applyAsInt(0x123456));
+    assertEquals(0x000056, ColorMatrix.component(2).applyAsInt(0x123456));
+  }
+
+  @Test
+  public void testGreyLevelsKeepTheirLumaAndSepia() {
+    int[][][] greys = new int[1][256][];
+    for (int grey = 0; grey < 256; grey++) {
+      greys[0][grey] = new int[]{grey, grey, grey};
+    }
+    int[][][] luma = filters.calculateLuma(greys);
+    int[][][] sepia = filters.convertToSepia(greys);
+    for (int grey = 0; grey < 256; grey++) {
+      int y = (int) (0.2126 * grey + 0.7152 * grey + 0.0722 * grey);
+      assertArrayEquals(new int[]{y, y, y}, luma[0][grey]);
+      assertArrayEquals(new int[]{
+          Math.min(255, (int) (0.393 * grey + 0.769 * grey + 0.189 * grey)),
+          Math.min(255, (int) (0.349 * grey + 0.686 * grey + 0.168 * grey)),
+          Math.min(255, (int) (0.272 * grey + 0.534 * grey + 0.131 * grey))}, sepia[0][grey]);
+    }
+    assertArrayEquals(new int[]{85, 85, 85}, luma[0][85]);
+  }
+
+  @Test
+  public void testColorMatrixSaturates() {
+    ColorMatrix matrix = ColorMatrix.of(new double[][]{{-1, 0, 0}, {0, 2, 0}, {0.5, 0, 0.5}});
+    int[][][] image = {{{10, 200, 30}, {255, 0, 255}}};
+
+    assertArrayEquals(new int[][][]{{{0, 255, 20}, {0, 0, 255}}},
+        filters.applyColorMatrix(image, matrix));
+    assertArrayEquals(filters.applyColorMatrix(image, matrix),
+        filters.applyColorMatrix(PackedImage.fromArray(image), matrix).toArray());
+  }
+
+  @Test
+  public void testInvalidColorMatrix() {
+    imageMap = new HashMap<>();
+    imageMap.put("image", new int[][][]{{{1, 2, 3}}});
+    HandleColorMatrix handleColorMatrix = new HandleColorMatrix(filters, imageMap);
+
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+
+    handleColorMatrix.apply(new String[]{"color-matrix", "1,0,0;0,1,0", "image", "out"});
+    handleColorMatrix.apply(new String[]{"color-matrix", "1,0,0;0,1;0,0,1", "image", "out"});
+    handleColorMatrix.apply(new String[]{"color-matrix", "40,0,0;0,1,0;0,0,1", "image", "out"});
+    handleColorMatrix.apply(new String[]{"color-matrix", "a,0,0;0,1,0;0,0,1", "image", "out"});
+    String errorMessage = outContent.toString().trim();
+
+    assertEquals("Invalid color matrix: A color matrix must have three rows."
+        + System.lineSeparator()
+        + "Invalid color matrix: Every row of a color matrix must have three weights."
+        + System.lineSeparator()
+        + "Invalid color matrix: Color matrix weights must be between -32 and 32."
+        + System.lineSeparator()
+        + "Invalid color matrix: Color matrix weights must be numbers.", errorMessage);
+    assertEquals(1, imageMap.size());
+  }
 }
@@ -0,0 +1,143 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import imagecontroller.SpillingImageStore;
+import imagecontroller.LazyImageMap;
+import imagemodel.PackedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class to test the image store spilling images to disk.
+ */
+public class ImageStoreTest {
+
+  private static int[][][] randomImage(Random random, int bound) {
+    int[][][] image = new int[10][10][3];
+    for (int[][] row : image) {
+      for (int[] pixel : row) {
+        pixel[0] = random.nextInt(bound);
+        pixel[1] = random.nextInt(bound);
+        pixel[2] = random.nextInt(bound);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testLeastRecentlyUsedImagesAreSpilledAndReloaded() {
+    Random random = new Random(3);
+    int[][][] first = randomImage(random, 256);
+    int[][][] second = randomImage(random, 256);
+    int[][][] third = randomImage(random, 1000);
+    // Room for two 10x10 images.
+    SpillingImageStore store = new SpillingImageStore(2 * 36 * 100);
+
+    store.put("first", first);
+    store.put("second", second);
+    store.get("first");
+    store.put("third", third);
+
+    assertTrue(store.isInMemory("first"));
+    assertFalse(store.isInMemory("second"));
+    assertTrue(store.containsKey("second"));
+    assertArrayEquals(second, store.get("second"));
+
+    // Reading second back evicted first, now the least recently used image.
+    assertFalse(store.isInMemory("first"));
+    assertTrue(store.isInMemory("third"));
+    assertArrayEquals(first, store.get("first"));
+    assertFalse(store.isInMemory("third"));
+    assertArrayEquals(third, store.get("third"));
+
+    store.remove("second");
+    assertFalse(store.containsKey("second"));
+    assertNull(store.get("second"));
+  }
+
+  @Test
+  public void testEmptyImagesAreKept() {
+    SpillingImageStore store = new SpillingImageStore(36 * 100);
+    int[][][] empty = new int[0][][];
+
+    store.put("empty", empty);
+    store.put("image", randomImage(new Random(4), 256));
+    assertArrayEquals(empty, store.get("empty"));
+  }
+
+  @Test
+  public void testSpilledImagesAreListed() {
+    Random random = new Random(6);
+    int[][][] first = randomImage(random, 256);
+    int[][][] second = randomImage(random, 256);
+    SpillingImageStore store = new SpillingImageStore(36 * 100);
+
+    store.put("first", first);
+    store.put("second", second);
+
+    assertFalse(store.isInMemory("first"));
+    assertEquals(2, store.size());
+    assertEquals(new HashSet<>(Arrays.asList("first", "second")), store.keySet());
+    Map<String, int[][][]> copy = new HashMap<>();
+    store.forEach(copy::put);
+    assertArrayEquals(first, copy.get("first"));
+    assertArrayEquals(second, copy.get("second"));
+
+    store.keySet().remove("first");
+    assertFalse(store.containsKey("first"));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void testSpillFileReusesFreedSpace() {
+    Random random = new Random(7);
+    int[][][] kept = randomImage(random, 256);
+    // Room for one 10x10 image, so each put spills the image stored before it.
+    SpillingImageStore store = new SpillingImageStore(36 * 100);
+    store.put("kept", kept);
+
+    int[][][] first = null;
+    int[][][] second = null;
+    for (int i = 0; i < 100; i++) {
+      first = randomImage(random, 256);
+      second = randomImage(random, 256);
+      store.put("first", first);
+      store.put("second", second);
+      // At most kept, first and second are spilled, each taking 300 bytes.
+      assertTrue(store.getSpillSize() <= 3 * 300);
+    }
+
+    assertArrayEquals(kept, store.get("kept"));
+    assertArrayEquals(first, store.get("first"));
+    assertArrayEquals(second, store.get("second"));
+    store.clear();
+    assertEquals(0, store.getSpillSize());
+  }
+
+  @Test
+  public void testSourcesAreListedLikeArrays() {
+    LazyImageMap map = new LazyImageMap();
+    int[][][] image = randomImage(new Random(5), 256);
+    map.put("array", image);
+    map.putSource("source", PackedImage.fromArray(image));
+
+    assertEquals(2, map.size());
+    assertEquals(new HashSet<>(Arrays.asList("array", "source")), map.keySet());
+    assertArrayEquals(image, map.getOrDefault("source", null));
+    Map<String, int[][][]> copy = new HashMap<>();
+    map.forEach(copy::put);
+    assertArrayEquals(image, copy.get("array"));
+    assertArrayEquals(image, copy.get("source"));
+
+    map.keySet().remove("array");
+    assertFalse(map.containsKey("array"));
+    assertEquals(1, map.size());
+  }
+}
@@ -1,4 +1,7 @@
+import imagemodel.ColorMatrix;
 import imagemodel.ExtendedImageModel;
+import imagemodel.PixelSource;
+import imagemodel.ToneCurve;
 
 /**
  * Created ImageOperations mock class which perform different tasks related to image processing.
@@ -176,4 +179,76 @@ public class MockImageModel implements ExtendedImageModel {
     log.append("Input: color-correct").append(pixel);
     return new int[0][][];
   }
-}
\ No newline at end of file
+
+  @Override
+  public int[][][] convolve(int[][][] colorArray, int[][] kernel, int divisor) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: convolve:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] splitConvolveImage(int[][][] colorArray, int[][] kernel, int divisor,
+      int splitPercentage) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: convolveSplit:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] crop(int[][][] colorArray, int x, int y, int width, int height) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: crop:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] rotate(int[][][] colorArray, int degrees) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: rotate:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] downscale(int[][][] colorArray, int maxWidth, int maxHeight) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: downscale:").append(pixel);
+    return colorArray;
+  }
+
+  @Override
+  public int[][][] applyToneCurve(int[][][] colorArray, ToneCurve curve) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: curves:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] splitToneCurveImage(int[][][] colorArray, ToneCurve curve,
+      int splitPercentage) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: curvesSplit:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] applyColorMatrix(int[][][] colorArray, ColorMatrix matrix) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: colorMatrix:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][][] splitColorMatrixImage(int[][][] colorArray, ColorMatrix matrix,
+      int splitPercentage) {
+    int pixel = colorArray[0][0][1];
+    log.append("Input: colorMatrixSplit:").append(pixel);
+    return new int[0][][];
+  }
+
+  @Override
+  public int[][] generateHistogram(PixelSource source) {
+    log.append("Input: histogram").append(source.getWidth());
+    return new int[0][];
+  }
+}
@@ -0,0 +1,85 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import imagecontroller.ScriptCompiler;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Test class to test the dependency graph built for scripts.
+ */
+public class ScriptCompilerTest {
+
+  @Test
+  public void testIndependentCommandsOnlyDependOnTheirInput() {
+    List<ScriptCompiler.Step> steps = ScriptCompiler.compile(Arrays.asList(
+        "# load the image",
+        "load images/cat.png image1",
+        "red-component image1 red",
+        "blur image1 blurred",
+        "brighten 10 image1 bright",
+        "save out/red.png red",
+        "save out/blurred.png blurred",
+        "sepia image1 image1",
+        "load out/red.png reloaded"));
+
+    assertEquals(8, steps.size());
+    assertEquals("load images/cat.png image1", steps.get(0).getCommand());
+    assertArrayEquals(new int[]{0}, steps.get(1).getDependencies());
+    assertArrayEquals(new int[]{0}, steps.get(2).getDependencies());
+    assertArrayEquals(new int[]{0}, steps.get(3).getDependencies());
+    assertArrayEquals(new int[]{1}, steps.get(4).getDependencies());
+    // Saves stay in script order.
+    assertArrayEquals(new int[]{2, 4}, steps.get(5).getDependencies());
+    // Overwriting image1 waits for everything that reads it.
+    assertArrayEquals(new int[]{0, 1, 2, 3}, steps.get(6).getDependencies());
+    // Loading a file waits for the save writing it.
+    assertArrayEquals(new int[]{4}, steps.get(7).getDependencies());
+  }
+
+  @Test
+  public void testRunAndUnknownCommandsAreBarriers() {
+    List<ScriptCompiler.Step> steps = ScriptCompiler.compile(Arrays.asList(
+        "load a.png a",
+        "load b.png b",
+        "run other.txt",
+        "blur a c",
+        "mystery a d",
+        "sharpen b e"));
+
+    assertArrayEquals(new int[]{0, 1}, steps.get(2).getDependencies());
+    assertArrayEquals(new int[]{2}, steps.get(3).getDependencies());
+    assertArrayEquals(new int[]{2, 3}, steps.get(4).getDependencies());
+    assertArrayEquals(new int[]{4}, steps.get(5).getDependencies());
+  }
+
+  @Test
+  public void testImagesAreReleasedAfterTheirLastUse() {
+    List<ScriptCompiler.Step> steps = ScriptCompiler.compile(Arrays.asList(
+        "load a.png a",
+        "blur a b",
+        "sepia a c",
+        "save b.png b",
+        "brighten 10 c c",
+        "save c.png c"));
+
+    assertEquals(Collections.emptyList(), steps.get(1).getReleasedImages());
+    // a may still be read by the blur when the sepia, its last use, finishes.
+    assertEquals(Arrays.asList("a"), steps.get(2).getReleasedImages());
+    assertArrayEquals(new int[]{0, 1}, steps.get(2).getReleaseAfter());
+    assertEquals(Arrays.asList("b"), steps.get(3).getReleasedImages());
+    assertEquals(Collections.emptyList(), steps.get(4).getReleasedImages());
+    assertEquals(Arrays.asList("c"), steps.get(5).getReleasedImages());
+
+    // The script run by a barrier may use any image named before it.
+    steps = ScriptCompiler.compile(Arrays.asList(
+        "load a.png a",
+        "blur a b",
+        "run other.txt",
+        "save b.png b"));
+    assertEquals(Arrays.asList("a"), steps.get(2).getReleasedImages());
+    assertEquals(Arrays.asList("b"), steps.get(3).getReleasedImages());
+  }
+}